@@ -0,0 +1,268 @@
+package graph;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A Graph that changes representation as it grows: it starts as a few inline
+ * arrays, moves to hash adjacency maps once it has more than a handful of
+ * vertices or edges, and moves to compact adjacency arrays once it has many
+ * edges per vertex. Representations only ever grow; removing vertices or
+ * edges never moves a graph back to a smaller one.
+ *
+ * <p>The thresholds default to the values of the system properties
+ * {@code graph.adaptive.inlineMaxVertices} (default 8),
+ * {@code graph.adaptive.inlineMaxEdges} (default 16),
+ * {@code graph.adaptive.compactMinEdges} (default 65536) and
+ * {@code graph.adaptive.compactMinDegree} (default 2.0).
+ *
+ * @param <L> type of vertex labels in this graph, must be immutable
+ */
+public class AdaptiveGraph<L> implements TraversableGraph<L> {
+
+    /**
+     * The representations of an adaptive graph, from smallest to largest.
+     */
+    public enum Representation {
+        /** Parallel arrays scanned linearly, see InlineGraph */
+        INLINE,
+        /** Hash maps of outgoing and incoming edges, see HashGraph */
+        HASH,
+        /** Compact adjacency arrays, see CompactGraph */
+        COMPACT,
+    }
+
+    private final Thresholds thresholds;
+    private InlineGraph<L> inline;
+    private HashGraph<L> hash;
+    private TraversableGraph<L> graph;
+
+    // Abstraction function:
+    //   Represents graph.
+    // Representation invariant:
+    //   - Exactly one of: graph == inline and hash == null (INLINE); graph == hash and
+    //     inline == null (HASH); graph is a CompactGraph and inline == hash == null (COMPACT).
+    //   - An INLINE graph is within the inline thresholds, except that removals may leave any
+    //     representation smaller than its thresholds.
+    // Safety from rep exposure:
+    //   - All fields are private, and every representation returns copies from its observers.
+
+    /**
+     * Create an empty graph with the default thresholds.
+     */
+    public AdaptiveGraph() {
+        this(Thresholds.DEFAULT);
+    }
+
+    /**
+     * Create an empty graph.
+     *
+     * @param thresholds sizes at which this graph changes representation
+     */
+    public AdaptiveGraph(Thresholds thresholds) {
+        if (thresholds == null) throw new IllegalArgumentException("Thresholds cannot be null");
+        this.thresholds = thresholds;
+        this.inline = new InlineGraph<>();
+        this.graph = inline;
+        checkRep();
+    }
+
+    // Check representation invariant
+    private void checkRep() {
+        switch (representation()) {
+            case INLINE:
+                assert graph == inline && hash == null;
+                break;
+            case HASH:
+                assert graph == hash && inline == null;
+                break;
+            default:
+                assert graph instanceof CompactGraph && inline == null && hash == null;
+        }
+    }
+
+    /**
+     * @return the current representation of this graph
+     */
+    public Representation representation() {
+        if (inline != null) {
+            return Representation.INLINE;
+        }
+        return hash != null ? Representation.HASH : Representation.COMPACT;
+    }
+
+    /**
+     * @return the graph of the current representation, which this graph
+     *         forwards every operation to
+     */
+    TraversableGraph<L> current() {
+        return graph;
+    }
+
+    /**
+     * @return the thresholds of this graph
+     */
+    public Thresholds thresholds() {
+        return thresholds;
+    }
+
+    @Override
+    public boolean add(L vertex) {
+        boolean added = graph.add(vertex);
+        if (added) {
+            promote();
+        }
+        return added;
+    }
+
+    @Override
+    public int set(L source, L target, int weight) {
+        int previousWeight = graph.set(source, target, weight);
+        if (weight > 0 && previousWeight == 0) {
+            promote();
+        }
+        return previousWeight;
+    }
+
+    @Override
+    public boolean remove(L vertex) {
+        return graph.remove(vertex);
+    }
+
+    @Override
+    public Set<L> vertices() {
+        return graph.vertices();
+    }
+
+    @Override
+    public Map<L, Integer> sources(L target) {
+        return graph.sources(target);
+    }
+
+    @Override
+    public Map<L, Integer> targets(L source) {
+        return graph.targets(source);
+    }
+
+    @Override
+    public void forEachTarget(L source, EdgeVisitor<? super L> visitor) {
+        graph.forEachTarget(source, visitor);
+    }
+
+    @Override
+    public void forEachSource(L target, EdgeVisitor<? super L> visitor) {
+        graph.forEachSource(target, visitor);
+    }
+
+    @Override
+    public int outDegree(L source) {
+        return graph.outDegree(source);
+    }
+
+    @Override
+    public int inDegree(L target) {
+        return graph.inDegree(target);
+    }
+
+    @Override
+    public int weight(L source, L target) {
+        return graph.weight(source, target);
+    }
+
+    @Override
+    public String toString() {
+        return graph.toString();
+    }
+
+    // Move to a larger representation if this graph has outgrown its current one
+    private void promote() {
+        if (inline != null
+                && (inline.vertexCount() > thresholds.getInlineMaxVertices()
+                        || inline.edgeCount() > thresholds.getInlineMaxEdges())) {
+            hash = HashGraph.copyOf(inline);
+            inline = null;
+            graph = hash;
+        }
+        if (hash != null
+                && hash.edgeCount() >= thresholds.getCompactMinEdges()
+                && hash.edgeCount() >= thresholds.getCompactMinDegree() * hash.vertexCount()) {
+            graph = CompactGraph.copyOf(hash);
+            hash = null;
+        }
+        checkRep();
+    }
+
+    /**
+     * The sizes at which an adaptive graph changes representation. Immutable.
+     */
+    public static class Thresholds {
+
+        /** The thresholds set by system properties, or the defaults. */
+        public static final Thresholds DEFAULT = new Thresholds(
+                Integer.getInteger("graph.adaptive.inlineMaxVertices", 8),
+                Integer.getInteger("graph.adaptive.inlineMaxEdges", 16),
+                Integer.getInteger("graph.adaptive.compactMinEdges", 1 << 16),
+                Double.parseDouble(System.getProperty("graph.adaptive.compactMinDegree", "2.0")));
+
+        private final int inlineMaxVertices;
+        private final int inlineMaxEdges;
+        private final int compactMinEdges;
+        private final double compactMinDegree;
+
+        /**
+         * Create thresholds.
+         *
+         * @param inlineMaxVertices most vertices an inline graph may have
+         * @param inlineMaxEdges most edges an inline graph may have
+         * @param compactMinEdges fewest edges a hash graph must have to become
+         *        compact
+         * @param compactMinDegree lowest mean out-degree a hash graph must have
+         *        to become compact
+         * @throws IllegalArgumentException if any threshold is negative
+         */
+        public Thresholds(int inlineMaxVertices, int inlineMaxEdges, int compactMinEdges, double compactMinDegree) {
+            if (inlineMaxVertices < 0 || inlineMaxEdges < 0 || compactMinEdges < 0 || !(compactMinDegree >= 0)) {
+                throw new IllegalArgumentException("Thresholds cannot be negative");
+            }
+            this.inlineMaxVertices = inlineMaxVertices;
+            this.inlineMaxEdges = inlineMaxEdges;
+            this.compactMinEdges = compactMinEdges;
+            this.compactMinDegree = compactMinDegree;
+        }
+
+        /**
+         * @return the most vertices an inline graph may have
+         */
+        public int getInlineMaxVertices() {
+            return inlineMaxVertices;
+        }
+
+        /**
+         * @return the most edges an inline graph may have
+         */
+        public int getInlineMaxEdges() {
+            return inlineMaxEdges;
+        }
+
+        /**
+         * @return the fewest edges a hash graph must have to become compact
+         */
+        public int getCompactMinEdges() {
+            return compactMinEdges;
+        }
+
+        /**
+         * @return the lowest mean out-degree a hash graph must have to become
+         *         compact
+         */
+        public double getCompactMinDegree() {
+            return compactMinDegree;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Thresholds{inlineMaxVertices=%d, inlineMaxEdges=%d, compactMinEdges=%d, compactMinDegree=%.1f}",
+                    inlineMaxVertices, inlineMaxEdges, compactMinEdges, compactMinDegree);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import graph.AdaptiveGraph.Representation;
+import graph.AdaptiveGraph.Thresholds;
+
+/**
+ * Tests for AdaptiveGraph.
+ */
+public class AdaptiveGraphTest extends GraphInstanceTest {
+
+    // Testing strategy
+    //   representation: INLINE, HASH, COMPACT
+    //   promotion: by vertex count, by edge count, to COMPACT by edges and degree, not by
+    //     updating or removing edges
+    //   contents: preserved across each promotion
+    //   thresholds: default, small, negative
+
+    // Small thresholds, so that the inherited tests cross every representation
+    private static final Thresholds SMALL = new Thresholds(2, 2, 4, 1.0);
+
+    @Override
+    public Graph<String> emptyInstance() {
+        return new AdaptiveGraph<>(SMALL);
+    }
+
+    @Test
+    public void testStartsInline() {
+        assertEquals(Representation.INLINE, new AdaptiveGraph<String>().representation());
+        assertSame(Thresholds.DEFAULT, new AdaptiveGraph<String>().thresholds());
+    }
+
+    @Test
+    public void testPromotedByVertexCount() {
+        AdaptiveGraph<String> graph = new AdaptiveGraph<>(SMALL);
+        graph.add("A");
+        graph.add("B");
+        assertEquals(Representation.INLINE, graph.representation());
+        graph.add("C");
+        assertEquals(Representation.HASH, graph.representation());
+        assertEquals(Set.of("A", "B", "C"), graph.vertices());
+    }
+
+    @Test
+    public void testPromotedByEdgeCount() {
+        AdaptiveGraph<String> graph = new AdaptiveGraph<>(new Thresholds(100, 2, 100, 1.0));
+        graph.set("A", "B", 1);
+        graph.set("B", "A", 2);
+        assertEquals(Representation.INLINE, graph.representation());
+        graph.set("A", "A", 3);
+        assertEquals(Representation.HASH, graph.representation());
+        assertEquals(Map.of("A", 3, "B", 1), graph.targets("A"));
+        assertEquals(Map.of("A", 2), graph.targets("B"));
+    }
+
+    @Test
+    public void testPromotedToCompact() {
+        AdaptiveGraph<String> graph = new AdaptiveGraph<>(SMALL);
+        graph.set("A", "B", 1);
+        graph.set("B", "C", 2);
+        graph.set("C", "A", 3);
+        assertEquals(Representation.HASH, graph.representation());
+        graph.set("A", "C", 4);
+        assertEquals(Representation.COMPACT, graph.representation());
+
+        assertEquals(Set.of("A", "B", "C"), graph.vertices());
+        assertEquals(Map.of("B", 1, "C", 4), graph.targets("A"));
+        assertEquals(Map.of("B", 2, "A", 4), graph.sources("C"));
+        assertEquals(4, graph.set("A", "C", 5));
+        assertTrue(graph.remove("B"));
+        assertEquals(Map.of("C", 5), graph.targets("A"));
+    }
+
+    @Test
+    public void testSparseGraphStaysHash() {
+        AdaptiveGraph<String> graph = new AdaptiveGraph<>(new Thresholds(2, 2, 4, 2.0));
+        for (int i = 0; i < 10; i++) {
+            graph.set("v" + i, "v" + (i + 1), 1);
+        }
+        assertEquals(Representation.HASH, graph.representation());
+    }
+
+    @Test
+    public void testUpdatesAndRemovalsDoNotPromote() {
+        AdaptiveGraph<String> graph = new AdaptiveGraph<>(new Thresholds(2, 1, 100, 1.0));
+        graph.set("A", "B", 1);
+        graph.set("A", "B", 2);
+        graph.set("A", "B", 0);
+        graph.set("B", "A", 0);
+        graph.remove("B");
+        assertEquals(Representation.INLINE, graph.representation());
+    }
+
+    @Test
+    public void testNeverDemoted() {
+        AdaptiveGraph<String> graph = new AdaptiveGraph<>(SMALL);
+        graph.add("A");
+        graph.add("B");
+        graph.add("C");
+        graph.remove("C");
+        graph.remove("B");
+        assertEquals(Representation.HASH, graph.representation());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeThreshold() {
+        new Thresholds(-1, 2, 4, 1.0);
+    }
+}
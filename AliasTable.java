@@ -0,0 +1,114 @@
+package poet;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+import graph.Validation;
+
+/**
+ * A Walker alias table over the targets of one vertex of a word affinity
+ * graph, which samples a target with probability proportional to its edge
+ * weight in constant time. Built with Vose's method in exact integer
+ * arithmetic from the targets in word order, so a given random sequence
+ * always samples the same targets, whatever the iteration order of the row.
+ * Immutable.
+ */
+class AliasTable {
+
+    private final String[] words;
+    private final long[] thresholds;
+    private final int[] aliases;
+    private final long total;
+
+    // Abstraction function:
+    //   Represents the distribution over words in which column i of n is chosen with probability
+    //   1/n, and then yields words[i] with probability thresholds[i] / total and
+    //   words[aliases[i]] otherwise.
+    // Representation invariant:
+    //   - words, thresholds and aliases have the same length, and words is sorted.
+    //   - 0 <= thresholds[i] <= total.
+    // Safety from rep exposure:
+    //   - All fields are private and final, and the arrays are never returned.
+
+    /**
+     * Build the alias table of a row of edges.
+     *
+     * @param row map from each target to its positive edge weight
+     */
+    AliasTable(Map<String, Integer> row) {
+        int n = row.size();
+        this.words = row.keySet().toArray(new String[n]);
+        this.thresholds = new long[n];
+        this.aliases = new int[n];
+        Arrays.sort(words); // Rows of immutable maps iterate in an order that differs by JVM run
+        long sum = 0;
+        for (int i = 0; i < n; i++) {
+            thresholds[i] = row.get(words[i]);
+            sum += thresholds[i];
+        }
+        this.total = sum;
+
+        // Scale every weight by n, so that each column holds exactly total, and pair each
+        // underfull column with an overfull one that tops it up
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int j = 0; j < n; j++) {
+            thresholds[j] *= n;
+            aliases[j] = j;
+            if (thresholds[j] < total) {
+                small[smallCount++] = j;
+            } else {
+                large[largeCount++] = j;
+            }
+        }
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            aliases[less] = more;
+            thresholds[more] -= total - thresholds[less];
+            if (thresholds[more] < total) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+        // Columns left over are full, up to rounding that cannot happen in integers
+        while (largeCount > 0) {
+            thresholds[large[--largeCount]] = total;
+        }
+        while (smallCount > 0) {
+            thresholds[small[--smallCount]] = total;
+        }
+        if (Validation.checkTouched()) {
+            checkRep(); // Every threshold was just set
+        }
+    }
+
+    private void checkRep() {
+        assert thresholds.length == words.length && aliases.length == words.length;
+        for (int i = 1; i < words.length; i++) {
+            assert words[i - 1].compareTo(words[i]) < 0;
+        }
+        for (long threshold : thresholds) {
+            assert 0 <= threshold && threshold <= total;
+        }
+    }
+
+    /**
+     * Sample a target.
+     *
+     * @param random source of randomness
+     * @return a target of the row, chosen with probability proportional to
+     *         its weight, or null if the row is empty
+     */
+    String sample(RandomGenerator random) {
+        if (words.length == 0) {
+            return null;
+        }
+        int column = random.nextInt(words.length);
+        return random.nextLong(total) < thresholds[column] ? words[column] : words[aliases[column]];
+    }
+}
@@ -0,0 +1,80 @@
+package poet;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+/**
+ * Tests for AliasTable.
+ */
+public class AliasTableTest {
+
+    // Testing strategy
+    //   row: empty, one target, uniform weights, skewed weights
+    //   sample(): frequencies match weights, same seed gives the same samples, whatever the
+    //     iteration order of the row
+
+    @Test
+    public void testEmptyRow() {
+        assertNull(new AliasTable(Map.of()).sample(new SplittableRandom(1)));
+    }
+
+    @Test
+    public void testSingleTarget() {
+        AliasTable table = new AliasTable(Map.of("a", 7));
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < 100; i++) {
+            assertEquals("a", table.sample(random));
+        }
+    }
+
+    // Test that sample frequencies are close to the weights
+    @Test
+    public void testFrequenciesMatchWeights() {
+        Map<String, Integer> row = Map.of("a", 1, "b", 2, "c", 3, "d", 10, "e", 4);
+        AliasTable table = new AliasTable(row);
+        SplittableRandom random = new SplittableRandom(42);
+        Map<String, Integer> counts = new HashMap<>();
+        int samples = 200_000;
+        for (int i = 0; i < samples; i++) {
+            counts.merge(table.sample(random), 1, Integer::sum);
+        }
+        for (Map.Entry<String, Integer> edge : row.entrySet()) {
+            double expected = samples * edge.getValue() / 20.0;
+            assertEquals(edge.getKey(), expected, counts.get(edge.getKey()), 5 * Math.sqrt(expected));
+        }
+    }
+
+    @Test
+    public void testSameSeedSameSamples() {
+        AliasTable table = new AliasTable(Map.of("a", 1, "b", 1, "c", 5));
+        SplittableRandom first = new SplittableRandom(7);
+        SplittableRandom second = new SplittableRandom(7);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(table.sample(first), table.sample(second));
+        }
+    }
+
+    // Test that the samples do not depend on the iteration order of the row
+    @Test
+    public void testRowOrderIgnored() {
+        Map<String, Integer> forward = new LinkedHashMap<>();
+        Map<String, Integer> backward = new LinkedHashMap<>();
+        for (int i = 0; i < 20; i++) {
+            forward.put("w" + i, i + 1);
+            backward.put("w" + (19 - i), 20 - i);
+        }
+        AliasTable first = new AliasTable(forward);
+        AliasTable second = new AliasTable(backward);
+        SplittableRandom firstRandom = new SplittableRandom(3);
+        SplittableRandom secondRandom = new SplittableRandom(3);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(first.sample(firstRandom), second.sample(secondRandom));
+        }
+    }
+}
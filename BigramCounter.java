@@ -0,0 +1,309 @@
+package poet;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import graph.GraphBuilder;
+import graph.TraversableGraph;
+
+/**
+ * A fork-join task that counts the bigrams of a byte range of a UTF-8 corpus
+ * file, reading the range with positional reads so that the file is never
+ * held in memory whole.
+ *
+ * <p>Words are maximal runs of bytes other than the ASCII whitespace of the
+ * {@code \s} class of {@link java.util.regex.Pattern}, which never occur
+ * inside a multi-byte UTF-8 sequence, lowercased with
+ * {@link String#toLowerCase()}. A range is split at a whitespace byte near its
+ * middle, each half is counted in its own table, and the bigram of the last
+ * word on the left and the first word on the right is added when the tables
+ * are merged.
+ */
+class BigramCounter extends RecursiveTask<BigramCounter.Counts> {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Default number of bytes below which a range is counted sequentially. */
+    static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+    private static final int SCAN_SIZE = 1 << 12;
+
+    private final transient FileChannel corpus;
+    private final long start;
+    private final long end;
+    private final int chunkSize;
+
+    // Abstraction function:
+    //   Represents the task of counting the bigrams of the words in bytes [start, end) of corpus.
+    // Representation invariant:
+    //   - 0 <= start <= end <= the size of corpus, and chunkSize > 0.
+    //   - start and end are at word boundaries: each is 0, the size of corpus, or the offset of
+    //     a whitespace byte.
+    // Safety from rep exposure:
+    //   - All fields are private and final; corpus is only read with positional reads, which
+    //     do not move its position.
+
+    private BigramCounter(FileChannel corpus, long start, long end, int chunkSize) {
+        this.corpus = corpus;
+        this.start = start;
+        this.end = end;
+        this.chunkSize = chunkSize;
+        checkRep();
+    }
+
+    private void checkRep() {
+        assert 0 <= start && start <= end;
+        assert chunkSize > 0;
+    }
+
+    /**
+     * Count the bigrams of a corpus file in parallel. The words are the same
+     * as those of {@link WordReader} for well-formed UTF-8, including the
+     * empty first word that split() yields when the text starts with
+     * whitespace and contains a word; malformed UTF-8 is replaced rather than
+     * rejected.
+     *
+     * @param corpus UTF-8 text file
+     * @param pool fork-join pool to count on
+     * @param chunkSize positive number of bytes below which a range is counted
+     *        without splitting it
+     * @return the bigram counts of the corpus
+     * @throws IOException if the file cannot be read, or holds a word longer
+     *         than 2 GB
+     * @throws ArithmeticException if a bigram occurs more than
+     *         Integer.MAX_VALUE times
+     */
+    static Counts count(Path corpus, ForkJoinPool pool, int chunkSize) throws IOException {
+        if (chunkSize <= 0) throw new IllegalArgumentException("Chunk size must be positive");
+        try (FileChannel channel = FileChannel.open(corpus, StandardOpenOption.READ)) {
+            long size = channel.size();
+            Counts counts;
+            try {
+                counts = pool.invoke(new BigramCounter(channel, 0, size, chunkSize));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            if (size > 0 && isSpace(read(channel, 0, 1)[0]) && counts.first() != null) {
+                counts.count("", counts.first(), 1); // split() yields an empty first word here
+            }
+            return counts;
+        }
+    }
+
+    @Override
+    protected Counts compute() {
+        try {
+            if (end - start > chunkSize) {
+                long split = nextSpace(start + (end - start) / 2);
+                if (split < end) {
+                    BigramCounter left = new BigramCounter(corpus, start, split, chunkSize);
+                    BigramCounter right = new BigramCounter(corpus, split, end, chunkSize);
+                    left.fork();
+                    Counts rightCounts = right.compute();
+                    return left.join().merge(rightCounts);
+                }
+            }
+            return countSequentially();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Return the offset of the first whitespace byte in [from, end), or end if there is none
+    private long nextSpace(long from) throws IOException {
+        for (long block = from; block < end; block += SCAN_SIZE) {
+            byte[] bytes = read(corpus, block, (int) Math.min(SCAN_SIZE, end - block));
+            for (int i = 0; i < bytes.length; i++) {
+                if (isSpace(bytes[i])) {
+                    return block + i;
+                }
+            }
+        }
+        return end;
+    }
+
+    private Counts countSequentially() throws IOException {
+        if (end - start > Integer.MAX_VALUE - 8) {
+            throw new IOException("Word longer than 2 GB at byte " + start);
+        }
+        byte[] bytes = read(corpus, start, (int) (end - start));
+        Counts counts = new Counts();
+        int i = 0;
+        while (i < bytes.length) {
+            while (i < bytes.length && isSpace(bytes[i])) {
+                i++;
+            }
+            int wordStart = i;
+            while (i < bytes.length && !isSpace(bytes[i])) {
+                i++;
+            }
+            if (wordStart < i) {
+                counts.append(new String(bytes, wordStart, i - wordStart, StandardCharsets.UTF_8).toLowerCase());
+            }
+        }
+        return counts;
+    }
+
+    // Read length bytes of channel from position, without moving its position
+    private static byte[] read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Corpus file shrank while it was read");
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * @param c a character
+     * @return true iff c is matched by the regular expression {@code \s}
+     */
+    static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == 0x0B || b == '\f' || b == '\r';
+    }
+
+    /**
+     * The bigram counts of a sequence of words, with its first and last word.
+     */
+    static class Counts {
+
+        private final Map<String, Map<String, int[]>> bigrams = new HashMap<>();
+        private String first = null;
+        private String last = null;
+
+        // Abstraction function:
+        //   Represents a word sequence from first to last in which the bigram (w1, w2) occurs
+        //   bigrams[w1][w2][0] times.
+        // Representation invariant:
+        //   - first and last are both null iff the sequence is empty.
+        //   - Every count is positive.
+        // Safety from rep exposure:
+        //   - All fields are private; bigrams is only read through addTo().
+
+        // Append a word to the end of the sequence
+        void append(String word) {
+            if (last != null) {
+                count(last, word, 1);
+            } else {
+                first = word;
+            }
+            last = word;
+        }
+
+        // Count a bigram occurring delta more times, throwing ArithmeticException if the count
+        // would overflow an int
+        void count(String word1, String word2, int delta) {
+            int[] count = bigrams.computeIfAbsent(word1, w -> new HashMap<>()).get(word2);
+            if (count == null) {
+                bigrams.get(word1).put(word2, new int[] {delta});
+            } else {
+                count[0] = Math.addExact(count[0], delta);
+            }
+        }
+
+        /**
+         * Merge the counts of the sequence following this one into this.
+         *
+         * @param next counts of the word sequence that follows this one
+         * @return this, now counting the concatenated sequence
+         */
+        Counts merge(Counts next) {
+            for (Map.Entry<String, Map<String, int[]>> row : next.bigrams.entrySet()) {
+                for (Map.Entry<String, int[]> bigram : row.getValue().entrySet()) {
+                    count(row.getKey(), bigram.getKey(), bigram.getValue()[0]);
+                }
+            }
+            if (last != null && next.first != null) {
+                count(last, next.first, 1);
+            }
+            if (first == null) {
+                first = next.first;
+            }
+            if (next.last != null) {
+                last = next.last;
+            }
+            return this;
+        }
+
+        /**
+         * @return the first word of the sequence, or null if it is empty
+         */
+        String first() {
+            return first;
+        }
+
+        /**
+         * @return the last word of the sequence, or null if it is empty
+         */
+        String last() {
+            return last;
+        }
+
+        /**
+         * @return the number of times word2 directly follows word1
+         */
+        int count(String word1, String word2) {
+            Map<String, int[]> row = bigrams.get(word1);
+            int[] count = row == null ? null : row.get(word2);
+            return count == null ? 0 : count[0];
+        }
+
+        /**
+         * @return every word of a counted bigram, that is, every vertex whose
+         *         adjacency addTo() changes
+         */
+        Set<String> words() {
+            Set<String> words = new HashSet<>(bigrams.keySet());
+            for (Map<String, int[]> row : bigrams.values()) {
+                words.addAll(row.keySet());
+            }
+            return words;
+        }
+
+        /**
+         * Check that every bigram count can be added to the weight of its edge
+         * in a graph.
+         *
+         * @param graph word affinity graph that the counts are about to be
+         *        added to
+         * @throws ArithmeticException if some count added to the weight of its
+         *         edge in graph would overflow an int
+         */
+        void checkAddTo(TraversableGraph<String> graph) {
+            for (Map.Entry<String, Map<String, int[]>> row : bigrams.entrySet()) {
+                for (Map.Entry<String, int[]> bigram : row.getValue().entrySet()) {
+                    Math.addExact(graph.weight(row.getKey(), bigram.getKey()), bigram.getValue()[0]);
+                }
+            }
+        }
+
+        /**
+         * Add every bigram count as an edge weight increment.
+         *
+         * @param builder builder of a word affinity graph
+         */
+        void addTo(GraphBuilder<String> builder) {
+            for (Map.Entry<String, Map<String, int[]>> row : bigrams.entrySet()) {
+                for (Map.Entry<String, int[]> bigram : row.getValue().entrySet()) {
+                    builder.increment(row.getKey(), bigram.getKey(), bigram.getValue()[0]);
+                }
+            }
+        }
+    }
+}
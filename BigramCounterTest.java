@@ -0,0 +1,126 @@
+package poet;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for BigramCounter.
+ */
+public class BigramCounterTest {
+
+    // Testing strategy
+    //   text: empty, whitespace only, one word, many words, leading whitespace, mixed case,
+    //     multi-byte UTF-8
+    //   chunk size: larger than text, smaller than a word, a few words
+    //   whitespace: single, runs of mixed \s characters
+    //   counts: overflowing an int
+
+    private Path corpus;
+    private ForkJoinPool pool;
+
+    @Before
+    public void setUp() throws IOException {
+        corpus = Files.createTempFile("corpus", ".txt");
+        pool = new ForkJoinPool(4);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        pool.shutdown();
+        Files.deleteIfExists(corpus);
+    }
+
+    // Test counting bigrams without splitting
+    @Test
+    public void testSingleChunk() throws IOException {
+        BigramCounter.Counts counts = count("a b a b\ta", 100);
+        assertEquals(2, counts.count("a", "b"));
+        assertEquals(2, counts.count("b", "a"));
+        assertEquals(0, counts.count("a", "a"));
+        assertEquals("a", counts.first());
+        assertEquals("a", counts.last());
+    }
+
+    // Test texts without bigrams
+    @Test
+    public void testNoBigrams() throws IOException {
+        assertNull(count("", 1).first());
+        assertNull(count(" \n ", 1).first());
+        assertEquals("word", count("word", 1).first());
+    }
+
+    // Test that leading whitespace yields an empty first word, as split() does
+    @Test
+    public void testLeadingWhitespace() throws IOException {
+        BigramCounter.Counts counts = count("\n a b", 1);
+        assertEquals(1, counts.count("", "a"));
+        assertEquals(1, counts.count("a", "b"));
+        assertEquals("b", counts.last());
+    }
+
+    // Test that words are lowercased and multi-byte characters survive splitting
+    @Test
+    public void testCaseAndUnicode() throws IOException {
+        BigramCounter.Counts counts = count("Caf\u00e9 NA\u00cfVE caf\u00e9 \u00c9t\u00e9 na\u00efve", 3);
+        assertEquals(1, counts.count("caf\u00e9", "na\u00efve"));
+        assertEquals(1, counts.count("na\u00efve", "caf\u00e9"));
+        assertEquals(1, counts.count("caf\u00e9", "\u00e9t\u00e9"));
+        assertEquals(1, counts.count("\u00e9t\u00e9", "na\u00efve"));
+    }
+
+    // Test that splitting into chunks counts the same bigrams as split()
+    @Test
+    public void testChunksMatchSplit() throws IOException {
+        Random random = new Random(0);
+        StringBuilder text = new StringBuilder();
+        String[] whitespace = {" ", "  ", "\n", "\t ", "\r\n"};
+        for (int i = 0; i < 5000; i++) {
+            text.append("w").append(random.nextInt(50)).append(whitespace[random.nextInt(whitespace.length)]);
+        }
+        String[] words = text.toString().split("\\s+");
+        Map<String, Integer> expected = new HashMap<>();
+        for (int i = 0; i < words.length - 1; i++) {
+            expected.merge(words[i] + " " + words[i + 1], 1, Integer::sum);
+        }
+
+        for (int chunkSize : new int[] {1, 7, 100, 1 << 20}) {
+            BigramCounter.Counts counts = count(text.toString(), chunkSize);
+            for (Map.Entry<String, Integer> bigram : expected.entrySet()) {
+                String[] pair = bigram.getKey().split(" ");
+                assertEquals("expected same count with chunk size " + chunkSize,
+                        (int) bigram.getValue(), counts.count(pair[0], pair[1]));
+            }
+            assertEquals(words[words.length - 1], counts.last());
+        }
+    }
+
+    // Test that a count that would overflow is rejected rather than wrapped
+    @Test(expected=ArithmeticException.class)
+    public void testCountOverflow() {
+        BigramCounter.Counts counts = new BigramCounter.Counts();
+        counts.count("a", "b", Integer.MAX_VALUE);
+        counts.count("a", "b", 1);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testNonPositiveChunkSize() throws IOException {
+        count("a b", 0);
+    }
+
+    private BigramCounter.Counts count(String text, int chunkSize) throws IOException {
+        Files.writeString(corpus, text, StandardCharsets.UTF_8);
+        return BigramCounter.count(corpus, pool, chunkSize);
+    }
+}
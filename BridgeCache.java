@@ -0,0 +1,280 @@
+package poet;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded, thread-safe cache of bridge words by word pair, with hit, miss
+ * and eviction counters.
+ *
+ * <p>Pairs are spread by hash over independently locked segments, so that
+ * concurrent lookups of different pairs rarely wait for each other; each
+ * segment evicts its own least recently used pair, so eviction is only
+ * approximately least recently used across the whole cache. Caches of fewer
+ * than {@value #MIN_SEGMENT_ENTRIES} * 2 pairs have a single segment and
+ * evict exactly.
+ */
+public class BridgeCache {
+
+    private static final String NO_BRIDGE = new String("");
+
+    /** Maximum number of segments. */
+    private static final int MAX_SEGMENTS = 16;
+
+    /** Minimum number of pairs per segment. */
+    static final int MIN_SEGMENT_ENTRIES = 64;
+
+    private final Segment[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final AtomicLong generation = new AtomicLong();
+
+    // Abstraction function:
+    //   Represents a cache where each pair (w1, w2) in the entries of its segment,
+    //   segments[segment(w1, w2)], has bridge entries[(w1, w2)], or no bridge if that value is
+    //   NO_BRIDGE, each segment iterated from least to most recently used; hits, misses and
+    //   evictions count lookups and evictions since creation; generation counts calls to
+    //   invalidateAll().
+    // Representation invariant:
+    //   - segments.length is a power of two, and each segment holds at most its own maxEntries
+    //     pairs, all of which hash to it; the segments' maxEntries sum to the cache's.
+    // Safety from rep exposure:
+    //   - All fields are private, entries are never returned, and stats() returns an immutable
+    //     snapshot.
+    // Thread safety argument:
+    //   - The entries of each segment are only accessed while holding that segment's lock.
+    //   - The counters are thread-safe adders and generation is atomic.
+    //   - invalidateAll() increments generation before clearing each segment under its lock,
+    //     and put() compares generations under the segment's lock, so a bridge looked up before
+    //     an invalidation is either dropped or cleared by it.
+
+    /**
+     * Create an empty cache.
+     *
+     * @param maxEntries positive maximum number of word pairs to keep
+     */
+    public BridgeCache(int maxEntries) {
+        if (maxEntries <= 0) throw new IllegalArgumentException("Cache size must be positive");
+        int count = Math.min(MAX_SEGMENTS, Integer.highestOneBit(Math.max(1, maxEntries / MIN_SEGMENT_ENTRIES)));
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(maxEntries / count + (i < maxEntries % count ? 1 : 0));
+        }
+        checkRep();
+    }
+
+    private void checkRep() {
+        assert Integer.bitCount(segments.length) == 1;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                assert segment.entries.size() <= segment.maxEntries;
+            }
+        }
+    }
+
+    // Return the segment of a pair
+    private Segment segment(Pair pair) {
+        int h = pair.hashCode();
+        return segments[(h ^ (h >>> 16)) & (segments.length - 1)];
+    }
+
+    /**
+     * Look up the bridge of a word pair, counting a hit or a miss.
+     *
+     * @param word1 first word of the pair
+     * @param word2 second word of the pair
+     * @return null if the pair is not cached; otherwise the cached bridge of
+     *         the pair, or an empty Optional if it has no bridge
+     */
+    Optional<String> get(String word1, String word2) {
+        Pair pair = new Pair(word1, word2);
+        Segment segment = segment(pair);
+        String bridge;
+        synchronized (segment) {
+            bridge = segment.entries.get(pair);
+        }
+        if (bridge == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return bridge == NO_BRIDGE ? Optional.empty() : Optional.of(bridge);
+    }
+
+    /**
+     * Cache the bridge of a word pair, evicting the least recently used pair
+     * of its segment if the segment is full.
+     *
+     * @param word1 first word of the pair
+     * @param word2 second word of the pair
+     * @param bridge bridge word of the pair, or null if it has no bridge
+     */
+    void put(String word1, String word2, String bridge) {
+        Pair pair = new Pair(word1, word2);
+        Segment segment = segment(pair);
+        synchronized (segment) {
+            segment.entries.put(pair, bridge == null ? NO_BRIDGE : bridge);
+            assert segment.entries.size() <= segment.maxEntries;
+        }
+    }
+
+    /**
+     * Cache the bridge of a word pair, as {@link #put(String, String, String)}
+     * does, unless the cache has been invalidated since the bridge was looked
+     * up, in which case the bridge may be stale and is dropped.
+     *
+     * @param word1 first word of the pair
+     * @param word2 second word of the pair
+     * @param bridge bridge word of the pair, or null if it has no bridge
+     * @param lookupGeneration value of generation() read before the graph
+     *        that bridge was found in
+     */
+    void put(String word1, String word2, String bridge, long lookupGeneration) {
+        Pair pair = new Pair(word1, word2);
+        Segment segment = segment(pair);
+        synchronized (segment) {
+            if (lookupGeneration == generation.get()) {
+                segment.entries.put(pair, bridge == null ? NO_BRIDGE : bridge);
+            }
+            assert segment.entries.size() <= segment.maxEntries;
+        }
+    }
+
+    /**
+     * @return the number of calls to invalidateAll() so far
+     */
+    long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Remove every cached pair, for example because the graph changed. The
+     * counters are not reset.
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.entries.clear();
+            }
+        }
+    }
+
+    /**
+     * @return a snapshot of the counters and size of this cache; under
+     *         concurrent use, each count is read at a slightly different time
+     */
+    public Stats stats() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.entries.size();
+            }
+        }
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), size);
+    }
+
+    /**
+     * One independently locked part of the cache, with its own bound and
+     * least recently used order.
+     */
+    private class Segment {
+
+        private final int maxEntries;
+        private final Map<Pair, String> entries;
+
+        Segment(int maxEntries) {
+            this.maxEntries = maxEntries;
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Pair, String> eldest) {
+                    if (size() > Segment.this.maxEntries) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+    }
+
+    /**
+     * An immutable snapshot of the counters of a BridgeCache.
+     */
+    public static class Stats {
+
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final int size;
+
+        private Stats(long hits, long misses, long evictions, int size) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.size = size;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        /**
+         * @return the fraction of lookups that were hits, or 0 if there were none
+         */
+        public double getHitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("BridgeCache.Stats{hits=%d, misses=%d, evictions=%d, size=%d}",
+                    hits, misses, evictions, size);
+        }
+    }
+
+    /**
+     * An ordered pair of words.
+     */
+    private static class Pair {
+
+        private final String word1;
+        private final String word2;
+
+        Pair(String word1, String word2) {
+            this.word1 = word1;
+            this.word2 = word2;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof Pair)) return false;
+
+            Pair other = (Pair) obj;
+            return word1.equals(other.word1) && word2.equals(other.word2);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * word1.hashCode() + word2.hashCode();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package poet;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.Test;
+
+/**
+ * Tests for BridgeCache.
+ */
+public class BridgeCacheTest {
+
+    // Testing strategy
+    //   lookup: miss, hit with a bridge, hit without a bridge
+    //   size: below limit, at limit (eviction of least recently used)
+    //   invalidateAll: empties the cache, keeps counters
+    //   put with generation: current, invalidated since lookup
+    //   segments: one (exact eviction), several under concurrent lookups and puts
+
+    // Test hits and misses, with and without bridges
+    @Test
+    public void testGetPut() {
+        BridgeCache cache = new BridgeCache(10);
+        assertNull(cache.get("a", "b"));
+        cache.put("a", "b", "x");
+        cache.put("b", "a", null);
+        assertEquals(Optional.of("x"), cache.get("a", "b"));
+        assertEquals(Optional.empty(), cache.get("b", "a"));
+
+        BridgeCache.Stats stats = cache.stats();
+        assertEquals(2, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(2, stats.getSize());
+        assertEquals(2.0 / 3, stats.getHitRate(), 1e-9);
+    }
+
+    // Test that the least recently used pair is evicted
+    @Test
+    public void testEviction() {
+        BridgeCache cache = new BridgeCache(2);
+        cache.put("a", "b", "x");
+        cache.put("c", "d", "y");
+        cache.get("a", "b");
+        cache.put("e", "f", "z");
+        assertNull(cache.get("c", "d"));
+        assertEquals(Optional.of("x"), cache.get("a", "b"));
+        assertEquals(1, cache.stats().getEvictions());
+    }
+
+    // Test invalidation
+    @Test
+    public void testInvalidateAll() {
+        BridgeCache cache = new BridgeCache(2);
+        cache.put("a", "b", "x");
+        cache.get("a", "b");
+        cache.invalidateAll();
+        assertNull(cache.get("a", "b"));
+        assertEquals(0, cache.stats().getSize());
+        assertEquals(1, cache.stats().getHits());
+    }
+
+    // Test that a bridge looked up before an invalidation is not cached after it
+    @Test
+    public void testPutAfterInvalidationDropped() {
+        BridgeCache cache = new BridgeCache(10);
+        long generation = cache.generation();
+        cache.invalidateAll();
+        cache.put("a", "b", "x", generation);
+        assertNull(cache.get("a", "b"));
+
+        cache.put("a", "b", "y", cache.generation());
+        assertEquals(Optional.of("y"), cache.get("a", "b"));
+    }
+
+    // Test that a segmented cache stays within its bound and counts every lookup under
+    // concurrent use
+    @Test
+    public void testConcurrentSegments() throws InterruptedException {
+        int maxEntries = BridgeCache.MIN_SEGMENT_ENTRIES * 8;
+        BridgeCache cache = new BridgeCache(maxEntries);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int seed = t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    String word = "w" + (i * 7 + seed) % (maxEntries * 2);
+                    if (cache.get(word, "x") == null) {
+                        cache.put(word, "x", word);
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        BridgeCache.Stats stats = cache.stats();
+        assertEquals(40_000, stats.getHits() + stats.getMisses());
+        assertTrue(stats.getSize() <= maxEntries);
+        assertTrue(stats.getEvictions() > 0);
+        cache.put("w1", "x", "y");
+        assertEquals(Optional.of("y"), cache.get("w1", "x"));
+    }
+}
@@ -0,0 +1,362 @@
+package poet;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import graph.FrozenGraph;
+
+/**
+ * A bounded bidirectional search for bridge paths of two or more words
+ * between a word pair, for pairs that no single word bridges. It grows
+ * layers of best-scoring paths forward from the first word and backward from
+ * the second, always extending the smaller side, and joins the new layer to
+ * the other side's, so a path of n edges costs two searches of about n / 2
+ * edges each instead of one of n. Paths are scored by the summed weight of
+ * their edges.
+ *
+ * <p>The first layers are seeded from the ranked rows of the pair's words,
+ * heaviest edges first, the word of smaller degree first, and each taking at
+ * most half of the budget left. A first layer seeded only in part still
+ * joins every word its end has an edge with, since that edge is looked up
+ * directly. Within a layer, words are expanded by decreasing score and their
+ * edges followed by decreasing weight; once a layer has joined into a path,
+ * edges that cannot lead to a better path are skipped. Every edge followed,
+ * seeds included, is charged to a fixed budget per search, and ranked rows
+ * keep only as many edges as the budget, so a search from a hub word reads
+ * its row once but never sorts it whole. Immutable and thread-safe.
+ */
+class BridgePathSearch {
+
+    private static final RankedRow EMPTY_ROW = new RankedRow(Map.of());
+
+    private final int maxWords;
+    private final int maxExpansions;
+    private final RowCache<RankedRow> rankedTargets;
+    private final RowCache<RankedRow> rankedSources;
+
+    // Abstraction function:
+    //   Represents a search for paths of 2 to maxWords intermediate words, following at most
+    //   maxExpansions edges per word pair, reading ranked rows through rankedTargets and
+    //   rankedSources.
+    // Representation invariant:
+    //   - maxWords >= 2 and maxExpansions >= 1.
+    //   - The row caches hold the maxExpansions heaviest edges of targets and sources rows.
+    // Safety from rep exposure:
+    //   - All fields are private and final, and the row caches are never returned.
+    // Thread safety argument:
+    //   - The row caches are thread-safe, and each search only touches its own layers.
+
+    /**
+     * Create a search.
+     *
+     * @param maxWords most intermediate words in a path, at least 2
+     * @param maxExpansions positive maximum number of edges to follow per
+     *        word pair
+     * @param cacheEdges positive maximum total number of edges of the rows
+     *        whose ranked edges are cached, per direction
+     */
+    BridgePathSearch(int maxWords, int maxExpansions, long cacheEdges) {
+        if (maxWords < 2) throw new IllegalArgumentException("Bridge paths must allow at least two words");
+        if (maxExpansions < 1) throw new IllegalArgumentException("Expansion budget must be positive");
+        this.maxWords = maxWords;
+        this.maxExpansions = maxExpansions;
+        this.rankedTargets = new RowCache<>(row -> new RankedRow(row, maxExpansions), cacheEdges);
+        this.rankedSources = new RowCache<>(row -> new RankedRow(row, maxExpansions), cacheEdges);
+        checkRep();
+    }
+
+    private void checkRep() {
+        assert maxWords >= 2 && maxExpansions >= 1;
+    }
+
+    /**
+     * Find the bridge path of a word pair with the fewest intermediate words,
+     * and among those the highest score, then the lexicographically smallest
+     * words, of the paths found within the expansion budget. Intermediate
+     * words are distinct, and differ from both words of the pair.
+     *
+     * @param graph graph to search
+     * @param word1 first word of the pair
+     * @param word2 second word of the pair
+     * @param metrics counters to record the search in, or null
+     * @return the intermediate words of the path, separated by single spaces,
+     *         or null if no path of 2 to maxWords words was found
+     */
+    String find(FrozenGraph<String> graph, String word1, String word2, BridgeSearchMetrics metrics) {
+        Budget budget = new Budget(maxExpansions);
+        String path = search(graph, word1, word2, budget);
+        if (metrics != null) {
+            metrics.recordPath(budget.spent(), path != null);
+        }
+        return path;
+    }
+
+    /**
+     * Drop the ranked rows of words whose rows changed, to free their memory
+     * early.
+     *
+     * @param words words whose rows changed
+     */
+    void invalidate(Collection<String> words) {
+        rankedTargets.invalidate(words);
+        rankedSources.invalidate(words);
+    }
+
+    private String search(FrozenGraph<String> graph, String word1, String word2, Budget budget) {
+        Layer forward;
+        Layer backward;
+        if (graph.outDegree(word1) <= graph.inDegree(word2)) {
+            forward = seed(graph, true, word1, word2, budget);
+            backward = seed(graph, false, word1, word2, budget);
+        } else {
+            backward = seed(graph, false, word1, word2, budget);
+            forward = seed(graph, true, word1, word2, budget);
+        }
+
+        // Layers of one edge each already joined into every one-word bridge, so start at three
+        for (int edges = 3; edges <= maxWords + 1; edges++) {
+            if (budget.exhausted || forward.nodes.isEmpty() || backward.nodes.isEmpty()) {
+                return null;
+            }
+            boolean expandForward = forward.nodes.size() <= backward.nodes.size();
+            Layer from = expandForward ? forward : backward;
+            Layer other = expandForward ? backward : forward;
+            Layer next = new Layer(expandForward, false);
+            Path best = expand(graph, from, other, next, word1, word2, budget);
+            if (best != null) {
+                return String.join(" ", best.words);
+            }
+            if (expandForward) {
+                forward = next;
+            } else {
+                backward = next;
+            }
+        }
+        return null;
+    }
+
+    // Return the first layer of one-edge paths from one end of the pair, following its edges by
+    // decreasing weight until half of the budget left is spent
+    private Layer seed(FrozenGraph<String> graph, boolean forward, String word1, String word2, Budget budget) {
+        Layer layer = new Layer(forward, true);
+        RankedRow row = row(graph, forward, forward ? word1 : word2);
+        int limit = Math.max(1, budget.remaining() / 2);
+        for (int i = 0; i < row.size() && i < limit && budget.spend(); i++) {
+            layer.offer(new Node(row.word(i), row.weight(i), null), word1, word2);
+        }
+        // The heaviest edge comes first, so this bounds unseeded paths too
+        layer.maxScore = row.size() > 0 ? row.weight(0) : 0;
+        return layer;
+    }
+
+    // Extend every path of from by one edge into next, and return the best path joining an
+    // extended path to a path of other, or null if none; next is only complete if none is found
+    private Path expand(FrozenGraph<String> graph, Layer from, Layer other, Layer next,
+            String word1, String word2, Budget budget) {
+        Path best = null;
+        PriorityQueue<Node> ranked = from.ranked();
+        for (Node node = ranked.poll(); node != null; node = ranked.poll()) {
+            RankedRow row = row(graph, from.forward, node.word);
+            for (int i = 0; i < row.size(); i++) {
+                int score = node.score + row.weight(i);
+                if (best != null && score + other.maxScore < best.score) {
+                    break; // Edges are by decreasing weight, so none of the rest can do better
+                }
+                if (!budget.spend()) {
+                    return best;
+                }
+                Node extended = new Node(row.word(i), score, node);
+                if (!next.offer(extended, word1, word2)) {
+                    continue;
+                }
+                Node meeting = other.meeting(graph, extended.word, word1, word2);
+                if (meeting != null) {
+                    Path path = from.forward ? Path.join(extended, meeting) : Path.join(meeting, extended);
+                    if (path != null && (best == null || Path.ORDER.compare(path, best) < 0)) {
+                        best = path;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    // Return the cached ranked targets or sources row of word, without caching empty rows
+    private RankedRow row(FrozenGraph<String> graph, boolean forward, String word) {
+        Map<String, Integer> adjacency = forward ? graph.targets(word) : graph.sources(word);
+        if (adjacency.isEmpty()) {
+            return EMPTY_ROW;
+        }
+        return (forward ? rankedTargets : rankedSources).get(word, adjacency);
+    }
+
+    /**
+     * A path from one end of a word pair, as a linked list of its words from
+     * its far end back to the word next to the end it starts from.
+     */
+    private static class Node {
+
+        // Orders nodes by decreasing score, then increasing word
+        private static final Comparator<Node> ORDER =
+                Comparator.comparingInt((Node node) -> node.score).reversed().thenComparing(node -> node.word);
+
+        private final String word;
+        private final int score;
+        private final Node parent;
+
+        // Abstraction function:
+        //   Represents the path word, parent.word, parent.parent.word, ... back to the word
+        //   after the end of the pair that it starts from, with total edge weight score.
+
+        Node(String word, int score, Node parent) {
+            this.word = word;
+            this.score = score;
+            this.parent = parent;
+        }
+
+        // Return whether word is on this path
+        boolean contains(String word) {
+            for (Node node = this; node != null; node = node.parent) {
+                if (node.word.equals(word)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * The best path to each word at one depth from one end of a word pair.
+     */
+    private static class Layer {
+        private final boolean forward;
+        private final boolean first;
+        private final Map<String, Node> nodes = new HashMap<>();
+        private int maxScore = 0;
+
+        // Abstraction function:
+        //   Represents the best paths of one depth from word1 if forward, else to word2, found
+        //   so far: the one-edge paths if first, which include every edge of the end word even
+        //   if nodes only holds some of them.
+
+        Layer(boolean forward, boolean first) {
+            this.forward = forward;
+            this.first = first;
+        }
+
+        // Keep node if its path is simple, avoids the pair, and beats any path to its word;
+        // return whether its path is simple and avoids the pair
+        boolean offer(Node node, String word1, String word2) {
+            if (node.word.equals(word1) || node.word.equals(word2)
+                    || (node.parent != null && node.parent.contains(node.word))) {
+                return false;
+            }
+            Node old = nodes.get(node.word);
+            if (old == null || node.score > old.score) {
+                nodes.put(node.word, node);
+                maxScore = Math.max(maxScore, node.score);
+            }
+            return true;
+        }
+
+        // Return the best path of this layer to word, or null if none; a first layer looks up the
+        // edge between its end and word when word was not seeded
+        Node meeting(FrozenGraph<String> graph, String word, String word1, String word2) {
+            Node node = nodes.get(word);
+            if (node != null || !first) {
+                return node;
+            }
+            int weight = forward ? graph.weight(word1, word) : graph.weight(word, word2);
+            return weight > 0 ? new Node(word, weight, null) : null;
+        }
+
+        // Return a queue of the nodes that polls them by decreasing score, then increasing word,
+        // so that a search whose budget runs out only orders the nodes it expands
+        PriorityQueue<Node> ranked() {
+            PriorityQueue<Node> ranked = new PriorityQueue<>(Math.max(1, nodes.size()), Node.ORDER);
+            ranked.addAll(nodes.values());
+            return ranked;
+        }
+    }
+
+    /**
+     * A whole bridge path: its intermediate words in order, and its score.
+     */
+    private static class Path {
+
+        // Orders paths from best to worst: by decreasing score, then by words
+        private static final Comparator<Path> ORDER = Comparator.comparingInt((Path path) -> path.score).reversed()
+                .thenComparing((a, b) -> {
+                    for (int i = 0; i < a.words.size() && i < b.words.size(); i++) {
+                        int c = a.words.get(i).compareTo(b.words.get(i));
+                        if (c != 0) {
+                            return c;
+                        }
+                    }
+                    return Integer.compare(a.words.size(), b.words.size());
+                });
+
+        private final List<String> words;
+        private final int score;
+
+        private Path(List<String> words, int score) {
+            this.words = words;
+            this.score = score;
+        }
+
+        // Join a forward and a backward path that meet at the same word, or return null if
+        // they share any other word
+        static Path join(Node forward, Node backward) {
+            List<String> words = new ArrayList<>();
+            for (Node node = forward; node != null; node = node.parent) {
+                words.add(0, node.word);
+            }
+            for (Node node = backward.parent; node != null; node = node.parent) {
+                if (forward.contains(node.word)) {
+                    return null;
+                }
+                words.add(node.word);
+            }
+            return new Path(words, forward.score + backward.score);
+        }
+    }
+
+    /**
+     * The number of edges a search may still follow.
+     */
+    private static class Budget {
+        private final int total;
+        private int remaining;
+        private boolean exhausted = false;
+
+        Budget(int total) {
+            this.total = total;
+            this.remaining = total;
+        }
+
+        // Return the number of expansions spent
+        int spent() {
+            return total - remaining;
+        }
+
+        // Return the number of expansions left
+        int remaining() {
+            return remaining;
+        }
+
+        // Spend one expansion, or return false if none is left
+        boolean spend() {
+            if (remaining == 0) {
+                exhausted = true;
+                return false;
+            }
+            remaining--;
+            return true;
+        }
+    }
+}
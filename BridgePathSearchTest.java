@@ -0,0 +1,142 @@
+package poet;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.junit.Test;
+
+import graph.FrozenGraph;
+import graph.Graph;
+import graph.GraphBuilder;
+
+/**
+ * Tests for BridgePathSearch.
+ */
+public class BridgePathSearchTest {
+
+    // Testing strategy
+    //   path length: 2 words, 3 words, longer than maxWords, no path
+    //   competing paths: different scores, tied scores, shorter path with lower score
+    //   paths through the pair or repeating a word
+    //   expansion budget: enough, exhausted before the path is found, smaller than the degree
+    //     of one word of the pair
+    //   first layer: seeded whole, seeded in part with the meeting word unseeded
+    //   metrics: none, path found, no path
+    //   arguments: maxWords < 2, maxExpansions < 1
+
+    // Build a frozen graph from text, as GraphPoet counts it
+    private static FrozenGraph<String> graph(String text) throws IOException {
+        Graph<String> graph = Graph.empty();
+        GraphBuilder<String> builder = new GraphBuilder<>(graph);
+        WordReader words = new WordReader(new StringReader(text));
+        String previous = words.next();
+        for (String word = words.next(); word != null; word = words.next()) {
+            builder.increment(previous, word, 1);
+            previous = word;
+        }
+        builder.build();
+        return FrozenGraph.freeze(graph);
+    }
+
+    private static BridgePathSearch search(int maxWords, int maxExpansions) {
+        return new BridgePathSearch(maxWords, maxExpansions, 10_000);
+    }
+
+    @Test
+    public void testTwoWordPath() throws IOException {
+        assertEquals("b c", search(2, 100).find(graph("a b c d"), "a", "d", null));
+    }
+
+    @Test
+    public void testThreeWordPath() throws IOException {
+        FrozenGraph<String> graph = graph("a b c d e");
+        assertEquals("b c d", search(3, 100).find(graph, "a", "e", null));
+        assertNull(search(2, 100).find(graph, "a", "e", null));
+    }
+
+    @Test
+    public void testNoPath() throws IOException {
+        FrozenGraph<String> graph = graph("a b c d");
+        assertNull(search(4, 100).find(graph, "d", "a", null));
+        assertNull(search(4, 100).find(graph, "a", "unknown", null));
+    }
+
+    @Test
+    public void testHighestScoreWins() throws IOException {
+        // a x y d once, a p q d twice
+        FrozenGraph<String> graph = graph("a x y d a p q d a p q d");
+        assertEquals("p q", search(2, 100).find(graph, "a", "d", null));
+    }
+
+    @Test
+    public void testTieGoesToSmallestWords() throws IOException {
+        FrozenGraph<String> graph = graph("a y z d a x w d");
+        assertEquals("x w", search(2, 100).find(graph, "a", "d", null));
+    }
+
+    @Test
+    public void testFewestWordsWin() throws IOException {
+        // The three-word path is much heavier, but the two-word path is shorter
+        FrozenGraph<String> graph = graph("a b c d a p q r d a p q r d a p q r d");
+        assertEquals("b c", search(3, 100).find(graph, "a", "d", null));
+    }
+
+    @Test
+    public void testPathsAreSimple() throws IOException {
+        // The only longer paths from a to d repeat b, or pass through d
+        FrozenGraph<String> graph = graph("a b b d x d");
+        assertNull(search(3, 100).find(graph, "a", "d", null));
+    }
+
+    @Test
+    public void testBudgetExhausted() throws IOException {
+        // Seeding b and d costs two edges, and reaching c then d two more
+        FrozenGraph<String> graph = graph("a b c d e");
+        assertEquals("b c d", search(3, 4).find(graph, "a", "e", null));
+        assertNull(search(3, 3).find(graph, "a", "e", null));
+    }
+
+    @Test
+    public void testSeedingChargedToBudget() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            text.append("hub w").append(i).append(' ');
+        }
+        FrozenGraph<String> graph = graph(text.append("hub x y end").toString());
+        BridgeSearchMetrics metrics = new BridgeSearchMetrics();
+        assertEquals("x y", search(2, 10).find(graph, "hub", "end", metrics));
+        assertEquals("x y", search(2, 2000).find(graph, "hub", "end", metrics));
+        assertNull(search(2, 2).find(graph, "hub", "end", metrics));
+
+        BridgeSearchMetrics.Stats stats = metrics.stats();
+        assertEquals(3, stats.getPathSearches());
+        assertEquals(2, stats.getPathsFound());
+        // Each search seeds the one source of end, then at most half of the budget left of the
+        // 1001 targets of hub, none of them x, then follows y's one source to x, which joins
+        // hub directly; the last search spends its whole budget seeding
+        assertEquals((1 + 4 + 1) + (1 + 999 + 1) + (1 + 1), stats.getPathEdges());
+    }
+
+    @Test
+    public void testHubSideExpanded() throws IOException {
+        // The hub is the second word, so its sources are seeded in part and then expanded
+        StringBuilder text = new StringBuilder("start x y hub");
+        for (int i = 0; i < 1000; i++) {
+            text.append(" w").append(i).append(" hub");
+        }
+        FrozenGraph<String> graph = graph(text.toString());
+        assertEquals("x y", search(2, 10).find(graph, "start", "hub", null));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testMaxWordsTooSmall() {
+        search(1, 100);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testBudgetNotPositive() {
+        search(2, 0);
+    }
+}
@@ -0,0 +1,214 @@
+package poet;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe counters of the work done by GraphPoet's bridge word searches:
+ * for each word pair searched in the graph, how many candidate bridge words
+ * were examined and how many edges were read; and for each pair searched for
+ * a bridge path of several words, how many edges the path search followed.
+ */
+public class BridgeSearchMetrics {
+
+    private static final int BUCKETS = 33;
+
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder found = new LongAdder();
+    private final LongAdder candidates = new LongAdder();
+    private final LongAdder edges = new LongAdder();
+    private final LongAccumulator maxCandidates = new LongAccumulator(Math::max, 0);
+    private final AtomicLongArray candidateBuckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder pathSearches = new LongAdder();
+    private final LongAdder pathsFound = new LongAdder();
+    private final LongAdder pathEdges = new LongAdder();
+
+    // Abstraction function:
+    //   Represents the searches of searches word pairs, found of which had a bridge, examining
+    //   candidates candidates and reading edges edges in total; candidateBuckets[0] counts
+    //   searches with no candidate, and candidateBuckets[i] those with [2^(i-1), 2^i);
+    //   and the path searches of pathSearches word pairs, pathsFound of which had a path,
+    //   following pathEdges edges in total.
+    // Representation invariant:
+    //   - found <= searches, pathsFound <= pathSearches, and all counts are non-negative.
+    // Safety from rep exposure:
+    //   - All fields are private, and stats() returns an immutable snapshot.
+    // Thread safety argument:
+    //   - Every field is an atomic or concurrent accumulator, updated independently, so a
+    //     snapshot taken during searches may miss parts of the most recent ones.
+
+    /**
+     * Record the search of one word pair.
+     *
+     * @param candidateCount number of candidate bridge words examined
+     * @param edgeCount number of edges read
+     * @param bridgeFound whether the pair has a bridge
+     */
+    void record(int candidateCount, long edgeCount, boolean bridgeFound) {
+        searches.increment();
+        if (bridgeFound) {
+            found.increment();
+        }
+        candidates.add(candidateCount);
+        edges.add(edgeCount);
+        maxCandidates.accumulate(candidateCount);
+        candidateBuckets.incrementAndGet(Integer.SIZE - Integer.numberOfLeadingZeros(candidateCount));
+    }
+
+    /**
+     * Record the bridge path search of one word pair.
+     *
+     * @param edgeCount number of edges followed, seeds included
+     * @param pathFound whether the pair has a path
+     */
+    void recordPath(long edgeCount, boolean pathFound) {
+        pathSearches.increment();
+        if (pathFound) {
+            pathsFound.increment();
+        }
+        pathEdges.add(edgeCount);
+    }
+
+    /**
+     * @return a snapshot of the counters
+     */
+    public Stats stats() {
+        long[] buckets = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = candidateBuckets.get(i);
+        }
+        return new Stats(searches.sum(), found.sum(), candidates.sum(), edges.sum(), maxCandidates.get(), buckets,
+                pathSearches.sum(), pathsFound.sum(), pathEdges.sum());
+    }
+
+    /**
+     * An immutable snapshot of the counters of a BridgeSearchMetrics.
+     */
+    public static class Stats {
+
+        private final long searches;
+        private final long found;
+        private final long candidates;
+        private final long edges;
+        private final long maxCandidates;
+        private final long[] buckets;
+        private final long pathSearches;
+        private final long pathsFound;
+        private final long pathEdges;
+
+        private Stats(long searches, long found, long candidates, long edges, long maxCandidates, long[] buckets,
+                long pathSearches, long pathsFound, long pathEdges) {
+            this.searches = searches;
+            this.found = found;
+            this.candidates = candidates;
+            this.edges = edges;
+            this.maxCandidates = maxCandidates;
+            this.buckets = buckets;
+            this.pathSearches = pathSearches;
+            this.pathsFound = pathsFound;
+            this.pathEdges = pathEdges;
+        }
+
+        /**
+         * @return the number of word pairs searched in the graph
+         */
+        public long getSearches() {
+            return searches;
+        }
+
+        /**
+         * @return the number of word pairs searched that had a bridge
+         */
+        public long getBridgesFound() {
+            return found;
+        }
+
+        /**
+         * @return the total number of candidate bridge words examined
+         */
+        public long getCandidates() {
+            return candidates;
+        }
+
+        /**
+         * @return the total number of edges read
+         */
+        public long getEdges() {
+            return edges;
+        }
+
+        /**
+         * @return the most candidates examined for one word pair
+         */
+        public long getMaxCandidates() {
+            return maxCandidates;
+        }
+
+        /**
+         * @return the number of word pairs searched for a bridge path
+         */
+        public long getPathSearches() {
+            return pathSearches;
+        }
+
+        /**
+         * @return the number of word pairs searched for a bridge path that had
+         *         one
+         */
+        public long getPathsFound() {
+            return pathsFound;
+        }
+
+        /**
+         * @return the total number of edges followed by bridge path searches
+         */
+        public long getPathEdges() {
+            return pathEdges;
+        }
+
+        /**
+         * @return the mean number of candidates examined per word pair, or 0
+         *         if there were no searches
+         */
+        public double getMeanCandidates() {
+            return searches == 0 ? 0 : (double) candidates / searches;
+        }
+
+        /**
+         * @return the mean number of edges read per word pair, or 0 if there
+         *         were no searches
+         */
+        public double getMeanEdges() {
+            return searches == 0 ? 0 : (double) edges / searches;
+        }
+
+        /**
+         * @param fraction fraction of searches, in [0, 1]
+         * @return an upper bound, less than twice the true value, on the
+         *         number of candidates within which that fraction of searches
+         *         finished, or 0 if there were none
+         */
+        public long getCandidatePercentile(double fraction) {
+            if (fraction < 0 || fraction > 1) throw new IllegalArgumentException("Fraction must be in [0, 1]");
+            long rank = (long) Math.ceil(fraction * searches);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets[i];
+                if (seen >= rank && seen > 0) {
+                    return Math.min(i == 0 ? 0 : (1L << i) - 1, maxCandidates);
+                }
+            }
+            return 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("BridgeSearchMetrics.Stats{searches=%d, found=%d, meanCandidates=%.1f, "
+                    + "p99Candidates=%d, maxCandidates=%d, meanEdges=%.1f, pathSearches=%d, pathsFound=%d, "
+                    + "pathEdges=%d}",
+                    searches, found, getMeanCandidates(), getCandidatePercentile(0.99), maxCandidates, getMeanEdges(),
+                    pathSearches, pathsFound, pathEdges);
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package poet;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import graph.Graph;
+import graph.Validation;
+
+/**
+ * A read-only table of the best bridge word for every word pair joined by a
+ * two-edge path in an affinity graph, stored in a memory-mapped file.
+ *
+ * <p>The table is the max-plus product of the graph's adjacency with itself:
+ * the bridge of (w1, w2) is the word b maximizing weight(w1, b) +
+ * weight(b, w2), ties going to the lexicographically smallest b.
+ *
+ * <p>File format, all integers big-endian: the magic number and format
+ * version; the word count followed by each word, in sorted order, as a byte
+ * length and UTF-8 bytes; then one (word1, word2, bridge) record of three
+ * word indices per pair, sorted by word1 and then word2.
+ */
+public class BridgeTable {
+
+    private static final int MAGIC = 0x42524447; // "BRDG"
+    private static final int VERSION = 1;
+    private static final int RECORD_INTS = 3;
+    private static final int BATCH_SIZE = 1024;
+
+    /** Default number of bytes of records mapped at a time. */
+    static final int DEFAULT_WINDOW_SIZE = 1 << 30;
+
+    private final String[] words;
+    private final Map<String, Integer> ids;
+    private final IntBuffer[] windows;
+    private final int windowRecords;
+    private final int recordCount;
+
+    // Abstraction function:
+    //   Represents the map from each pair (words[r0], words[r1]) to bridge words[r2], for each
+    //   record (r0, r1, r2) of the concatenated windows, recordCount records in all.
+    // Representation invariant:
+    //   - words is sorted with no duplicates, and ids maps each word to its index.
+    //   - windowRecords > 0; every window holds windowRecords records of RECORD_INTS ints, except
+    //     that the last holds the remaining records, at least one.
+    //   - Records are sorted by (word1, word2) with no duplicate pairs, and all their indices
+    //     are valid.
+    // Safety from rep exposure:
+    //   - All fields are private; windows are read-only views, and only strings are returned.
+    // Thread safety argument:
+    //   - The rep is never mutated after construction, and lookups use absolute reads only.
+
+    private BridgeTable(String[] words, IntBuffer[] windows, int windowRecords, int recordCount) {
+        this.words = words;
+        this.ids = new HashMap<>();
+        for (int i = 0; i < words.length; i++) {
+            ids.put(words[i], i);
+        }
+        this.windows = windows;
+        this.windowRecords = windowRecords;
+        this.recordCount = recordCount;
+        if (Validation.checkTouched()) {
+            checkRep(); // Every window was just handed over
+        }
+    }
+
+    private void checkRep() {
+        assert ids.size() == words.length;
+        assert windowRecords > 0;
+        long total = 0;
+        for (int i = 0; i < windows.length; i++) {
+            int records = windows[i].limit() / RECORD_INTS;
+            assert windows[i].limit() % RECORD_INTS == 0;
+            assert i == windows.length - 1 ? records > 0 && records <= windowRecords : records == windowRecords;
+            total += records;
+        }
+        assert total == recordCount;
+    }
+
+    /**
+     * Compute the bridge table of a graph and write it to a file.
+     *
+     * @param graph affinity graph, not modified while the table is computed
+     * @param file file to write, replaced if it exists
+     * @param pool fork-join pool to compute rows of the table on
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Graph<String> graph, Path file, ForkJoinPool pool) throws IOException {
+        String[] words = graph.vertices().toArray(new String[0]);
+        Arrays.sort(words);
+        Map<String, Integer> ids = new HashMap<>();
+        for (int i = 0; i < words.length; i++) {
+            ids.put(words[i], i);
+        }
+
+        // Copy the adjacency into sorted primitive rows so workers never touch the graph
+        int[][] rows = new int[words.length][];
+        for (int i = 0; i < words.length; i++) {
+            Map<String, Integer> targets = graph.targets(words[i]);
+            long[] row = new long[targets.size()];
+            int size = 0;
+            for (Map.Entry<String, Integer> edge : targets.entrySet()) {
+                row[size++] = ((long) ids.get(edge.getKey()) << 32) | edge.getValue();
+            }
+            Arrays.sort(row);
+            rows[i] = new int[size * 2];
+            for (int j = 0; j < size; j++) {
+                rows[i][2 * j] = (int) (row[j] >>> 32);
+                rows[i][2 * j + 1] = (int) row[j];
+            }
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(words.length);
+            for (String word : words) {
+                byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            ThreadLocal<Accumulator> accumulators = ThreadLocal.withInitial(() -> new Accumulator(words.length));
+            for (int batch = 0; batch < words.length; batch += BATCH_SIZE) {
+                int end = Math.min(words.length, batch + BATCH_SIZE);
+                int first = batch;
+                int[][] products = pool.submit(() -> IntStream.range(first, end).parallel()
+                        .mapToObj(i -> accumulators.get().row(rows, i)).toArray(int[][]::new)).join();
+                for (int i = first; i < end; i++) {
+                    int[] product = products[i - first];
+                    for (int j = 0; j < product.length; j += 2) {
+                        out.writeInt(i);
+                        out.writeInt(product[j]);
+                        out.writeInt(product[j + 1]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Load a bridge table by memory-mapping its records, one window of
+     * {@link #DEFAULT_WINDOW_SIZE} bytes at a time.
+     *
+     * @param file a file written by {@link #write}
+     * @return the table stored in the file
+     * @throws IOException if the file cannot be read, has more than
+     *         Integer.MAX_VALUE records, or is not a bridge table
+     */
+    public static BridgeTable load(Path file) throws IOException {
+        return load(file, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Load a bridge table by memory-mapping its records one window at a time.
+     *
+     * @param file a file written by {@link #write}
+     * @param windowSize number of bytes of records to map at a time, at least
+     *        the size of one record; rounded down to whole records
+     * @return the table stored in the file
+     * @throws IOException if the file cannot be read, has more than
+     *         Integer.MAX_VALUE records, or is not a bridge table
+     */
+    static BridgeTable load(Path file, int windowSize) throws IOException {
+        int recordBytes = RECORD_INTS * Integer.BYTES;
+        if (windowSize < recordBytes) throw new IllegalArgumentException("Window size must hold a record");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < 3 * Integer.BYTES) {
+                throw new IOException("Not a bridge table: " + file);
+            }
+            // Read the words through a stream, counting their bytes to find the records
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a bridge table: " + file);
+            }
+            long position = 3 * Integer.BYTES;
+            String[] words;
+            try {
+                words = new String[in.readInt()];
+                for (int i = 0; i < words.length; i++) {
+                    byte[] bytes = new byte[in.readInt()];
+                    in.readFully(bytes);
+                    words[i] = new String(bytes, StandardCharsets.UTF_8);
+                    position += Integer.BYTES + bytes.length;
+                }
+            } catch (EOFException | NegativeArraySizeException e) {
+                throw new IOException("Truncated bridge table: " + file, e);
+            }
+
+            long size = channel.size() - position;
+            if (size % recordBytes != 0) {
+                throw new IOException("Truncated bridge table: " + file);
+            }
+            if (size / recordBytes > Integer.MAX_VALUE) {
+                throw new IOException("Bridge table has more than " + Integer.MAX_VALUE + " records: " + file);
+            }
+            int recordCount = (int) (size / recordBytes);
+            int windowRecords = windowSize / recordBytes;
+            IntBuffer[] windows = new IntBuffer[(int) (((long) recordCount + windowRecords - 1) / windowRecords)];
+            for (int i = 0; i < windows.length; i++) {
+                long first = (long) i * windowRecords;
+                long length = Math.min(windowRecords, recordCount - first) * recordBytes;
+                windows[i] = channel.map(FileChannel.MapMode.READ_ONLY, position + first * recordBytes, length)
+                        .asIntBuffer().asReadOnlyBuffer();
+            }
+            return new BridgeTable(words, windows, windowRecords, recordCount);
+        }
+    }
+
+    /**
+     * @param word1 first word of a pair
+     * @param word2 second word of a pair
+     * @return the best bridge word from word1 to word2, or null if there is none
+     */
+    public String bridge(String word1, String word2) {
+        Integer id1 = ids.get(word1);
+        Integer id2 = ids.get(word2);
+        if (id1 == null || id2 == null) {
+            return null;
+        }
+        long key = ((long) id1 << 32) | id2;
+        int low = 0;
+        int high = recordCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long middleKey = ((long) field(middle, 0) << 32) | field(middle, 1);
+            if (middleKey < key) {
+                low = middle + 1;
+            } else if (middleKey > key) {
+                high = middle - 1;
+            } else {
+                return words[field(middle, 2)];
+            }
+        }
+        return null;
+    }
+
+    // Return an int of a record: 0 for its first word, 1 for its second, 2 for its bridge
+    private int field(int record, int field) {
+        return windows[record / windowRecords].get((record % windowRecords) * RECORD_INTS + field);
+    }
+
+    /**
+     * @return the number of word pairs in this table
+     */
+    public int size() {
+        return recordCount;
+    }
+
+    /**
+     * A dense scratch space for computing one row of the max-plus product.
+     */
+    private static class Accumulator {
+
+        private final int[] scores;
+        private final int[] bridges;
+        private final int[] touched;
+
+        Accumulator(int wordCount) {
+            scores = new int[wordCount];
+            bridges = new int[wordCount];
+            touched = new int[wordCount];
+        }
+
+        /**
+         * @param rows adjacency rows of (target, weight) pairs, sorted by target
+         * @param word1 index of the first word
+         * @return the (word2, bridge) pairs of row word1 of the product, sorted by word2
+         */
+        int[] row(int[][] rows, int word1) {
+            int count = 0;
+            int[] first = rows[word1];
+            for (int i = 0; i < first.length; i += 2) {
+                int bridge = first[i];
+                int[] second = rows[bridge];
+                for (int j = 0; j < second.length; j += 2) {
+                    int word2 = second[j];
+                    int score = first[i + 1] + second[j + 1];
+                    if (scores[word2] == 0) {
+                        touched[count++] = word2;
+                    }
+                    // Bridges are visited in increasing order, so ties keep the smallest
+                    if (score > scores[word2]) {
+                        scores[word2] = score;
+                        bridges[word2] = bridge;
+                    }
+                }
+            }
+            Arrays.sort(touched, 0, count);
+            int[] product = new int[count * 2];
+            for (int k = 0; k < count; k++) {
+                product[2 * k] = touched[k];
+                product[2 * k + 1] = bridges[touched[k]];
+                scores[touched[k]] = 0;
+            }
+            return product;
+        }
+    }
+}
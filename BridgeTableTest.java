@@ -0,0 +1,114 @@
+package poet;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import graph.ConcreteEdgesGraph;
+import graph.Graph;
+
+/**
+ * Tests for BridgeTable.
+ */
+public class BridgeTableTest {
+
+    // Testing strategy
+    //   pair: no two-edge path, one bridge, several bridges (different and equal scores)
+    //   words: in the graph, not in the graph
+    //   file: written table, not a bridge table, truncated record
+    //   windows: one, several of one record, several with a partial last window
+
+    private Path file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile("bridges", ".bin");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    // Test lookups in a written and loaded table
+    @Test
+    public void testWriteLoad() throws IOException {
+        Graph<String> graph = new ConcreteEdgesGraph();
+        graph.set("a", "b", 1);
+        graph.set("b", "c", 1);
+        graph.set("a", "x", 3);
+        graph.set("x", "c", 1);
+        graph.set("a", "d", 2);
+        graph.set("d", "e", 2);
+        graph.set("a", "f", 2);
+        graph.set("f", "e", 2);
+        BridgeTable.write(graph, file, new ForkJoinPool(2));
+        BridgeTable table = BridgeTable.load(file);
+
+        assertEquals("expected heaviest bridge", "x", table.bridge("a", "c"));
+        assertEquals("expected smallest of tied bridges", "d", table.bridge("a", "e"));
+        assertNull("expected no bridge for adjacent words", table.bridge("a", "b"));
+        assertNull("expected no bridge for unknown words", table.bridge("a", "zzz"));
+        assertEquals(2, table.size());
+    }
+
+    // Test that other files are rejected
+    @Test(expected = IOException.class)
+    public void testLoadNotTable() throws IOException {
+        Files.writeString(file, "not a bridge table");
+        BridgeTable.load(file);
+    }
+
+    // Test that tables mapped in small windows answer like one mapped whole
+    @Test
+    public void testSmallWindows() throws IOException {
+        Graph<String> graph = new ConcreteEdgesGraph();
+        Random random = new Random(0);
+        for (int i = 0; i < 200; i++) {
+            graph.set("w" + random.nextInt(30), "w" + random.nextInt(30), 1 + random.nextInt(5));
+        }
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            BridgeTable.write(graph, file, pool);
+        } finally {
+            pool.shutdown();
+        }
+        BridgeTable whole = BridgeTable.load(file);
+        for (int windowSize : new int[] {12, 13, 40}) {
+            BridgeTable windowed = BridgeTable.load(file, windowSize);
+            assertEquals(whole.size(), windowed.size());
+            for (String word1 : graph.vertices()) {
+                for (String word2 : graph.vertices()) {
+                    assertEquals(whole.bridge(word1, word2), windowed.bridge(word1, word2));
+                }
+            }
+        }
+        assertTrue("expected several windows of records", whole.size() > 10);
+    }
+
+    // Test that a table with a partial record is rejected
+    @Test(expected = IOException.class)
+    public void testLoadTruncatedRecord() throws IOException {
+        Graph<String> graph = new ConcreteEdgesGraph();
+        graph.set("a", "b", 1);
+        graph.set("b", "c", 1);
+        ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            BridgeTable.write(graph, file, pool);
+        } finally {
+            pool.shutdown();
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+        BridgeTable.load(file);
+    }
+}
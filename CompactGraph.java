@@ -0,0 +1,736 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An implementation of Graph that interns vertex labels to dense int ids and
+ * stores edges in compressed sparse rows of primitive arrays.
+ *
+ * <p>New edges are first written to a small overflow buffer of primitive
+ * arrays; once the buffer grows past a fraction of the compacted edge count
+ * it is merged into the rows. Updates and removals of compacted edges are
+ * done in place. Each compaction also renumbers the vertices densely, so the
+ * ids of removed vertices are reclaimed. Reverse rows of the edges into each
+ * vertex, which make sources() take time proportional to the in-degree rather
+ * than the vertex count, are only built the first time incoming edges are
+ * read after a compaction, so a graph that is only traversed forwards stores
+ * its edges in 8 bytes each.
+ *
+ * @param <L> type of vertex labels in this graph, must be immutable
+ */
+public class CompactGraph<L> implements TraversableGraph<L> {
+
+    private static final int MIN_COMPACTION_THRESHOLD = 1024;
+    private static final int COMPACTION_RATIO = 8;
+
+    private Object[] labels = new Object[16];
+    private int[] table = new int[32];
+    private int idCount = 0;
+    private int vertexCount = 0;
+
+    private int rowCount = 0;
+    private int[] offsets = {0};
+    private int[] targetIds = new int[0];
+    private int[] weights = new int[0];
+    private ReverseRows reverse = null;
+    private boolean compactedLive = true;
+
+    private long[] pendingPairs = new long[16];
+    private int[] pendingWeights = new int[16];
+    private int[] nextOut = new int[16];
+    private int[] nextIn = new int[16];
+    private int[] outHeads = new int[16];
+    private int[] inHeads = new int[16];
+    private int[] pendingTable = new int[32];
+    private int pendingCount = 0;
+
+    // Abstraction function:
+    //   Represents a directed graph whose vertices are the non-null labels[id] for id < idCount.
+    //   The edge from labels[s] to labels[t] has weight pendingWeights[e] if some pending entry
+    //   e < pendingCount has pendingPairs[e] == pair(s, t), and otherwise the weight stored for
+    //   (s, t) in the compacted rows, where row r spans targetIds/weights[offsets[r]..offsets[r+1]).
+    //   Reverse row t, if built, spans reverse.sourceIds/inEdges[inOffsets[t]..inOffsets[t+1]),
+    //   each entry naming a compacted edge into t by its source and its index in targetIds.
+    // Representation invariant:
+    //   - table is an open-addressing table, probed linearly from the hash of each label, that
+    //     holds id + 1 for exactly the ids of the non-null labels and 0 in at least one slot;
+    //     its length is a power of two. vertexCount is the number of non-null labels.
+    //   - Ids are not reused before the next compaction, which renumbers the live vertices as
+    //     0..vertexCount-1 in their previous order.
+    //   - Each compacted row is sorted by target id and holds no duplicate targets.
+    //   - Compacted weights are non-negative, 0 marking an edge removed since the last compaction.
+    //   - Pending entries have distinct pairs, none of them compacted, and non-negative weights,
+    //     0 marking an edge removed since the last compaction; pendingTable holds e + 1 for
+    //     each pending entry e, probed linearly from the hash of its pair, and 0 in at least
+    //     half of its slots.
+    //   - outHeads[s] - 1 and nextOut chain, in [0, pendingCount), exactly the pending entries
+    //     from s, ending at -1; likewise inHeads and nextIn for the entries into each target.
+    //   - reverse is null or holds exactly the compacted edges, each once, in the row of its
+    //     target.
+    //   - If compactedLive, every compacted edge has a positive weight and live endpoints.
+    //   - offsets, targetIds and reverse are never modified in place once built, so frozen
+    //     snapshots share them.
+    //   - Edges whose source or target label is null are removed edges.
+    // Safety from rep exposure:
+    //   - All fields are private.
+    //   - Methods return newly built sets and maps.
+
+    /**
+     * Create an empty graph.
+     */
+    public CompactGraph() {
+    }
+
+    /**
+     * Create a graph from compressed sparse rows, taking ownership of the
+     * arrays.
+     *
+     * @param labels distinct labels; vertex i has label labels[i]
+     * @param offsets labels.length + 1 non-decreasing offsets starting at 0;
+     *        the edges from vertex i are at [offsets[i], offsets[i + 1])
+     * @param targetIds target vertex of each edge, sorted within each row
+     *        with no duplicates
+     * @param weights positive weight of each edge
+     */
+    CompactGraph(L[] labels, int[] offsets, int[] targetIds, int[] weights) {
+        this.labels = labels.length == 0 ? new Object[16] : labels;
+        this.idCount = labels.length;
+        this.vertexCount = labels.length;
+        this.table = buildTable(this.labels, idCount);
+        this.outHeads = new int[this.labels.length];
+        this.inHeads = new int[this.labels.length];
+        this.rowCount = labels.length;
+        this.offsets = offsets;
+        this.targetIds = targetIds;
+        this.weights = weights;
+        if (Validation.checkTouched()) {
+            checkRep(); // Every vertex and edge was just touched
+        }
+    }
+
+    // Check representation invariant
+    private void checkRep() {
+        int live = 0;
+        for (int id = 0; id < idCount; id++) {
+            if (labels[id] != null) {
+                assert id(labels[id]) == id;
+                live++;
+            }
+        }
+        assert live == vertexCount;
+        for (int e = 0; e < pendingCount; e++) {
+            assert pendingWeights[e] >= 0;
+            assert findPending(pendingPairs[e]) == e;
+            assert find(source(pendingPairs[e]), target(pendingPairs[e])) < 0;
+        }
+        if (reverse != null) {
+            assert reverse.inOffsets.length == rowCount + 1 && reverse.inOffsets[rowCount] == targetIds.length;
+            for (int targetId = 0; targetId < rowCount; targetId++) {
+                for (int i = reverse.inOffsets[targetId]; i < reverse.inOffsets[targetId + 1]; i++) {
+                    assert targetIds[reverse.inEdges[i]] == targetId;
+                }
+            }
+        }
+    }
+
+    // Check representation invariant at the current validation level, after a mutation that
+    // touched only the vertices source and target and the edge between them
+    private void checkRep(L source, L target) {
+        if (Validation.checkAll()) {
+            checkRep();
+        } else if (Validation.checkTouched()) {
+            int sourceId = id(source);
+            int targetId = id(target);
+            assert sourceId < 0 || source.equals(labels[sourceId]);
+            assert targetId < 0 || target.equals(labels[targetId]);
+            int entry = sourceId < 0 || targetId < 0 ? -1 : findPending(pair(sourceId, targetId));
+            assert entry < 0 || find(sourceId, targetId) < 0;
+        }
+    }
+
+    @Override
+    public boolean add(L vertex) {
+        if (id(vertex) >= 0) {
+            return false;
+        }
+        intern(vertex);
+        checkRep(vertex, vertex);
+        return true;
+    }
+
+    @Override
+    public int set(L source, L target, int weight) {
+        if (weight < 0) throw new IllegalArgumentException("Weight cannot be negative");
+
+        if (weight == 0 && (id(source) < 0 || id(target) < 0)) {
+            return 0; // No such edge, and the graph is not otherwise modified
+        }
+        int sourceId = intern(source);
+        int targetId = intern(target);
+
+        int index = find(sourceId, targetId);
+        if (index >= 0) {
+            int previousWeight = weights[index];
+            weights[index] = weight;
+            compactedLive &= weight > 0;
+            checkRep(source, target);
+            return previousWeight;
+        }
+
+        long pair = pair(sourceId, targetId);
+        int entry = findPending(pair);
+        int previousWeight = 0;
+        if (entry >= 0) {
+            previousWeight = pendingWeights[entry];
+            pendingWeights[entry] = weight;
+        } else if (weight > 0) {
+            addPending(pair, weight);
+            if (pendingCount > Math.max(MIN_COMPACTION_THRESHOLD, targetIds.length / COMPACTION_RATIO)) {
+                compact();
+            }
+        }
+        checkRep(source, target);
+        return previousWeight;
+    }
+
+    @Override
+    public boolean remove(L vertex) {
+        int id = id(vertex);
+        if (id < 0) {
+            return false;
+        }
+        // Edges to and from a removed id are dropped, and the id reclaimed, at the next compaction
+        removeFromTable(id);
+        labels[id] = null;
+        vertexCount--;
+        compactedLive = false;
+        checkRep(vertex, vertex);
+        return true;
+    }
+
+    @Override
+    public Set<L> vertices() {
+        CopyCounter.copied();
+        Set<L> vertices = new HashSet<>();
+        for (int id = 0; id < idCount; id++) {
+            if (labels[id] != null) {
+                vertices.add(label(id));
+            }
+        }
+        return vertices;
+    }
+
+    @Override
+    public Map<L, Integer> sources(L target) {
+        CopyCounter.copied();
+        Map<L, Integer> sources = new HashMap<>();
+        forEachSource(target, sources::put);
+        return sources;
+    }
+
+    @Override
+    public Map<L, Integer> targets(L source) {
+        CopyCounter.copied();
+        Map<L, Integer> targets = new HashMap<>();
+        forEachTarget(source, targets::put);
+        return targets;
+    }
+
+    @Override
+    public void forEachTarget(L source, EdgeVisitor<? super L> visitor) {
+        int sourceId = id(source);
+        if (sourceId < 0) {
+            return;
+        }
+        if (sourceId < rowCount) {
+            for (int i = offsets[sourceId]; i < offsets[sourceId + 1]; i++) {
+                if (weights[i] > 0 && labels[targetIds[i]] != null) {
+                    visitor.visit(label(targetIds[i]), weights[i]);
+                }
+            }
+        }
+        for (int e = outHeads[sourceId] - 1; e >= 0; e = nextOut[e]) {
+            int targetId = target(pendingPairs[e]);
+            if (pendingWeights[e] > 0 && labels[targetId] != null) {
+                visitor.visit(label(targetId), pendingWeights[e]);
+            }
+        }
+    }
+
+    @Override
+    public void forEachSource(L target, EdgeVisitor<? super L> visitor) {
+        int targetId = id(target);
+        if (targetId < 0) {
+            return;
+        }
+        if (targetId < rowCount) {
+            ReverseRows rows = reverseRows();
+            for (int i = rows.inOffsets[targetId]; i < rows.inOffsets[targetId + 1]; i++) {
+                int index = rows.inEdges[i];
+                if (weights[index] > 0 && labels[rows.sourceIds[i]] != null) {
+                    visitor.visit(label(rows.sourceIds[i]), weights[index]);
+                }
+            }
+        }
+        for (int e = inHeads[targetId] - 1; e >= 0; e = nextIn[e]) {
+            int sourceId = source(pendingPairs[e]);
+            if (pendingWeights[e] > 0 && labels[sourceId] != null) {
+                visitor.visit(label(sourceId), pendingWeights[e]);
+            }
+        }
+    }
+
+    @Override
+    public int outDegree(L source) {
+        int sourceId = id(source);
+        return sourceId < 0 ? 0 : liveDegree(sourceId);
+    }
+
+    @Override
+    public int inDegree(L target) {
+        int targetId = id(target);
+        if (targetId < 0) {
+            return 0;
+        }
+        int degree = 0;
+        if (targetId < rowCount) {
+            ReverseRows rows = reverseRows();
+            for (int i = rows.inOffsets[targetId]; i < rows.inOffsets[targetId + 1]; i++) {
+                if (weights[rows.inEdges[i]] > 0 && labels[rows.sourceIds[i]] != null) {
+                    degree++;
+                }
+            }
+        }
+        for (int e = inHeads[targetId] - 1; e >= 0; e = nextIn[e]) {
+            if (pendingWeights[e] > 0 && labels[source(pendingPairs[e])] != null) {
+                degree++;
+            }
+        }
+        return degree;
+    }
+
+    @Override
+    public int weight(L source, L target) {
+        int sourceId = id(source);
+        int targetId = id(target);
+        if (sourceId < 0 || targetId < 0) {
+            return 0;
+        }
+        int index = find(sourceId, targetId);
+        if (index >= 0) {
+            return weights[index];
+        }
+        int entry = findPending(pair(sourceId, targetId));
+        return entry < 0 ? 0 : pendingWeights[entry];
+    }
+
+    /**
+     * Copy a graph into compacted rows.
+     *
+     * @param <L> type of vertex labels in the graph
+     * @param graph graph to copy
+     * @return a new graph with the same vertices and edges as graph
+     */
+    static <L> CompactGraph<L> copyOf(Graph<L> graph) {
+        CompactGraph<L> copy = new CompactGraph<>();
+        Set<L> vertices = graph.vertices();
+        for (L vertex : vertices) {
+            copy.intern(vertex);
+        }
+        for (L source : vertices) {
+            int sourceId = copy.id(source);
+            for (Map.Entry<L, Integer> edge : graph.targets(source).entrySet()) {
+                copy.addPending(pair(sourceId, copy.id(edge.getKey())), edge.getValue());
+            }
+        }
+        copy.compact();
+        return copy;
+    }
+
+    /**
+     * Merge the overflow buffer into the compressed rows, drop removed edges
+     * and renumber the remaining vertices densely, so that every live edge is
+     * stored in the primitive arrays and the ids of removed vertices are free.
+     */
+    void compact() {
+        int[] newIds = new int[idCount];
+        int newIdCount = 0;
+        for (int id = 0; id < idCount; id++) {
+            newIds[id] = labels[id] == null ? -1 : newIdCount++;
+        }
+
+        int[] newOffsets = new int[newIdCount + 1];
+        for (int sourceId = 0; sourceId < idCount; sourceId++) {
+            if (newIds[sourceId] >= 0) {
+                newOffsets[newIds[sourceId] + 1] = newOffsets[newIds[sourceId]] + liveDegree(sourceId);
+            }
+        }
+
+        // Renumbering keeps the order of ids, so compacted rows stay sorted
+        int[] newTargetIds = new int[newOffsets[newIdCount]];
+        int[] newWeights = new int[newOffsets[newIdCount]];
+        long[] row = new long[16];
+        for (int sourceId = 0; sourceId < idCount; sourceId++) {
+            int newSourceId = newIds[sourceId];
+            if (newSourceId < 0 || newOffsets[newSourceId] == newOffsets[newSourceId + 1]) {
+                continue;
+            }
+            int size = 0;
+            if (sourceId < rowCount) {
+                for (int i = offsets[sourceId]; i < offsets[sourceId + 1]; i++) {
+                    if (weights[i] > 0 && labels[targetIds[i]] != null) {
+                        row = grow(row, size + 1);
+                        row[size++] = pack(newIds[targetIds[i]], weights[i]);
+                    }
+                }
+            }
+            boolean pending = false;
+            for (int e = outHeads[sourceId] - 1; e >= 0; e = nextOut[e]) {
+                int targetId = target(pendingPairs[e]);
+                if (pendingWeights[e] > 0 && labels[targetId] != null) {
+                    row = grow(row, size + 1);
+                    row[size++] = pack(newIds[targetId], pendingWeights[e]);
+                    pending = true;
+                }
+            }
+            if (pending) {
+                Arrays.sort(row, 0, size);
+            }
+            for (int i = 0; i < size; i++) {
+                newTargetIds[newOffsets[newSourceId] + i] = (int) (row[i] >>> 32);
+                newWeights[newOffsets[newSourceId] + i] = (int) row[i];
+            }
+        }
+
+        if (newIdCount < idCount) {
+            Object[] newLabels = new Object[Math.max(16, Integer.highestOneBit(Math.max(1, newIdCount)) * 2)];
+            for (int id = 0; id < idCount; id++) {
+                if (newIds[id] >= 0) {
+                    newLabels[newIds[id]] = labels[id];
+                }
+            }
+            labels = newLabels;
+            idCount = newIdCount;
+            table = buildTable(labels, idCount);
+        }
+        offsets = newOffsets;
+        targetIds = newTargetIds;
+        weights = newWeights;
+        rowCount = idCount;
+        reverse = null;
+        clearPending();
+        compactedLive = true;
+        if (Validation.checkTouched()) {
+            checkRep(); // Every edge was just touched
+        }
+    }
+
+    /**
+     * Take an immutable snapshot of this graph that shares its compressed
+     * rows, copying only the weights and labels, which this graph updates in
+     * place. Compacts first if any edge is pending or removed.
+     *
+     * @return a frozen graph with the same vertices and edges as this graph
+     */
+    FrozenGraph<L> freeze() {
+        if (pendingCount > 0 || !compactedLive || rowCount < idCount) {
+            compact();
+        }
+        @SuppressWarnings("unchecked")
+        L[] frozenLabels = (L[]) Arrays.copyOf(labels, idCount);
+        return FrozenGraph.wrap(frozenLabels, offsets, targetIds, weights.clone(), reverse);
+    }
+
+    /**
+     * @return the number of vertex ids in use, including the ids of vertices
+     *         removed since the last compaction
+     */
+    int idCount() {
+        return idCount;
+    }
+
+    // Return the reverse rows of the compacted rows, building them if this is the first read
+    // since the last compaction
+    private ReverseRows reverseRows() {
+        if (reverse == null) {
+            reverse = ReverseRows.of(rowCount, offsets, targetIds);
+        }
+        return reverse;
+    }
+
+    // Count the live edges out of sourceId, compacted or pending
+    private int liveDegree(int sourceId) {
+        if (labels[sourceId] == null) {
+            return 0;
+        }
+        int degree = 0;
+        if (sourceId < rowCount) {
+            for (int i = offsets[sourceId]; i < offsets[sourceId + 1]; i++) {
+                if (weights[i] > 0 && labels[targetIds[i]] != null) {
+                    degree++;
+                }
+            }
+        }
+        for (int e = outHeads[sourceId] - 1; e >= 0; e = nextOut[e]) {
+            if (pendingWeights[e] > 0 && labels[target(pendingPairs[e])] != null) {
+                degree++;
+            }
+        }
+        return degree;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        Set<L> vertices = vertices();
+        sb.append("Vertices: ").append(vertices).append("\nEdges:\n");
+        for (L source : vertices) {
+            forEachTarget(source, (target, weight) -> sb.append(
+                    String.format("Edge from %s to %s with weight %d", source, target, weight)).append("\n"));
+        }
+        return sb.toString();
+    }
+
+    // Return the label interned as id, or null if that vertex was removed
+    @SuppressWarnings("unchecked")
+    private L label(int id) {
+        return (L) labels[id];
+    }
+
+    // Return the id of label, or -1 if it is not a vertex
+    private int id(Object label) {
+        int slot = FrozenGraph.hash(label) & (table.length - 1);
+        while (table[slot] != 0) {
+            int id = table[slot] - 1;
+            if (label.equals(labels[id])) {
+                return id;
+            }
+            slot = (slot + 1) & (table.length - 1);
+        }
+        return -1;
+    }
+
+    // Return the id of label, interning it as a new vertex if needed
+    private int intern(L label) {
+        int id = id(label);
+        if (id >= 0) {
+            return id;
+        }
+        if (idCount == labels.length) {
+            labels = Arrays.copyOf(labels, labels.length * 2);
+            outHeads = Arrays.copyOf(outHeads, labels.length);
+            inHeads = Arrays.copyOf(inHeads, labels.length);
+        }
+        if ((vertexCount + 1) * 2 > table.length) {
+            table = buildTable(labels, idCount, table.length * 2);
+        }
+        labels[idCount] = label;
+        insert(table, label, idCount);
+        vertexCount++;
+        return idCount++;
+    }
+
+    // Delete id from table, shifting back the entries probed past its slot
+    private void removeFromTable(int id) {
+        int mask = table.length - 1;
+        int slot = FrozenGraph.hash(labels[id]) & mask;
+        while (table[slot] != id + 1) {
+            slot = (slot + 1) & mask;
+        }
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            if (table[next] == 0) {
+                break;
+            }
+            int home = FrozenGraph.hash(labels[table[next] - 1]) & mask;
+            // Move the entry at next into the hole unless its home lies cyclically in (slot, next]
+            if (((next - home) & mask) >= ((next - slot) & mask)) {
+                table[slot] = table[next];
+                slot = next;
+            }
+        }
+        table[slot] = 0;
+    }
+
+    // Return a table of the non-null labels among the first count, at most half full
+    private static int[] buildTable(Object[] labels, int count) {
+        return buildTable(labels, count, Math.max(32, Integer.highestOneBit(Math.max(1, count)) * 4));
+    }
+
+    private static int[] buildTable(Object[] labels, int count, int length) {
+        int[] table = new int[length];
+        for (int id = 0; id < count; id++) {
+            if (labels[id] != null) {
+                insert(table, labels[id], id);
+            }
+        }
+        return table;
+    }
+
+    private static void insert(int[] table, Object label, int id) {
+        int slot = FrozenGraph.hash(label) & (table.length - 1);
+        while (table[slot] != 0) {
+            slot = (slot + 1) & (table.length - 1);
+        }
+        table[slot] = id + 1;
+    }
+
+    // Return the index of the compacted edge from sourceId to targetId, or -1
+    private int find(int sourceId, int targetId) {
+        if (sourceId >= rowCount) {
+            return -1;
+        }
+        int index = Arrays.binarySearch(targetIds, offsets[sourceId], offsets[sourceId + 1], targetId);
+        return index >= 0 ? index : -1;
+    }
+
+    // Return the pending entry of pair, or -1
+    private int findPending(long pair) {
+        int mask = pendingTable.length - 1;
+        for (int slot = pairHash(pair) & mask; pendingTable[slot] != 0; slot = (slot + 1) & mask) {
+            int entry = pendingTable[slot] - 1;
+            if (pendingPairs[entry] == pair) {
+                return entry;
+            }
+        }
+        return -1;
+    }
+
+    // Add a pending entry for a pair that has none, chaining it from both of its vertices
+    private void addPending(long pair, int weight) {
+        int entry = pendingCount++;
+        if (entry == pendingPairs.length) {
+            int length = pendingPairs.length * 2;
+            pendingPairs = Arrays.copyOf(pendingPairs, length);
+            pendingWeights = Arrays.copyOf(pendingWeights, length);
+            nextOut = Arrays.copyOf(nextOut, length);
+            nextIn = Arrays.copyOf(nextIn, length);
+        }
+        pendingPairs[entry] = pair;
+        pendingWeights[entry] = weight;
+        nextOut[entry] = outHeads[source(pair)] - 1;
+        outHeads[source(pair)] = entry + 1;
+        nextIn[entry] = inHeads[target(pair)] - 1;
+        inHeads[target(pair)] = entry + 1;
+        if (pendingCount * 2 > pendingTable.length) {
+            pendingTable = new int[pendingTable.length * 2];
+            for (int e = 0; e < pendingCount; e++) {
+                insertPending(e);
+            }
+        } else {
+            insertPending(entry);
+        }
+    }
+
+    private void insertPending(int entry) {
+        int mask = pendingTable.length - 1;
+        int slot = pairHash(pendingPairs[entry]) & mask;
+        while (pendingTable[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        pendingTable[slot] = entry + 1;
+    }
+
+    // Drop every pending entry, keeping the buffers for the next ones
+    private void clearPending() {
+        if (outHeads.length < labels.length) {
+            outHeads = new int[labels.length];
+            inHeads = new int[labels.length];
+        } else {
+            for (int e = 0; e < pendingCount; e++) {
+                outHeads[source(pendingPairs[e])] = 0;
+                inHeads[target(pendingPairs[e])] = 0;
+            }
+        }
+        if (pendingCount > 0) {
+            Arrays.fill(pendingTable, 0);
+        }
+        pendingCount = 0;
+    }
+
+    private static long pair(int sourceId, int targetId) {
+        return ((long) sourceId << 32) | (targetId & 0xFFFFFFFFL);
+    }
+
+    private static int source(long pair) {
+        return (int) (pair >>> 32);
+    }
+
+    private static int target(long pair) {
+        return (int) pair;
+    }
+
+    private static int pairHash(long pair) {
+        long h = pair * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static long pack(int targetId, int weight) {
+        return ((long) targetId << 32) | (weight & 0xFFFFFFFFL);
+    }
+
+    private static long[] grow(long[] array, int size) {
+        return size <= array.length ? array : Arrays.copyOf(array, array.length * 2);
+    }
+
+    /**
+     * Reverse rows of compressed sparse rows: the edges into each vertex,
+     * each named by its source and by its index in the forward rows. The
+     * arrays are never modified once built.
+     */
+    static final class ReverseRows {
+        final int[] inOffsets;
+        final int[] sourceIds;
+        final int[] inEdges;
+
+        // Abstraction function:
+        //   Represents, for each vertex t, the edges at indices inEdges[inOffsets[t]..inOffsets[t+1])
+        //   of the forward rows, from the sources at the same positions of sourceIds.
+        // Representation invariant:
+        //   - inOffsets is non-decreasing, starts at 0 and ends at sourceIds.length == inEdges.length.
+        //   - Each reverse row is sorted by source id.
+        // Safety from rep exposure:
+        //   - The arrays are only read, and only within this package.
+
+        private ReverseRows(int[] inOffsets, int[] sourceIds, int[] inEdges) {
+            this.inOffsets = inOffsets;
+            this.sourceIds = sourceIds;
+            this.inEdges = inEdges;
+        }
+
+        /**
+         * Build the reverse rows of forward rows, by a counting sort of their
+         * edges on target.
+         *
+         * @param rowCount number of vertices
+         * @param offsets rowCount + 1 offsets of the forward rows
+         * @param targetIds target of each edge of the forward rows
+         * @return the reverse rows
+         */
+        static ReverseRows of(int rowCount, int[] offsets, int[] targetIds) {
+            int[] inOffsets = new int[rowCount + 1];
+            for (int i = 0; i < offsets[rowCount]; i++) {
+                inOffsets[targetIds[i] + 1]++;
+            }
+            for (int targetId = 0; targetId < rowCount; targetId++) {
+                inOffsets[targetId + 1] += inOffsets[targetId];
+            }
+            int[] next = Arrays.copyOf(inOffsets, rowCount);
+            int[] sourceIds = new int[offsets[rowCount]];
+            int[] inEdges = new int[offsets[rowCount]];
+            for (int sourceId = 0; sourceId < rowCount; sourceId++) {
+                for (int i = offsets[sourceId]; i < offsets[sourceId + 1]; i++) {
+                    int slot = next[targetIds[i]]++;
+                    sourceIds[slot] = sourceId;
+                    inEdges[slot] = i;
+                }
+            }
+            return new ReverseRows(inOffsets, sourceIds, inEdges);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Tests for CompactGraph.
+ */
+public class CompactGraphTest extends GraphInstanceTest {
+
+    // Testing strategy
+    //   edges: only in overflow, only compacted, in both
+    //   compacted edge: updated, removed, endpoint vertex removed
+    //   removed vertex: re-added after compaction
+    //   sources(), inDegree(): compacted and overflow edges in, source removed, edge removed
+    //   ids: reclaimed by compaction; random mix of operations against a reference map
+
+    @Override
+    public Graph<String> emptyInstance() {
+        return new CompactGraph<>();
+    }
+
+    // Test reading edges before and after compaction
+    @Test
+    public void testCompactKeepsEdges() {
+        CompactGraph<String> graph = new CompactGraph<>();
+        graph.set("A", "B", 5);
+        graph.set("A", "C", 10);
+        graph.set("C", "A", 2);
+        graph.compact();
+        graph.set("A", "D", 1);
+
+        assertEquals(Map.of("B", 5, "C", 10, "D", 1), graph.targets("A"));
+        assertEquals(Map.of("C", 2), graph.sources("A"));
+        assertEquals(Set.of("A", "B", "C", "D"), graph.vertices());
+    }
+
+    // Test updating and removing compacted edges in place
+    @Test
+    public void testSetCompactedEdge() {
+        CompactGraph<String> graph = new CompactGraph<>();
+        graph.set("A", "B", 5);
+        graph.compact();
+
+        assertEquals(5, graph.set("A", "B", 7));
+        assertEquals(7, graph.set("A", "B", 0));
+        assertEquals(Map.of(), graph.targets("A"));
+        assertEquals(0, graph.set("A", "B", 3));
+        assertEquals(Map.of("A", 3), graph.sources("B"));
+    }
+
+    // Test that edges of a removed vertex do not come back with the label
+    @Test
+    public void testRemoveCompactedVertex() {
+        CompactGraph<String> graph = new CompactGraph<>();
+        graph.set("A", "B", 5);
+        graph.set("B", "C", 6);
+        graph.compact();
+
+        assertTrue(graph.remove("B"));
+        assertEquals(Map.of(), graph.targets("A"));
+        assertTrue(graph.add("B"));
+        assertEquals(Map.of(), graph.targets("B"));
+        assertEquals(Map.of(), graph.sources("B"));
+
+        graph.compact();
+        assertEquals(Set.of("A", "B", "C"), graph.vertices());
+        assertEquals(Map.of(), graph.sources("C"));
+    }
+
+    // Test many edges, enough to trigger automatic compaction
+    @Test
+    public void testManyEdges() {
+        CompactGraph<String> graph = new CompactGraph<>();
+        Map<String, Map<String, Integer>> expected = new HashMap<>();
+        for (int i = 0; i < 5000; i++) {
+            String source = "v" + (i % 100);
+            String target = "v" + (i * 7 % 101);
+            graph.set(source, target, i + 1);
+            expected.computeIfAbsent(source, k -> new HashMap<>()).put(target, i + 1);
+        }
+        for (Map.Entry<String, Map<String, Integer>> targets : expected.entrySet()) {
+            assertEquals(targets.getValue(), graph.targets(targets.getKey()));
+        }
+        assertEquals(expected.get("v1").get("v7"), graph.sources("v7").get("v1"));
+    }
+
+    // Test reading incoming edges from the reverse rows and the overflow buffer together
+    @Test
+    public void testSourcesCompactedAndOverflow() {
+        CompactGraph<String> graph = new CompactGraph<>();
+        graph.set("A", "T", 1);
+        graph.set("B", "T", 2);
+        graph.set("C", "T", 3);
+        graph.compact();
+        graph.set("D", "T", 4);
+        graph.set("E", "T", 5);
+
+        assertEquals(Map.of("A", 1, "B", 2, "C", 3, "D", 4, "E", 5), graph.sources("T"));
+        assertEquals(5, graph.inDegree("T"));
+
+        graph.set("B", "T", 0);
+        graph.set("D", "T", 0);
+        assertTrue(graph.remove("C"));
+        assertTrue(graph.remove("E"));
+        graph.set("A", "T", 6);
+        assertEquals(Map.of("A", 6), graph.sources("T"));
+        assertEquals(1, graph.inDegree("T"));
+
+        graph.compact();
+        assertEquals(Map.of("A", 6), graph.sources("T"));
+        assertEquals(1, graph.inDegree("T"));
+    }
+
+    // Test that compaction reclaims the ids of removed vertices
+    @Test
+    public void testCompactReclaimsIds() {
+        CompactGraph<String> graph = new CompactGraph<>();
+        for (int i = 0; i < 100; i++) {
+            graph.set("v" + i, "v" + (i + 1) % 100, i + 1);
+        }
+        for (int i = 0; i < 100; i += 2) {
+            assertTrue(graph.remove("v" + i));
+        }
+        assertEquals(100, graph.idCount());
+
+        graph.compact();
+        assertEquals(50, graph.idCount());
+        assertEquals(50, graph.vertices().size());
+        assertEquals(Map.of(), graph.targets("v1"));
+        assertEquals(Map.of(), graph.sources("v1"));
+        graph.set("v1", "v3", 7);
+        assertEquals(Map.of("v1", 7), graph.sources("v3"));
+        assertTrue(graph.add("v0"));
+        assertEquals(51, graph.idCount());
+    }
+
+    // Test a random mix of operations, with compactions, against a map of maps
+    @Test
+    public void testRandomOperations() {
+        CompactGraph<String> graph = new CompactGraph<>();
+        Map<String, Map<String, Integer>> expected = new HashMap<>();
+        Random random = new Random(0);
+        for (int step = 0; step < 20000; step++) {
+            String source = "v" + random.nextInt(200);
+            String target = "v" + random.nextInt(200);
+            int operation = random.nextInt(20);
+            if (operation == 0) {
+                boolean present = expected.remove(source) != null;
+                for (Map<String, Integer> targets : expected.values()) {
+                    targets.remove(source);
+                }
+                assertEquals(present, graph.remove(source));
+            } else if (operation == 1) {
+                graph.compact();
+            } else {
+                int weight = random.nextInt(3);
+                Map<String, Integer> targets = expected.get(source);
+                Integer previous = targets == null ? null : targets.get(target);
+                if (weight > 0) {
+                    expected.computeIfAbsent(source, k -> new HashMap<>()).put(target, weight);
+                    expected.computeIfAbsent(target, k -> new HashMap<>());
+                } else if (previous != null) {
+                    targets.remove(target);
+                }
+                assertEquals(previous == null ? 0 : previous, graph.set(source, target, weight));
+            }
+        }
+        assertEquals(expected.keySet(), graph.vertices());
+        for (String source : expected.keySet()) {
+            assertEquals(expected.get(source), graph.targets(source));
+            Map<String, Integer> sources = new HashMap<>();
+            for (Map.Entry<String, Map<String, Integer>> row : expected.entrySet()) {
+                Integer weight = row.getValue().get(source);
+                if (weight != null) sources.put(row.getKey(), weight);
+            }
+            assertEquals(sources, graph.sources(source));
+            assertEquals(sources.size(), graph.inDegree(source));
+        }
+    }
+}
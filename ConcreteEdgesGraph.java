@@ -1,6 +1,8 @@
 package graph;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -10,36 +12,97 @@ import java.util.Set;
 /**
  * An implementation of Graph.
  */
-public class ConcreteEdgesGraph implements Graph<String> {
+public class ConcreteEdgesGraph implements TraversableGraph<String> {
     
-    private final Set<String> vertices = new HashSet<>();
+    private final Map<String, Integer> vertices = new HashMap<>();
     private final List<Edge> edges = new ArrayList<>();
+    private final EdgeTable index = new EdgeTable();
+    private final Map<String, Set<String>> outgoing = new HashMap<>();
+    private final Map<String, Set<String>> incoming = new HashMap<>();
+    private int nextId = 0;
+    private final boolean readOnlyViews;
+    private final Map<String, Map<String, Integer>> targetsCache = new HashMap<>();
+    private final Map<String, Map<String, Integer>> sourcesCache = new HashMap<>();
     
     // Abstraction function:
-    //   Represents a directed graph with a set of vertices and a list of edges between vertices.
+    //   Represents a directed graph with a set of vertices (the keys of vertices) and a list of
+    //   edges between vertices. Each vertex is numbered with a distinct id; index maps the packed
+    //   (source id, target id) key of each edge to its position in edges. outgoing and incoming
+    //   bucket each vertex's edges by the label at their other end.
     // Representation invariant:
-    //   - No duplicate vertices.
+    //   - No duplicate vertices, and no two vertices share an id.
     //   - No duplicate edges with the same source and target. 
     //   - All edges have non-negative weights.
+    //   - index maps exactly the keys of the edges to their positions in edges.
+    //   - t is in outgoing[s] iff s is in incoming[t] iff there is an edge from s to t.
+    //   - If readOnlyViews, targetsCache[v] and sourcesCache[v], where present, are equal to
+    //     targets(v) and sources(v); otherwise both caches are empty.
     // Safety from rep exposure:
     //   - All fields are private.
-    //   - Methods return copies of mutable objects to avoid external modification.
+    //   - Methods return copies of mutable objects to avoid external modification, or, if
+    //     readOnlyViews, unmodifiable views and immutable maps.
+    
+    /**
+     * Create an empty graph whose observers return defensive copies.
+     */
+    public ConcreteEdgesGraph() {
+        this(false);
+    }
+    
+    /**
+     * Create an empty graph.
+     * 
+     * @param readOnlyViews if true, vertices() returns an unmodifiable live
+     *        view, and sources() and targets() return immutable maps that are
+     *        cached until an edge of the vertex changes; if false, observers
+     *        return fresh mutable copies
+     */
+    public ConcreteEdgesGraph(boolean readOnlyViews) {
+        this.readOnlyViews = readOnlyViews;
+    }
     
     // Check representation invariant
     private void checkRep() {
-        for (Edge edge : edges) {
+        assert index.size() == edges.size();
+        for (int i = 0; i < edges.size(); i++) {
+            Edge edge = edges.get(i);
             assert edge.getWeight() >= 0;
-            assert vertices.contains(edge.getSource()) && vertices.contains(edge.getTarget());
+            assert vertices.containsKey(edge.getSource()) && vertices.containsKey(edge.getTarget());
+            assert index.get(key(edge.getSource(), edge.getTarget())) == i;
+        }
+    }
+    
+    // Check representation invariant at the current validation level, after a mutation that
+    // touched only the vertices source and target and the edge between them
+    private void checkRep(String source, String target) {
+        if (Validation.checkAll()) {
+            checkRep();
+        } else if (Validation.checkTouched()) {
+            assert index.size() == edges.size();
+            assert vertices.containsKey(source) == outgoing.containsKey(source);
+            assert vertices.containsKey(target) == incoming.containsKey(target);
+            if (vertices.containsKey(source) && vertices.containsKey(target)) {
+                int position = index.get(key(source, target));
+                assert (position >= 0) == outgoing.get(source).contains(target);
+                assert (position >= 0) == incoming.get(target).contains(source);
+                if (position >= 0) {
+                    Edge edge = edges.get(position);
+                    assert edge.getSource().equals(source) && edge.getTarget().equals(target);
+                    assert edge.getWeight() > 0;
+                }
+            }
         }
     }
     
     @Override
     public boolean add(String vertex) {
-        if (vertices.contains(vertex)) {
+        if (vertices.containsKey(vertex)) {
             return false;
         }
-        vertices.add(vertex);
-        checkRep();
+        vertices.put(vertex, nextId++);
+        outgoing.put(vertex, new HashSet<>());
+        incoming.put(vertex, new HashSet<>());
+        checkRep(vertex, vertex);
         return true;
     }
     
@@ -50,79 +113,270 @@ public class ConcreteEdgesGraph implements Graph<String> {
         add(source);
         add(target);
         
-        int previousWeight = 0;
-        Edge existingEdge = null;
-        
-        for (Edge edge : edges) {
-            if (edge.getSource().equals(source) && edge.getTarget().equals(target)) {
-                previousWeight = edge.getWeight();
-                existingEdge = edge;
-                break;
-            }
-        }
+        long key = key(source, target);
+        int position = index.get(key);
+        int previousWeight = position < 0 ? 0 : edges.get(position).getWeight();
         
-        if (weight == 0 && existingEdge != null) {
-            edges.remove(existingEdge); // Remove the edge if weight is 0
-        } else if (existingEdge != null) {
-            edges.remove(existingEdge);
-            edges.add(new Edge(source, target, weight)); // Update the edge's weight
+        if (weight == 0 && position >= 0) {
+            removeEdge(position); // Remove the edge if weight is 0
+        } else if (position >= 0) {
+            edges.set(position, new Edge(source, target, weight)); // Update the edge's weight
+            invalidate(source, target);
         } else if (weight > 0) {
+            index.put(key, edges.size());
             edges.add(new Edge(source, target, weight)); // Add new edge with given weight
+            outgoing.get(source).add(target);
+            incoming.get(target).add(source);
+            invalidate(source, target);
         }
         
-        checkRep();
+        checkRep(source, target);
         return previousWeight;
     }
     
     @Override
     public boolean remove(String vertex) {
-        if (!vertices.contains(vertex)) {
+        if (!vertices.containsKey(vertex)) {
             return false;
         }
         
+        for (String target : new ArrayList<>(outgoing.get(vertex))) {
+            removeEdge(index.get(key(vertex, target)));
+        }
+        for (String source : new ArrayList<>(incoming.get(vertex))) {
+            removeEdge(index.get(key(source, vertex)));
+        }
         vertices.remove(vertex);
-        edges.removeIf(edge -> edge.getSource().equals(vertex) || edge.getTarget().equals(vertex));
+        outgoing.remove(vertex);
+        incoming.remove(vertex);
+        invalidate(vertex, vertex);
         
-        checkRep();
+        checkRep(vertex, vertex);
         return true;
     }
     
     @Override
     public Set<String> vertices() {
-        return new HashSet<>(vertices);
+        if (readOnlyViews) {
+            return Collections.unmodifiableSet(vertices.keySet());
+        }
+        CopyCounter.copied();
+        return new HashSet<>(vertices.keySet());
     }
     
     @Override
     public Map<String, Integer> sources(String target) {
-        Map<String, Integer> sources = new HashMap<>();
-        for (Edge edge : edges) {
-            if (edge.getTarget().equals(target)) {
-                sources.put(edge.getSource(), edge.getWeight());
+        if (readOnlyViews) {
+            if (!vertices.containsKey(target)) {
+                return Map.of();
             }
+            return sourcesCache.computeIfAbsent(target, t -> {
+                CopyCounter.copied();
+                return Map.copyOf(collectSources(t));
+            });
         }
-        return sources;
+        CopyCounter.copied();
+        return collectSources(target);
     }
     
     @Override
     public Map<String, Integer> targets(String source) {
-        Map<String, Integer> targets = new HashMap<>();
-        for (Edge edge : edges) {
-            if (edge.getSource().equals(source)) {
-                targets.put(edge.getTarget(), edge.getWeight());
+        if (readOnlyViews) {
+            if (!vertices.containsKey(source)) {
+                return Map.of();
             }
+            return targetsCache.computeIfAbsent(source, s -> {
+                CopyCounter.copied();
+                return Map.copyOf(collectTargets(s));
+            });
         }
-        return targets;
+        CopyCounter.copied();
+        return collectTargets(source);
+    }
+    
+    @Override
+    public void forEachTarget(String source, EdgeVisitor<? super String> visitor) {
+        for (String target : outgoing.getOrDefault(source, Set.of())) {
+            visitor.visit(target, edges.get(index.get(key(source, target))).getWeight());
+        }
+    }
+    
+    @Override
+    public void forEachSource(String target, EdgeVisitor<? super String> visitor) {
+        for (String source : incoming.getOrDefault(target, Set.of())) {
+            visitor.visit(source, edges.get(index.get(key(source, target))).getWeight());
+        }
+    }
+    
+    @Override
+    public int outDegree(String source) {
+        Set<String> targets = outgoing.get(source);
+        return targets == null ? 0 : targets.size();
+    }
+    
+    @Override
+    public int inDegree(String target) {
+        Set<String> sources = incoming.get(target);
+        return sources == null ? 0 : sources.size();
+    }
+    
+    @Override
+    public int weight(String source, String target) {
+        if (!vertices.containsKey(source) || !vertices.containsKey(target)) {
+            return 0;
+        }
+        int position = index.get(key(source, target));
+        return position < 0 ? 0 : edges.get(position).getWeight();
     }
     
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
-        sb.append("Vertices: ").append(vertices).append("\nEdges:\n");
+        sb.append("Vertices: ").append(vertices.keySet()).append("\nEdges:\n");
         for (Edge edge : edges) {
             sb.append(edge.toString()).append("\n");
         }
         return sb.toString();
     }
+    
+    private Map<String, Integer> collectSources(String target) {
+        Map<String, Integer> sources = new HashMap<>();
+        for (String source : incoming.getOrDefault(target, Set.of())) {
+            sources.put(source, edges.get(index.get(key(source, target))).getWeight());
+        }
+        return sources;
+    }
+    
+    private Map<String, Integer> collectTargets(String source) {
+        Map<String, Integer> targets = new HashMap<>();
+        for (String target : outgoing.getOrDefault(source, Set.of())) {
+            targets.put(target, edges.get(index.get(key(source, target))).getWeight());
+        }
+        return targets;
+    }
+    
+    // Drop the cached observer results changed by an edge from source to target
+    private void invalidate(String source, String target) {
+        targetsCache.remove(source);
+        sourcesCache.remove(target);
+    }
+    
+    // Pack the ids of two existing vertices into the index key of the edge between them
+    private long key(String source, String target) {
+        return ((long) vertices.get(source) << 32) | (vertices.get(target) & 0xFFFFFFFFL);
+    }
+    
+    // Remove the edge at position by moving the last edge into its place
+    private void removeEdge(int position) {
+        Edge removed = edges.get(position);
+        Edge last = edges.remove(edges.size() - 1);
+        index.remove(key(removed.getSource(), removed.getTarget()));
+        if (position < edges.size()) {
+            edges.set(position, last);
+            index.put(key(last.getSource(), last.getTarget()), position);
+        }
+        outgoing.get(removed.getSource()).remove(removed.getTarget());
+        incoming.get(removed.getTarget()).remove(removed.getSource());
+        invalidate(removed.getSource(), removed.getTarget());
+    }
+}
+
+/**
+ * An open-addressing hash table from packed (source id, target id) edge keys
+ * to edge positions, using linear probing and backward-shift deletion.
+ */
+class EdgeTable {
+    
+    private static final long EMPTY = -1L;
+    
+    private long[] keys = newKeys(16);
+    private int[] values = new int[16];
+    private int size = 0;
+    
+    // Abstraction function:
+    //   Represents the map from each keys[i] != EMPTY to values[i].
+    // Representation invariant:
+    //   - Keys are non-negative and distinct, and size counts the non-EMPTY slots.
+    //   - At most half of the slots are used, and no EMPTY slot lies between a key's home slot
+    //     and the slot holding it.
+    // Safety from rep exposure:
+    //   - All fields are private, and only primitives cross the interface.
+    
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * @param key a non-negative packed edge key
+     * @return the value stored for key, or -1 if there is none
+     */
+    public int get(long key) {
+        for (int slot = home(key); keys[slot] != EMPTY; slot = (slot + 1) & (keys.length - 1)) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+        }
+        return -1;
+    }
+    
+    public void put(long key, int value) {
+        int slot = home(key);
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & (keys.length - 1);
+        }
+        boolean added = keys[slot] == EMPTY;
+        keys[slot] = key;
+        values[slot] = value;
+        if (added && ++size * 2 > keys.length) {
+            resize();
+        }
+    }
+    
+    public void remove(long key) {
+        int mask = keys.length - 1;
+        int slot = home(key);
+        while (keys[slot] != key) {
+            if (keys[slot] == EMPTY) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        // Shift later entries of the probe run back over the hole
+        for (int next = (slot + 1) & mask; keys[next] != EMPTY; next = (next + 1) & mask) {
+            int nextHome = home(keys[next]);
+            if (((next - nextHome) & mask) >= ((next - slot) & mask)) {
+                keys[slot] = keys[next];
+                values[slot] = values[next];
+                slot = next;
+            }
+        }
+        keys[slot] = EMPTY;
+        size--;
+    }
+    
+    private int home(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & (keys.length - 1);
+    }
+    
+    private void resize() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = newKeys(oldKeys.length * 2);
+        values = new int[oldKeys.length * 2];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+    
+    private static long[] newKeys(int capacity) {
+        long[] keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        return keys;
+    }
 }
 
 /**
@@ -184,6 +438,6 @@ class Edge {
     
     @Override
     public int hashCode() {
-        return source.hashCode() + target.hashCode() + Integer.hashCode(weight);
+        return 31 * (31 * source.hashCode() + target.hashCode()) + Integer.hashCode(weight);
     }
 }
@@ -4,6 +4,7 @@ import static org.junit.Assert.*;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
@@ -90,4 +91,55 @@ public class ConcreteEdgesGraphTest extends GraphInstanceTest {
         assertTrue(graph.toString().contains("B"));
         assertTrue(graph.toString().contains("5"));
     }
+
+    // Test that edges stay consistent across many sets and removals
+    @Test
+    public void testManyEdges() {
+        Map<String, Map<String, Integer>> expected = new HashMap<>();
+        for (int i = 0; i < 2000; i++) {
+            String source = "v" + (i % 40);
+            String target = "v" + (i * 7 % 41);
+            int weight = i % 3 == 0 ? 0 : i;
+            graph.set(source, target, weight);
+            if (weight == 0) {
+                expected.computeIfAbsent(source, k -> new HashMap<>()).remove(target);
+            } else {
+                expected.computeIfAbsent(source, k -> new HashMap<>()).put(target, weight);
+            }
+        }
+        graph.remove("v3");
+        expected.remove("v3");
+        for (Map.Entry<String, Map<String, Integer>> targets : expected.entrySet()) {
+            targets.getValue().remove("v3");
+            assertEquals(targets.getValue(), graph.targets(targets.getKey()));
+        }
+        assertTrue(graph.sources("v3").isEmpty());
+    }
+
+    // Test that reversed edges do not share a hash code
+    @Test
+    public void testEdgeHashCode() {
+        assertNotEquals(new Edge("A", "B", 1).hashCode(), new Edge("B", "A", 1).hashCode());
+    }
+
+    // Test that read-only results are unmodifiable and refreshed after changes
+    @Test
+    public void testReadOnlyViews() {
+        ConcreteEdgesGraph views = new ConcreteEdgesGraph(true);
+        views.set("A", "B", 5);
+        Map<String, Integer> targets = views.targets("A");
+        assertSame(targets, views.targets("A"));
+        views.set("A", "C", 10);
+        assertEquals(Map.of("B", 5), targets);
+        assertEquals(Map.of("B", 5, "C", 10), views.targets("A"));
+        assertEquals(Map.of("A", 10), views.sources("C"));
+        views.remove("B");
+        assertEquals(Map.of("C", 10), views.targets("A"));
+        try {
+            targets.put("D", 1);
+            fail("expected targets result to be unmodifiable");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
 }
@@ -1,139 +1,189 @@
 package graph;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 
 /**
  * An implementation of Graph.
  */
-public class ConcreteVerticesGraph implements Graph<String> {
+public class ConcreteVerticesGraph implements TraversableGraph<String> {
     
-    private final List<Vertex> vertices = new ArrayList<>();
+    private final Map<String, Vertex> vertices = new LinkedHashMap<>();
+    private final boolean readOnlyViews;
     
     // Abstraction function:
-    //   Each Vertex in the vertices list represents a node in the graph.
+    //   Each Vertex in the vertices map represents a node in the graph, keyed by its name.
     // Representation invariant:
-    //   Each vertex is unique, and edges have non-negative weights.
+    //   Each vertex is keyed by its own name, and edges have non-negative weights.
+    //   Vertex s has an edge to t with weight w iff t has an incoming edge from s with weight w.
     // Safety from rep exposure:
-    //   The vertices list is private, and access is through defensive copying.
+    //   The vertices map is private, and access is through defensive copying, or, if
+    //   readOnlyViews, through unmodifiable views.
 
-    // Constructor
+    /**
+     * Create an empty graph whose observers return defensive copies.
+     */
     public ConcreteVerticesGraph() {
-        checkRep();
+        this(false);
+    }
+    
+    /**
+     * Create an empty graph.
+     * 
+     * @param readOnlyViews if true, vertices(), sources() and targets() return
+     *        unmodifiable live views that reflect later changes to the graph;
+     *        if false, they return fresh mutable copies
+     */
+    public ConcreteVerticesGraph(boolean readOnlyViews) {
+        this.readOnlyViews = readOnlyViews;
     }
     
     // Checks the representation invariant
     private void checkRep() {
-        Set<String> vertexNames = new HashSet<>();
-        for (Vertex vertex : vertices) {
-            assert !vertexNames.contains(vertex.getName());
-            vertexNames.add(vertex.getName());
+        for (Map.Entry<String, Vertex> entry : vertices.entrySet()) {
+            assert entry.getKey().equals(entry.getValue().getName());
+        }
+    }
+    
+    // Checks the representation invariant at the current validation level, after a mutation
+    // that touched only the vertices source and target and the edge between them
+    private void checkRep(String source, String target) {
+        if (Validation.checkAll()) {
+            checkRep();
+        } else if (Validation.checkTouched()) {
+            Vertex sourceVertex = vertices.get(source);
+            Vertex targetVertex = vertices.get(target);
+            assert sourceVertex == null || sourceVertex.getName().equals(source);
+            assert targetVertex == null || targetVertex.getName().equals(target);
+            if (sourceVertex != null && targetVertex != null) {
+                assert sourceVertex.getEdgeWeight(target) == targetVertex.getIncomingWeight(source);
+            }
         }
     }
     
     @Override 
     public boolean add(String vertex) {
-        for (Vertex v : vertices) {
-            if (v.getName().equals(vertex)) {
-                return false; // Vertex already exists
-            }
+        if (vertices.containsKey(vertex)) {
+            return false; // Vertex already exists
         }
-        vertices.add(new Vertex(vertex));
-        checkRep();
+        vertices.put(vertex, new Vertex(vertex));
+        checkRep(vertex, vertex);
         return true;
     }
     
     @Override 
     public int set(String source, String target, int weight) {
-        Vertex sourceVertex = null;
-        Vertex targetVertex = null;
+        if (weight < 0) throw new IllegalArgumentException("Weight cannot be negative");
         
-        for (Vertex vertex : vertices) {
-            if (vertex.getName().equals(source)) {
-                sourceVertex = vertex;
-            }
-            if (vertex.getName().equals(target)) {
-                targetVertex = vertex;
-            }
-        }
-
         // Add vertices if they do not exist
-        if (sourceVertex == null) {
-            sourceVertex = new Vertex(source);
-            vertices.add(sourceVertex);
-        }
-        if (targetVertex == null) {
-            targetVertex = new Vertex(target);
-            vertices.add(targetVertex);
-        }
+        add(source);
+        add(target);
+        Vertex sourceVertex = vertices.get(source);
+        Vertex targetVertex = vertices.get(target);
 
         // Set edge weight and return previous weight
         int previousWeight = sourceVertex.getEdgeWeight(target);
         sourceVertex.setEdge(target, weight);
-        checkRep();
+        targetVertex.setIncomingEdge(source, weight);
+        checkRep(source, target);
         return previousWeight;
     }
     
     @Override 
     public boolean remove(String vertex) {
-        Vertex toRemove = null;
+        Vertex toRemove = vertices.remove(vertex);
+        if (toRemove == null) {
+            return false;
+        }
         
-        // Remove vertex from the list
-        for (Vertex v : vertices) {
-            if (v.getName().equals(vertex)) {
-                toRemove = v;
-            } else {
-                v.setEdge(vertex, 0); // Remove edges to the vertex
+        // Remove edges to and from the vertex at its neighbors
+        for (String target : toRemove.getAdjacentVertices().keySet()) {
+            Vertex neighbor = vertices.get(target);
+            if (neighbor != null) {
+                neighbor.setIncomingEdge(vertex, 0);
             }
         }
-        
-        if (toRemove != null) {
-            vertices.remove(toRemove);
-            checkRep();
-            return true;
+        for (String source : toRemove.getIncomingVertices().keySet()) {
+            Vertex neighbor = vertices.get(source);
+            if (neighbor != null) {
+                neighbor.setEdge(vertex, 0);
+            }
         }
-        return false;
+        checkRep(vertex, vertex);
+        return true;
     }
     
     @Override 
     public Set<String> vertices() {
-        Set<String> vertexNames = new HashSet<>();
-        for (Vertex vertex : vertices) {
-            vertexNames.add(vertex.getName());
+        if (readOnlyViews) {
+            return Collections.unmodifiableSet(vertices.keySet());
         }
-        return vertexNames;
+        CopyCounter.copied();
+        return new HashSet<>(vertices.keySet());
     }
     
     @Override 
     public Map<String, Integer> sources(String target) {
-        Map<String, Integer> sources = new HashMap<>();
-        for (Vertex vertex : vertices) {
-            int weight = vertex.getEdgeWeight(target);
-            if (weight > 0) {
-                sources.put(vertex.getName(), weight);
-            }
+        Vertex vertex = vertices.get(target);
+        if (readOnlyViews) {
+            return vertex == null ? Map.of() : vertex.viewIncomingVertices();
         }
-        return sources;
+        CopyCounter.copied();
+        return vertex == null ? new HashMap<>() : vertex.getIncomingVertices();
     }
     
     @Override 
     public Map<String, Integer> targets(String source) {
-        for (Vertex vertex : vertices) {
-            if (vertex.getName().equals(source)) {
-                return vertex.getAdjacentVertices();
-            }
+        Vertex vertex = vertices.get(source);
+        if (readOnlyViews) {
+            return vertex == null ? Map.of() : vertex.viewAdjacentVertices();
         }
-        return new HashMap<>();
+        CopyCounter.copied();
+        return vertex == null ? new HashMap<>() : vertex.getAdjacentVertices();
+    }
+    
+    @Override
+    public void forEachTarget(String source, EdgeVisitor<? super String> visitor) {
+        Vertex vertex = vertices.get(source);
+        if (vertex != null) {
+            vertex.forEachEdge(visitor);
+        }
+    }
+    
+    @Override
+    public void forEachSource(String target, EdgeVisitor<? super String> visitor) {
+        Vertex vertex = vertices.get(target);
+        if (vertex != null) {
+            vertex.forEachIncomingEdge(visitor);
+        }
+    }
+    
+    @Override
+    public int outDegree(String source) {
+        Vertex vertex = vertices.get(source);
+        return vertex == null ? 0 : vertex.getOutDegree();
+    }
+    
+    @Override
+    public int inDegree(String target) {
+        Vertex vertex = vertices.get(target);
+        return vertex == null ? 0 : vertex.getInDegree();
+    }
+    
+    @Override
+    public int weight(String source, String target) {
+        Vertex vertex = vertices.get(source);
+        return vertex == null ? 0 : vertex.getEdgeWeight(target);
     }
     
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
-        for (Vertex vertex : vertices) {
+        for (Vertex vertex : vertices.values()) {
             sb.append(vertex.toString()).append("\n");
         }
         return sb.toString();
@@ -147,13 +197,16 @@ class Vertex {
     
     private final String name;
     private final Map<String, Integer> edges = new HashMap<>();
+    private final Map<String, Integer> incoming = new HashMap<>();
     
     // Abstraction function:
-    //   The name represents the vertex, and edges map represents the directed edges with weights.
+    //   The name represents the vertex, edges map represents the directed edges with weights,
+    //   and incoming map represents the directed edges into the vertex by source name.
     // Representation invariant:
-    //   Edge weights are non-negative.
+    //   Edge weights are non-negative, and neither map stores a zero weight.
     // Safety from rep exposure:
-    //   The fields are private and final where possible. The map is defensively copied when accessed externally.
+    //   The fields are private and final where possible. The maps are defensively copied or wrapped
+    //   in unmodifiable views when accessed externally.
     
     public Vertex(String name) {
         this.name = name;
@@ -164,6 +217,20 @@ class Vertex {
         for (int weight : edges.values()) {
             assert weight >= 0;
         }
+        for (int weight : incoming.values()) {
+            assert weight > 0;
+        }
+    }
+    
+    // Checks the representation invariant at the current validation level, after a change to
+    // the edges between this vertex and other
+    private void checkRep(String other) {
+        if (Validation.checkAll()) {
+            checkRep();
+        } else if (Validation.checkTouched()) {
+            assert edges.getOrDefault(other, 1) > 0;
+            assert incoming.getOrDefault(other, 1) > 0;
+        }
     }
     
     public String getName() {
@@ -180,13 +247,58 @@ class Vertex {
         } else {
             edges.put(target, weight);
         }
-        checkRep();
+        checkRep(target);
     }
     
     public Map<String, Integer> getAdjacentVertices() {
         return new HashMap<>(edges);
     }
     
+    public Map<String, Integer> viewAdjacentVertices() {
+        return Collections.unmodifiableMap(edges);
+    }
+    
+    public void forEachEdge(TraversableGraph.EdgeVisitor<? super String> visitor) {
+        for (Map.Entry<String, Integer> edge : edges.entrySet()) {
+            visitor.visit(edge.getKey(), edge.getValue());
+        }
+    }
+    
+    public int getOutDegree() {
+        return edges.size();
+    }
+    
+    public int getIncomingWeight(String source) {
+        return incoming.getOrDefault(source, 0);
+    }
+    
+    public void setIncomingEdge(String source, int weight) {
+        if (weight == 0) {
+            incoming.remove(source);
+        } else {
+            incoming.put(source, weight);
+        }
+        checkRep(source);
+    }
+    
+    public Map<String, Integer> getIncomingVertices() {
+        return new HashMap<>(incoming);
+    }
+    
+    public Map<String, Integer> viewIncomingVertices() {
+        return Collections.unmodifiableMap(incoming);
+    }
+    
+    public void forEachIncomingEdge(TraversableGraph.EdgeVisitor<? super String> visitor) {
+        for (Map.Entry<String, Integer> edge : incoming.entrySet()) {
+            visitor.visit(edge.getKey(), edge.getValue());
+        }
+    }
+    
+    public int getInDegree() {
+        return incoming.size();
+    }
+    
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder(name + " -> ");
@@ -91,57 +91,43 @@ public class ConcreteVerticesGraphTest extends GraphInstanceTest {
         assertTrue(graph.toString().contains("B"));
         assertTrue(graph.toString().contains("5"));
     }
-}
-
-/**
- * Tests for Vertex class
- */
-public class VertexTest {
-
-    private Vertex vertex;
 
-    @Before
-    public void setUp() {
-        vertex = new Vertex("A");
-    }
-
-    // Test for Vertex constructor and getters
+    // Test that removing a vertex removes its edges in both directions
     @Test
-    public void testVertexConstructor() {
-        assertEquals("A", vertex.getName());
-    }
-
-    // Test for adding and updating edges
-    @Test
-    public void testSetEdgeWeight() {
-        vertex.setEdge("B", 5);
-        assertEquals(5, vertex.getEdgeWeight("B"));
-        
-        vertex.setEdge("B", 10); // Update weight
-        assertEquals(10, vertex.getEdgeWeight("B"));
-        
-        vertex.setEdge("B", 0); // Remove edge by setting weight to 0
-        assertEquals(0, vertex.getEdgeWeight("B"));
+    public void testRemoveVertexEdges() {
+        graph.set("A", "B", 5);
+        graph.set("B", "C", 6);
+        graph.set("B", "B", 7);
+        assertTrue(graph.remove("B"));
+        assertTrue(graph.targets("A").isEmpty());
+        assertTrue(graph.sources("C").isEmpty());
+        assertEquals(0, graph.set("A", "B", 1));
+        assertEquals(Map.of("A", 1), graph.sources("B"));
     }
 
-    // Test for retrieving adjacent vertices
+    // Test a self loop on a new vertex
     @Test
-    public void testGetAdjacentVertices() {
-        vertex.setEdge("B", 5);
-        vertex.setEdge("C", 10);
-        
-        Map<String, Integer> adjVertices = vertex.getAdjacentVertices();
-        assertEquals(2, adjVertices.size());
-        assertEquals((Integer) 5, adjVertices.get("B"));
-        assertEquals((Integer) 10, adjVertices.get("C"));
+    public void testSelfLoop() {
+        assertEquals(0, graph.set("A", "A", 3));
+        assertEquals(Set.of("A"), graph.vertices());
+        assertEquals(Map.of("A", 3), graph.sources("A"));
     }
 
-    // Test for Vertex toString()
+    // Test that read-only views are unmodifiable and reflect later changes
     @Test
-    public void testVertexToString() {
-        vertex.setEdge("B", 5);
-        assertTrue(vertex.toString().contains("A"));
-        assertTrue(vertex.toString().contains("B"));
-        assertTrue(vertex.toString().contains("5"));
+    public void testReadOnlyViews() {
+        ConcreteVerticesGraph views = new ConcreteVerticesGraph(true);
+        views.set("A", "B", 5);
+        Map<String, Integer> targets = views.targets("A");
+        Set<String> vertices = views.vertices();
+        views.set("A", "C", 10);
+        assertEquals(Map.of("B", 5, "C", 10), targets);
+        assertEquals(Set.of("A", "B", "C"), vertices);
+        try {
+            targets.put("D", 1);
+            fail("expected targets view to be unmodifiable");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
     }
 }
@@ -0,0 +1,218 @@
+package graph;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A thread-safe implementation of Graph.
+ *
+ * <p>Mutators lock a stripe per endpoint vertex, so edges from different
+ * vertices can be written in parallel; remove() locks every stripe. Observers
+ * take no locks and return unmodifiable, weakly consistent views: they never
+ * throw {@link java.util.ConcurrentModificationException}, and reflect some or
+ * all of the mutations made while they are being iterated.
+ */
+public class ConcurrentGraph implements Graph<String> {
+
+    private static final int STRIPES = 64;
+
+    private final ConcurrentMap<String, ConcurrentMap<String, Integer>> outgoing = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ConcurrentMap<String, Integer>> incoming = new ConcurrentHashMap<>();
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    // Abstraction function:
+    //   Represents a directed graph whose vertices are the keys of outgoing, with an edge from s
+    //   to t of weight outgoing[s][t]; incoming[t][s] mirrors each edge.
+    // Representation invariant, whenever no mutator holds a lock:
+    //   - outgoing and incoming have the same key set.
+    //   - outgoing[s][t] == incoming[t][s] for every edge, and every weight is positive.
+    // Thread safety argument:
+    //   - All maps are concurrent maps, so lock-free reads are safe.
+    //   - The entries of vertex v in outgoing and incoming are changed only while holding the
+    //     stripe lock of v; set() locks the stripes of both endpoints in index order, and
+    //     remove() locks all stripes in index order, so there is no deadlock.
+    // Safety from rep exposure:
+    //   - All fields are private; observers return unmodifiable views.
+
+    public ConcurrentGraph() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    // Check the representation invariant for one edge, while holding both stripe locks; the
+    // whole graph cannot be checked under stripe locks, so level FULL checks the same
+    private void checkRep(String source, String target) {
+        if (!Validation.checkTouched() && !Validation.checkAll()) {
+            return;
+        }
+        Map<String, Integer> targets = outgoing.get(source);
+        Map<String, Integer> sources = incoming.get(target);
+        Integer weight = targets == null ? null : targets.get(target);
+        Integer mirror = sources == null ? null : sources.get(source);
+        assert weight == null ? mirror == null : weight.equals(mirror) && weight > 0;
+    }
+
+    @Override
+    public boolean add(String vertex) {
+        ReentrantLock lock = stripe(vertex);
+        lock.lock();
+        try {
+            return addVertex(vertex);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int set(String source, String target, int weight) {
+        if (weight < 0) throw new IllegalArgumentException("Weight cannot be negative");
+
+        lockBoth(source, target);
+        try {
+            return setEdge(source, target, weight);
+        } finally {
+            unlockBoth(source, target);
+        }
+    }
+
+    /**
+     * Atomically increase the weight of an edge, adding the edge and its
+     * vertices if needed.
+     *
+     * @param source label of the source vertex
+     * @param target label of the target vertex
+     * @param delta positive amount to add to the weight of the edge
+     * @return the new weight of the edge
+     */
+    public int increment(String source, String target, int delta) {
+        if (delta <= 0) throw new IllegalArgumentException("Increment must be positive");
+
+        lockBoth(source, target);
+        try {
+            Map<String, Integer> targets = outgoing.get(source);
+            int weight = Math.addExact(targets == null ? 0 : targets.getOrDefault(target, 0), delta);
+            setEdge(source, target, weight);
+            return weight;
+        } finally {
+            unlockBoth(source, target);
+        }
+    }
+
+    @Override
+    public boolean remove(String vertex) {
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+        try {
+            Map<String, Integer> targets = outgoing.remove(vertex);
+            Map<String, Integer> sources = incoming.remove(vertex);
+            if (targets == null) {
+                return false;
+            }
+            for (String target : targets.keySet()) {
+                Map<String, Integer> mirror = incoming.get(target);
+                if (mirror != null) {
+                    mirror.remove(vertex);
+                }
+            }
+            for (String source : sources.keySet()) {
+                Map<String, Integer> mirror = outgoing.get(source);
+                if (mirror != null) {
+                    mirror.remove(vertex);
+                }
+            }
+            return true;
+        } finally {
+            for (int i = STRIPES - 1; i >= 0; i--) {
+                locks[i].unlock();
+            }
+        }
+    }
+
+    @Override
+    public Set<String> vertices() {
+        return Collections.unmodifiableSet(outgoing.keySet());
+    }
+
+    @Override
+    public Map<String, Integer> sources(String target) {
+        Map<String, Integer> sources = incoming.get(target);
+        return sources == null ? Map.of() : Collections.unmodifiableMap(sources);
+    }
+
+    @Override
+    public Map<String, Integer> targets(String source) {
+        Map<String, Integer> targets = outgoing.get(source);
+        return targets == null ? Map.of() : Collections.unmodifiableMap(targets);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, ConcurrentMap<String, Integer>> vertex : outgoing.entrySet()) {
+            sb.append(vertex.getKey()).append(" -> ").append(vertex.getValue()).append("\n");
+        }
+        return sb.toString();
+    }
+
+    // Add a vertex, while holding its stripe lock
+    private boolean addVertex(String vertex) {
+        if (outgoing.containsKey(vertex)) {
+            return false;
+        }
+        incoming.put(vertex, new ConcurrentHashMap<>());
+        outgoing.put(vertex, new ConcurrentHashMap<>());
+        return true;
+    }
+
+    // Set the weight of an edge, while holding the stripe locks of both endpoints
+    private int setEdge(String source, String target, int weight) {
+        if (weight == 0 && !(outgoing.containsKey(source) && outgoing.containsKey(target))) {
+            return 0; // No such edge, and the graph is not otherwise modified
+        }
+        addVertex(source);
+        addVertex(target);
+        Integer previousWeight;
+        if (weight == 0) {
+            previousWeight = outgoing.get(source).remove(target);
+            incoming.get(target).remove(source);
+        } else {
+            previousWeight = outgoing.get(source).put(target, weight);
+            incoming.get(target).put(source, weight);
+        }
+        checkRep(source, target);
+        return previousWeight == null ? 0 : previousWeight;
+    }
+
+    private ReentrantLock stripe(String vertex) {
+        return locks[stripeIndex(vertex)];
+    }
+
+    private static int stripeIndex(String vertex) {
+        int hash = vertex.hashCode();
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+
+    private void lockBoth(String source, String target) {
+        int first = Math.min(stripeIndex(source), stripeIndex(target));
+        int second = Math.max(stripeIndex(source), stripeIndex(target));
+        locks[first].lock();
+        if (second != first) {
+            locks[second].lock();
+        }
+    }
+
+    private void unlockBoth(String source, String target) {
+        int first = Math.min(stripeIndex(source), stripeIndex(target));
+        int second = Math.max(stripeIndex(source), stripeIndex(target));
+        if (second != first) {
+            locks[second].unlock();
+        }
+        locks[first].unlock();
+    }
+}
@@ -0,0 +1,104 @@
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+/**
+ * Tests for ConcurrentGraph.
+ */
+public class ConcurrentGraphTest extends GraphInstanceTest {
+
+    // Testing strategy
+    //   increment(): new edge, existing edge, non-positive delta
+    //   under contention: concurrent increments, reads, and removal of a shared vertex
+    //     observe the Graph spec invariants after all threads finish
+
+    private static final int THREADS = 8;
+    private static final int INCREMENTS = 20000;
+    private static final int VERTICES = 20;
+
+    @Override
+    public Graph<String> emptyInstance() {
+        return new ConcurrentGraph();
+    }
+
+    // Test increment on new and existing edges
+    @Test
+    public void testIncrement() {
+        ConcurrentGraph graph = new ConcurrentGraph();
+        assertEquals(2, graph.increment("A", "B", 2));
+        assertEquals(5, graph.increment("A", "B", 3));
+        assertEquals(Map.of("A", 5), graph.sources("B"));
+    }
+
+    // Test that non-positive increments are rejected
+    @Test(expected = IllegalArgumentException.class)
+    public void testIncrementZero() {
+        new ConcurrentGraph().increment("A", "B", 0);
+    }
+
+    // Stress test concurrent increments, reads and removals
+    @Test
+    public void testConcurrentStress() throws InterruptedException {
+        ConcurrentGraph graph = new ConcurrentGraph();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            long seed = t;
+            threads.add(new Thread(() -> {
+                Random random = new Random(seed);
+                for (int i = 0; i < INCREMENTS; i++) {
+                    graph.increment("v" + random.nextInt(VERTICES), "v" + random.nextInt(VERTICES), 1);
+                    if (i % 100 == 0) {
+                        graph.set("v" + random.nextInt(VERTICES), "x", 1);
+                    }
+                }
+            }));
+        }
+        threads.add(new Thread(() -> {
+            for (int i = 0; i < 2000; i++) {
+                graph.remove("x");
+                graph.add("x");
+            }
+        }));
+        threads.add(new Thread(() -> {
+            for (int i = 0; i < 2000; i++) {
+                for (String vertex : graph.vertices()) {
+                    for (int weight : graph.targets(vertex).values()) {
+                        if (weight <= 0) {
+                            failure.set(new AssertionError("expected positive weight, was " + weight));
+                        }
+                    }
+                }
+            }
+        }));
+        for (Thread thread : threads) {
+            thread.setUncaughtExceptionHandler((th, e) -> failure.set(e));
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull("expected no failures in worker threads", failure.get());
+
+        long total = 0;
+        for (String source : graph.vertices()) {
+            for (Map.Entry<String, Integer> edge : graph.targets(source).entrySet()) {
+                assertTrue("expected edge target to be a vertex", graph.vertices().contains(edge.getKey()));
+                assertEquals("expected sources to mirror targets",
+                        edge.getValue(), graph.sources(edge.getKey()).get(source));
+                if (!edge.getKey().equals("x")) {
+                    total += edge.getValue();
+                }
+            }
+        }
+        assertEquals("expected no lost increments", (long) THREADS * INCREMENTS, total);
+    }
+}
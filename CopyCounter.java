@@ -0,0 +1,34 @@
+package graph;
+
+/**
+ * Counts the defensive copies that graph implementations make for the
+ * callers of their observers, per thread, so that a wrapper such as
+ * {@link InstrumentedGraph} can attribute to each call exactly the copies it
+ * made. An implementation reports one copy for each fresh collection of its
+ * vertices or edges that it builds for a caller; views and shared immutable
+ * results are not copies, and implementations that never report count none.
+ */
+public final class CopyCounter {
+
+    private static final ThreadLocal<long[]> COUNTS = ThreadLocal.withInitial(() -> new long[1]);
+
+    // Thread safety argument:
+    //   - Each thread only reads and writes its own count.
+
+    private CopyCounter() {
+    }
+
+    /**
+     * Report that the current thread made one defensive copy.
+     */
+    public static void copied() {
+        COUNTS.get()[0]++;
+    }
+
+    /**
+     * @return the number of defensive copies the current thread has reported
+     */
+    public static long count() {
+        return COUNTS.get()[0];
+    }
+}
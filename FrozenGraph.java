@@ -0,0 +1,703 @@
+package graph;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * An immutable Graph, built as a snapshot of another graph. Its observers
+ * return immutable maps and sets that it shares with every caller instead of
+ * copying them, so it can be read by any number of threads without locks or
+ * defensive copies. Its mutators throw UnsupportedOperationException.
+ *
+ * <p>A snapshot can be refrozen from the graph it was taken from after that
+ * graph changes: only the adjacency of the vertices named as changed is
+ * rebuilt, into a persistent hash trie that shares every other row with the
+ * old snapshot, so refreezing takes time proportional to the changed rows and
+ * logarithmic in the vertex count.
+ *
+ * <p>A snapshot of a CompactGraph, or of an adaptive graph that has become
+ * one, keeps its compressed rows as primitive arrays instead of boxing every
+ * edge into maps; rows are viewed as maps only when they are read. Rows
+ * rebuilt by refreezing are primitive open-addressing tables. The
+ * traversal methods read either kind of row without boxing a weight or
+ * allocating an entry per edge.
+ *
+ * @param <L> type of vertex labels in this graph, must be immutable
+ */
+public final class FrozenGraph<L> implements TraversableGraph<L> {
+
+    private static final FrozenGraph<?> EMPTY = new FrozenGraph<>(null, HashTrie.empty(), 0, 0);
+
+    private final Base<L> base;
+    private final HashTrie<L, Row<L>> rows;
+    private final int vertexCount;
+    private final int edgeCount;
+    private final Set<L> vertices = new Vertices();
+
+    // Abstraction function:
+    //   Represents the graph whose vertices and edges are those of base (none if null), except
+    //   that each vertex v in rows has the adjacency rows[v] instead, or is absent if rows[v] is
+    //   absent.
+    // Representation invariant:
+    //   - For every vertex, sources[t][s] == targets[s][t] for every edge; all weights are
+    //     positive.
+    //   - Every row is immutable, and rows and base are never modified after construction.
+    //   - vertexCount and edgeCount are the numbers of vertices and edges.
+    // Safety from rep exposure:
+    //   - All fields are private and final, base and rows are never returned, and the rows and
+    //     vertex set returned are immutable or unmodifiable.
+    // Thread safety argument:
+    //   - This type is immutable, and all fields are final, so instances are safely published
+    //     even through a data race. Base caches the row views it creates in atomic arrays, and
+    //     its reverse rows, once built, in a volatile field.
+
+    // Create a snapshot; the caller checks it once it is complete
+    private FrozenGraph(Base<L> base, HashTrie<L, Row<L>> rows, int vertexCount, int edgeCount) {
+        this.base = base;
+        this.rows = rows;
+        this.vertexCount = vertexCount;
+        this.edgeCount = edgeCount;
+    }
+
+    // Check representation invariant at the current validation level, after building the rows
+    // of the changed vertices; a snapshot is checked once, when it is built
+    private void checkRep(Collection<L> changed) {
+        if (Validation.checkAll()) {
+            int vertices = 0;
+            int edges = 0;
+            for (L vertex : this.vertices) {
+                checkRow(vertex);
+                vertices++;
+                edges += targets(vertex).size();
+            }
+            assert vertices == vertexCount && edges == edgeCount;
+        } else if (Validation.checkTouched()) {
+            for (L vertex : changed) {
+                checkRow(vertex);
+            }
+        }
+    }
+
+    // Check that the edges into and out of vertex agree with the rows of their other ends
+    private void checkRow(L vertex) {
+        for (Map.Entry<L, Integer> edge : targets(vertex).entrySet()) {
+            assert edge.getValue() > 0;
+            assert edge.getValue().equals(sources(edge.getKey()).get(vertex));
+        }
+        for (Map.Entry<L, Integer> edge : sources(vertex).entrySet()) {
+            assert edge.getValue().equals(targets(edge.getKey()).get(vertex));
+        }
+    }
+
+    /**
+     * @param <L> type of vertex labels in the graph
+     * @return an empty frozen graph
+     */
+    @SuppressWarnings("unchecked")
+    public static <L> FrozenGraph<L> empty() {
+        return (FrozenGraph<L>) EMPTY;
+    }
+
+    /**
+     * Take an immutable snapshot of a graph.
+     *
+     * @param <L> type of vertex labels in the graph
+     * @param graph graph to copy; if it is already frozen, it is returned
+     * @return an immutable graph with the same vertices and edges as graph
+     */
+    public static <L> FrozenGraph<L> freeze(Graph<L> graph) {
+        if (graph instanceof FrozenGraph) {
+            return (FrozenGraph<L>) graph;
+        }
+        if (graph instanceof AdaptiveGraph) {
+            graph = ((AdaptiveGraph<L>) graph).current();
+        }
+        if (graph instanceof CompactGraph) {
+            return ((CompactGraph<L>) graph).freeze();
+        }
+        return FrozenGraph.<L>empty().refreeze(graph, graph.vertices());
+    }
+
+    /**
+     * Wrap compressed sparse rows, taking ownership of the arrays, which must
+     * never be modified.
+     *
+     * @param labels label of each vertex id, or null for unused ids
+     * @param offsets the edges from vertex i are at [offsets[i], offsets[i + 1])
+     * @param targetIds target of each edge, sorted within each row
+     * @param weights positive weight of each edge
+     * @param reverse reverse rows of the rows, or null to build them the
+     *        first time incoming edges are read
+     * @return a frozen graph of the rows
+     */
+    static <L> FrozenGraph<L> wrap(L[] labels, int[] offsets, int[] targetIds, int[] weights,
+            CompactGraph.ReverseRows reverse) {
+        Base<L> base = new Base<>(labels, offsets, targetIds, weights, reverse);
+        FrozenGraph<L> frozen = new FrozenGraph<>(base, HashTrie.empty(), base.vertexCount, targetIds.length);
+        frozen.checkRep(List.of()); // Base checks its own arrays
+        return frozen;
+    }
+
+    /**
+     * Take a snapshot of a graph that this is an older snapshot of, rebuilding
+     * only the adjacency of the vertices that changed since.
+     *
+     * @param graph graph that this is an older snapshot of
+     * @param changed every vertex that was added to or removed from graph, or
+     *        that an edge was added to, removed from or reweighted in, since
+     *        this snapshot was taken; for example, both ends of every edge set
+     *        and every neighbour of every vertex removed
+     * @return an immutable graph with the same vertices and edges as graph,
+     *         sharing the adjacency of unchanged vertices with this
+     */
+    public FrozenGraph<L> refreeze(Graph<L> graph, Collection<L> changed) {
+        if (changed.isEmpty()) {
+            return this;
+        }
+        HashTrie<L, Row<L>> newRows = rows;
+        int newVertexCount = vertexCount;
+        int newEdgeCount = edgeCount;
+        Set<L> graphVertices = null;
+        for (L vertex : changed) {
+            Map<L, Integer> targets = graph.targets(vertex);
+            Map<L, Integer> sources = graph.sources(vertex);
+            boolean present = !targets.isEmpty() || !sources.isEmpty();
+            if (!present) {
+                // Only an isolated or removed vertex needs the vertex set, which graphs copy
+                if (graphVertices == null) {
+                    graphVertices = graph.vertices();
+                }
+                present = graphVertices.contains(vertex);
+            }
+            boolean wasPresent = contains(newRows, vertex);
+            if (!present && !wasPresent) {
+                continue;
+            }
+            newVertexCount += (present ? 1 : 0) - (wasPresent ? 1 : 0);
+            newEdgeCount += targets.size() - targets(newRows, vertex).size();
+            newRows = newRows.with(vertex, present ? new Row<>(targets, sources) : Row.absent());
+        }
+        FrozenGraph<L> frozen = new FrozenGraph<>(base, newRows, newVertexCount, newEdgeCount);
+        frozen.checkRep(changed);
+        return frozen;
+    }
+
+    /**
+     * @return the number of edges in this graph
+     */
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+    @Override
+    public boolean add(L vertex) {
+        throw new UnsupportedOperationException("FrozenGraph is immutable");
+    }
+
+    @Override
+    public int set(L source, L target, int weight) {
+        throw new UnsupportedOperationException("FrozenGraph is immutable");
+    }
+
+    @Override
+    public boolean remove(L vertex) {
+        throw new UnsupportedOperationException("FrozenGraph is immutable");
+    }
+
+    @Override
+    public Set<L> vertices() {
+        return vertices;
+    }
+
+    @Override
+    public Map<L, Integer> sources(L target) {
+        return sourceRow(target);
+    }
+
+    @Override
+    public Map<L, Integer> targets(L source) {
+        return targets(rows, source);
+    }
+
+    // Return the sources of target in base overridden by rows
+    private RowMap<L> sourceRow(L target) {
+        Row<L> row = rows.get(target);
+        if (row != null) {
+            return row.sources;
+        }
+        return base == null ? RowMap.empty() : base.sources(target);
+    }
+
+    // Return the targets of source in base overridden by rows
+    private RowMap<L> targets(HashTrie<L, Row<L>> rows, L source) {
+        Row<L> row = rows.get(source);
+        if (row != null) {
+            return row.targets;
+        }
+        return base == null ? RowMap.empty() : base.targets(source);
+    }
+
+    // Return whether vertex is in base overridden by rows
+    private boolean contains(HashTrie<L, Row<L>> rows, Object vertex) {
+        Row<L> row = rows.get(vertex);
+        if (row != null) {
+            return row != Row.<L>absent();
+        }
+        return base != null && base.id(vertex) >= 0;
+    }
+
+    @Override
+    public void forEachTarget(L source, EdgeVisitor<? super L> visitor) {
+        targets(rows, source).forEachEdge(visitor);
+    }
+
+    @Override
+    public void forEachSource(L target, EdgeVisitor<? super L> visitor) {
+        sourceRow(target).forEachEdge(visitor);
+    }
+
+    @Override
+    public int outDegree(L source) {
+        return targets(source).size();
+    }
+
+    @Override
+    public int inDegree(L target) {
+        return sources(target).size();
+    }
+
+    @Override
+    public int weight(L source, L target) {
+        return targets(rows, source).weight(target);
+    }
+
+    static int hash(Object label) {
+        int h = label.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Vertices: ").append(vertices).append("\nEdges:\n");
+        for (L source : vertices) {
+            for (Map.Entry<L, Integer> edge : targets(source).entrySet()) {
+                sb.append(String.format("Edge from %s to %s with weight %d", source, edge.getKey(), edge.getValue()))
+                        .append("\n");
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * The adjacency of one vertex that changed since the base was built, or
+     * the absence of a vertex that was removed. Immutable.
+     */
+    private static final class Row<L> {
+        private static final Row<?> ABSENT = new Row<>(Map.of(), Map.of());
+
+        private final RowMap<L> targets;
+        private final RowMap<L> sources;
+
+        // Copy the targets and sources of a vertex
+        Row(Map<L, Integer> targets, Map<L, Integer> sources) {
+            this.targets = HashRow.copyOf(targets);
+            this.sources = HashRow.copyOf(sources);
+        }
+
+        @SuppressWarnings("unchecked")
+        static <L> Row<L> absent() {
+            return (Row<L>) ABSENT;
+        }
+    }
+
+    /**
+     * An immutable map view of the edges out of or into one vertex, that can
+     * also be read without boxing weights or allocating entries.
+     */
+    private abstract static class RowMap<L> extends AbstractMap<L, Integer> {
+        private static final RowMap<?> EMPTY = new HashRow<>(new Object[1], new int[1], 0);
+
+        @SuppressWarnings("unchecked")
+        static <L> RowMap<L> empty() {
+            return (RowMap<L>) EMPTY;
+        }
+
+        // Return the weight of the edge to or from vertex, or 0 if there is none
+        abstract int weight(Object vertex);
+
+        // Visit each edge of this row with its other end and weight
+        abstract void forEachEdge(EdgeVisitor<? super L> visitor);
+
+        @Override
+        public boolean containsKey(Object key) {
+            return weight(key) > 0;
+        }
+
+        @Override
+        public Integer get(Object key) {
+            int weight = weight(key);
+            return weight == 0 ? null : weight;
+        }
+    }
+
+    /**
+     * The edges of a row rebuilt by refreezing, in an open-addressing table of
+     * labels and primitive weights.
+     */
+    private static final class HashRow<L> extends RowMap<L> {
+        private final Object[] keys;
+        private final int[] weights;
+        private final int size;
+
+        // Abstraction function:
+        //   Represents the edge to or from keys[i] of weight weights[i] for each non-null keys[i].
+        // Representation invariant:
+        //   - keys holds size distinct labels, probed linearly from their hashes, and null in at
+        //     least one slot; its length is a power of two, and weights has the same length.
+
+        private HashRow(Object[] keys, int[] weights, int size) {
+            this.keys = keys;
+            this.weights = weights;
+            this.size = size;
+        }
+
+        // Return a row of the edges of a map from labels to positive weights
+        static <L> RowMap<L> copyOf(Map<L, Integer> row) {
+            if (row.isEmpty()) {
+                return RowMap.empty();
+            }
+            int capacity = Integer.highestOneBit(row.size() * 2) * 2;
+            Object[] keys = new Object[capacity];
+            int[] weights = new int[capacity];
+            for (Map.Entry<L, Integer> edge : row.entrySet()) {
+                int slot = hash(edge.getKey()) & (capacity - 1);
+                while (keys[slot] != null) {
+                    slot = (slot + 1) & (capacity - 1);
+                }
+                keys[slot] = edge.getKey();
+                weights[slot] = edge.getValue();
+            }
+            return new HashRow<>(keys, weights, row.size());
+        }
+
+        @Override
+        int weight(Object vertex) {
+            int slot = hash(vertex) & (keys.length - 1);
+            for (Object key = keys[slot]; key != null; key = keys[slot]) {
+                if (key.equals(vertex)) {
+                    return weights[slot];
+                }
+                slot = (slot + 1) & (keys.length - 1);
+            }
+            return 0;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        void forEachEdge(EdgeVisitor<? super L> visitor) {
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (keys[slot] != null) {
+                    visitor.visit((L) keys[slot], weights[slot]);
+                }
+            }
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Set<Map.Entry<L, Integer>> entrySet() {
+            return new AbstractSet<Map.Entry<L, Integer>>() {
+                @Override
+                public int size() {
+                    return size;
+                }
+
+                @Override
+                public Iterator<Map.Entry<L, Integer>> iterator() {
+                    return new Iterator<Map.Entry<L, Integer>>() {
+                        private int slot = advance(0);
+
+                        // Return the first occupied slot at or after from, or keys.length
+                        private int advance(int from) {
+                            while (from < keys.length && keys[from] == null) {
+                                from++;
+                            }
+                            return from;
+                        }
+
+                        @Override
+                        public boolean hasNext() {
+                            return slot < keys.length;
+                        }
+
+                        @Override
+                        @SuppressWarnings("unchecked")
+                        public Map.Entry<L, Integer> next() {
+                            if (slot >= keys.length) {
+                                throw new NoSuchElementException();
+                            }
+                            Map.Entry<L, Integer> edge = new SimpleImmutableEntry<>((L) keys[slot], weights[slot]);
+                            slot = advance(slot + 1);
+                            return edge;
+                        }
+                    };
+                }
+            };
+        }
+    }
+
+    /**
+     * The vertices of this graph: those of the base not overridden by a row,
+     * then those with a present row.
+     */
+    private final class Vertices extends AbstractSet<L> {
+
+        @Override
+        public int size() {
+            return vertexCount;
+        }
+
+        @Override
+        public boolean contains(Object vertex) {
+            return FrozenGraph.this.contains(rows, vertex);
+        }
+
+        @Override
+        public Iterator<L> iterator() {
+            return new Iterator<L>() {
+                private int id = 0;
+                private final Iterator<Map.Entry<L, Row<L>>> changed = rows.iterator();
+                private L next = advance();
+
+                // Return the vertex after the current one, or null if there are no more
+                private L advance() {
+                    if (base != null) {
+                        while (id < base.labels.length) {
+                            L label = base.labels[id++];
+                            if (label != null && rows.get(label) == null) {
+                                return label;
+                            }
+                        }
+                    }
+                    while (changed.hasNext()) {
+                        Map.Entry<L, Row<L>> row = changed.next();
+                        if (row.getValue() != Row.<L>absent()) {
+                            return row.getKey();
+                        }
+                    }
+                    return null;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return next != null;
+                }
+
+                @Override
+                public L next() {
+                    if (next == null) {
+                        throw new NoSuchElementException();
+                    }
+                    L vertex = next;
+                    next = advance();
+                    return vertex;
+                }
+            };
+        }
+    }
+
+    /**
+     * Compressed sparse rows of the edges out of and into each vertex id, with
+     * an open-addressing table from labels to ids, viewed as immutable maps
+     * that are created the first time each row is read.
+     */
+    private static final class Base<L> {
+        private final L[] labels;
+        private final int[] table;
+        private final int[] offsets;
+        private final int[] targetIds;
+        private final int[] weights;
+        private volatile CompactGraph.ReverseRows reverse;
+        private final AtomicReferenceArray<RowMap<L>> targetRows;
+        private final AtomicReferenceArray<RowMap<L>> sourceRows;
+        private final int vertexCount;
+
+        // Abstraction function:
+        //   Represents the graph whose vertices are the non-null labels, with an edge from
+        //   labels[s] to labels[targetIds[i]] of weight weights[i] for each i in
+        //   [offsets[s], offsets[s + 1]).
+        // Representation invariant:
+        //   - Each row of targetIds is sorted, and reverse is null or the reverse rows of the rows.
+        //   - table holds id + 1 of every non-null label, probed linearly from its hash, and 0 in
+        //     at least one slot; its length is a power of two.
+        //   - targetRows[id] and sourceRows[id] are null or views of the rows of id.
+
+        Base(L[] labels, int[] offsets, int[] targetIds, int[] weights, CompactGraph.ReverseRows reverse) {
+            this.labels = labels;
+            this.offsets = offsets;
+            this.targetIds = targetIds;
+            this.weights = weights;
+            this.reverse = reverse;
+            this.targetRows = new AtomicReferenceArray<>(labels.length);
+            this.sourceRows = new AtomicReferenceArray<>(labels.length);
+            this.table = new int[Integer.highestOneBit(Math.max(1, labels.length) * 2) * 2];
+            int count = 0;
+            for (int id = 0; id < labels.length; id++) {
+                if (labels[id] != null) {
+                    int slot = hash(labels[id]) & (table.length - 1);
+                    while (table[slot] != 0) {
+                        slot = (slot + 1) & (table.length - 1);
+                    }
+                    table[slot] = id + 1;
+                    count++;
+                }
+            }
+            this.vertexCount = count;
+            if (Validation.checkTouched()) {
+                checkRep(); // Every edge was just handed over
+            }
+        }
+
+        private void checkRep() {
+            assert offsets.length == labels.length + 1 && offsets[labels.length] == targetIds.length;
+            assert reverse == null || reverse.inOffsets[labels.length] == targetIds.length;
+            for (int weight : weights) {
+                assert weight > 0;
+            }
+        }
+
+        // Return the id of label, or -1 if it is not a vertex
+        int id(Object label) {
+            int slot = hash(label) & (table.length - 1);
+            while (table[slot] != 0) {
+                int id = table[slot] - 1;
+                if (labels[id].equals(label)) {
+                    return id;
+                }
+                slot = (slot + 1) & (table.length - 1);
+            }
+            return -1;
+        }
+
+        RowMap<L> targets(L source) {
+            int id = id(source);
+            return id < 0 ? RowMap.empty() : row(targetRows, id, false);
+        }
+
+        RowMap<L> sources(L target) {
+            int id = id(target);
+            return id < 0 ? RowMap.empty() : row(sourceRows, id, true);
+        }
+
+        // Return the reverse rows, building them if this is the first read of incoming edges;
+        // racing readers may each build them, and either copy may be kept, since they are equal
+        private CompactGraph.ReverseRows reverse() {
+            CompactGraph.ReverseRows rows = reverse;
+            if (rows == null) {
+                rows = CompactGraph.ReverseRows.of(labels.length, offsets, targetIds);
+                reverse = rows;
+            }
+            return rows;
+        }
+
+        // Return the cached view of row id, creating it if this is the first read
+        private RowMap<L> row(AtomicReferenceArray<RowMap<L>> views, int id, boolean incoming) {
+            RowMap<L> view = views.get(id);
+            if (view == null) {
+                views.compareAndSet(id, null, new RowView(id, incoming));
+                view = views.get(id);
+            }
+            return view;
+        }
+
+        /** An immutable map view of the edges out of or into one vertex. */
+        private final class RowView extends RowMap<L> {
+            private final int from;
+            private final int to;
+            private final int[] others;
+            private final int[] edges;
+
+            // An incoming row lists its sources in others and their edges' indices in edges; an
+            // outgoing row lists its targets in others, and edges is null
+            RowView(int id, boolean incoming) {
+                CompactGraph.ReverseRows rows = incoming ? reverse() : null;
+                int[] bounds = incoming ? rows.inOffsets : offsets;
+                this.from = bounds[id];
+                this.to = bounds[id + 1];
+                this.others = incoming ? rows.sourceIds : targetIds;
+                this.edges = incoming ? rows.inEdges : null;
+            }
+
+            @Override
+            public int size() {
+                return to - from;
+            }
+
+            @Override
+            int weight(Object vertex) {
+                int id = id(vertex);
+                if (id < 0) {
+                    return 0;
+                }
+                int index = Arrays.binarySearch(others, from, to, id);
+                return index < 0 ? 0 : weightAt(index);
+            }
+
+            @Override
+            void forEachEdge(EdgeVisitor<? super L> visitor) {
+                for (int index = from; index < to; index++) {
+                    visitor.visit(labels[others[index]], weightAt(index));
+                }
+            }
+
+            // Return the weight of the edge at index of this row's arrays
+            private int weightAt(int index) {
+                return edges == null ? weights[index] : weights[edges[index]];
+            }
+
+            @Override
+            public Set<Map.Entry<L, Integer>> entrySet() {
+                return new AbstractSet<Map.Entry<L, Integer>>() {
+                    @Override
+                    public int size() {
+                        return to - from;
+                    }
+
+                    @Override
+                    public Iterator<Map.Entry<L, Integer>> iterator() {
+                        return new Iterator<Map.Entry<L, Integer>>() {
+                            private int index = from;
+
+                            @Override
+                            public boolean hasNext() {
+                                return index < to;
+                            }
+
+                            @Override
+                            public Map.Entry<L, Integer> next() {
+                                if (index >= to) {
+                                    throw new NoSuchElementException();
+                                }
+                                Map.Entry<L, Integer> edge = new SimpleImmutableEntry<>(labels[others[index]], weightAt(index));
+                                index++;
+                                return edge;
+                            }
+                        };
+                    }
+                };
+            }
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Tests for FrozenGraph.
+ */
+public class FrozenGraphTest {
+
+    // Testing strategy
+    //   freeze(): empty graph, graph with isolated vertices and edges, already frozen graph
+    //   refreeze(): no changes, edge added, edge reweighted, vertex removed, vertex added
+    //   rows: unchanged rows shared with the previous snapshot, results shared across calls
+    //   mutators: all throw
+    //   snapshot: unaffected by later changes to the original graph
+    //   compact rows: frozen CompactGraph and AdaptiveGraph, with pending and removed edges,
+    //     refrozen over, unaffected by later in-place updates, rows unmodifiable
+    //   traversal: forEachTarget, forEachSource and weight on compact rows and refrozen rows,
+    //     agreeing with targets and sources
+
+    @Test(expected = AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    @Test
+    public void testFreezeCopiesGraph() {
+        Graph<String> graph = new ConcreteEdgesGraph();
+        graph.add("X");
+        graph.set("A", "B", 5);
+        graph.set("B", "A", 2);
+
+        FrozenGraph<String> frozen = FrozenGraph.freeze(graph);
+        graph.set("A", "C", 1);
+        assertEquals(Set.of("A", "B", "X"), frozen.vertices());
+        assertEquals(Map.of("B", 5), frozen.targets("A"));
+        assertEquals(Map.of("B", 2), frozen.sources("A"));
+        assertEquals(Map.of(), frozen.targets("C"));
+        assertEquals(2, frozen.edgeCount());
+        assertEquals(5, frozen.weight("A", "B"));
+        assertEquals(1, frozen.outDegree("B"));
+    }
+
+    @Test
+    public void testFreezeEmptyAndFrozen() {
+        FrozenGraph<String> frozen = FrozenGraph.freeze(new HashGraph<>());
+        assertEquals(Set.of(), frozen.vertices());
+        assertSame(frozen, FrozenGraph.freeze(frozen));
+    }
+
+    @Test
+    public void testResultsShared() {
+        Graph<String> graph = new ConcreteEdgesGraph();
+        graph.set("A", "B", 5);
+        FrozenGraph<String> frozen = FrozenGraph.freeze(graph);
+        assertSame(frozen.targets("A"), frozen.targets("A"));
+        assertSame(frozen.vertices(), frozen.vertices());
+    }
+
+    @Test
+    public void testRefreezeRebuildsOnlyChangedRows() {
+        Graph<String> graph = new ConcreteEdgesGraph();
+        graph.set("A", "B", 5);
+        graph.set("C", "D", 1);
+        graph.set("D", "E", 2);
+        FrozenGraph<String> frozen = FrozenGraph.freeze(graph);
+
+        graph.set("A", "B", 6);
+        graph.set("A", "F", 3);
+        FrozenGraph<String> refrozen = frozen.refreeze(graph, List.of("A", "B", "F"));
+        assertEquals(Map.of("B", 6, "F", 3), refrozen.targets("A"));
+        assertEquals(Map.of("A", 3), refrozen.sources("F"));
+        assertEquals(Map.of("B", 5), frozen.targets("A"));
+        assertSame(frozen.targets("C"), refrozen.targets("C"));
+        assertSame(frozen.sources("E"), refrozen.sources("E"));
+        assertEquals(4, refrozen.edgeCount());
+        assertSame(refrozen, refrozen.refreeze(graph, List.of()));
+    }
+
+    @Test
+    public void testRefreezeRemovedVertex() {
+        Graph<String> graph = new ConcreteEdgesGraph();
+        graph.set("A", "B", 5);
+        graph.set("B", "C", 1);
+        FrozenGraph<String> frozen = FrozenGraph.freeze(graph);
+
+        graph.remove("B");
+        FrozenGraph<String> refrozen = frozen.refreeze(graph, List.of("A", "B", "C"));
+        assertEquals(Set.of("A", "C"), refrozen.vertices());
+        assertEquals(Map.of(), refrozen.targets("A"));
+        assertEquals(Map.of(), refrozen.sources("C"));
+        assertEquals(0, refrozen.edgeCount());
+    }
+
+    @Test
+    public void testFreezeCompactRows() {
+        CompactGraph<String> graph = new CompactGraph<>();
+        graph.set("A", "B", 5);
+        graph.set("A", "C", 2);
+        graph.set("C", "A", 3);
+        graph.set("D", "C", 1);
+        graph.compact();
+        graph.set("B", "D", 4); // Pending
+        graph.set("D", "C", 0); // Removed in place
+        graph.add("X");
+
+        FrozenGraph<String> frozen = FrozenGraph.freeze(graph);
+        graph.set("A", "B", 7);
+        graph.remove("C");
+        assertEquals(Set.of("A", "B", "C", "D", "X"), frozen.vertices());
+        assertEquals(Map.of("B", 5, "C", 2), frozen.targets("A"));
+        assertEquals(Map.of("A", 2), frozen.sources("C"));
+        assertEquals(Map.of("B", 4), frozen.sources("D"));
+        assertEquals(Map.of(), frozen.targets("X"));
+        assertEquals(Map.of(), frozen.targets("Y"));
+        assertEquals(4, frozen.edgeCount());
+        assertEquals(5, frozen.weight("A", "B"));
+        assertEquals(0, frozen.weight("D", "C"));
+        assertEquals(2, frozen.inDegree("A") + frozen.outDegree("C"));
+        assertSame(frozen.targets("A"), frozen.targets("A"));
+    }
+
+    @Test
+    public void testRefreezeCompactRows() {
+        AdaptiveGraph<String> graph = new AdaptiveGraph<>(new AdaptiveGraph.Thresholds(0, 0, 0, 0));
+        graph.set("A", "B", 5);
+        graph.set("B", "C", 1);
+        graph.set("C", "D", 2);
+        FrozenGraph<String> frozen = FrozenGraph.freeze(graph);
+        assertEquals(AdaptiveGraph.Representation.COMPACT, graph.representation());
+
+        graph.set("A", "B", 6);
+        graph.remove("C");
+        graph.set("E", "A", 1);
+        FrozenGraph<String> refrozen = frozen.refreeze(graph, List.of("A", "B", "C", "D", "E"));
+        assertEquals(Set.of("A", "B", "D", "E"), refrozen.vertices());
+        assertEquals(Map.of("B", 6), refrozen.targets("A"));
+        assertEquals(Map.of("E", 1), refrozen.sources("A"));
+        assertEquals(Map.of(), refrozen.targets("B"));
+        assertEquals(Map.of(), refrozen.sources("D"));
+        assertEquals(2, refrozen.edgeCount());
+        assertEquals(Map.of("B", 5), frozen.targets("A"));
+        assertEquals(Set.of("A", "B", "C", "D"), frozen.vertices());
+    }
+
+    @Test
+    public void testTraversalMatchesRows() {
+        CompactGraph<String> graph = new CompactGraph<>();
+        for (int i = 0; i < 20; i++) {
+            graph.set("v" + i, "v" + (i * 7 % 20), i + 1);
+            graph.set("v" + i, "v" + (i * 3 % 20), 2 * i + 1);
+        }
+        FrozenGraph<String> frozen = FrozenGraph.freeze(graph);
+        graph.set("v1", "v2", 9);
+        graph.set("v2", "v5", 4);
+        graph.remove("v3");
+        FrozenGraph<String> refrozen = frozen.refreeze(graph, List.of("v0", "v1", "v2", "v3", "v5", "v9"));
+
+        for (FrozenGraph<String> snapshot : List.of(frozen, refrozen)) {
+            for (String vertex : snapshot.vertices()) {
+                Map<String, Integer> targets = new HashMap<>();
+                snapshot.forEachTarget(vertex, (target, weight) -> assertNull(targets.put(target, weight)));
+                assertEquals(snapshot.targets(vertex), targets);
+                Map<String, Integer> sources = new HashMap<>();
+                snapshot.forEachSource(vertex, (source, weight) -> assertNull(sources.put(source, weight)));
+                assertEquals(snapshot.sources(vertex), sources);
+                for (String other : snapshot.vertices()) {
+                    Integer weight = snapshot.targets(vertex).get(other);
+                    assertEquals(weight == null ? 0 : weight, snapshot.weight(vertex, other));
+                }
+            }
+        }
+        assertEquals(9, refrozen.weight("v1", "v2"));
+        assertEquals(0, refrozen.weight("v3", "v9"));
+        assertEquals(0, refrozen.weight("missing", "v1"));
+        refrozen.forEachTarget("v3", (target, weight) -> fail("expected no edges from a removed vertex"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testRefrozenRowsUnmodifiable() {
+        Graph<String> graph = new ConcreteEdgesGraph();
+        graph.set("A", "B", 5);
+        FrozenGraph.freeze(graph).targets("A").put("C", 1);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testCompactRowsUnmodifiable() {
+        CompactGraph<String> graph = new CompactGraph<>();
+        graph.set("A", "B", 5);
+        FrozenGraph.freeze(graph).targets("A").put("C", 1);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testAddUnsupported() {
+        FrozenGraph.<String>empty().add("A");
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testSetUnsupported() {
+        FrozenGraph.<String>empty().set("A", "B", 1);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testRemoveUnsupported() {
+        FrozenGraph.<String>empty().remove("A");
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testVerticesUnmodifiable() {
+        Graph<String> graph = new ConcreteEdgesGraph();
+        graph.add("A");
+        FrozenGraph.freeze(graph).vertices().add("B");
+    }
+}
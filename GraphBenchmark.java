@@ -0,0 +1,200 @@
+package graph;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of each Graph operation on the String graph
+ * implementations, over seeded random graphs of several sizes and densities.
+ *
+ * <p>Run with, for example,
+ * {@code java -jar benchmarks/target/benchmarks.jar GraphBenchmark -p size=1000}.
+ * Mutating operations are undone outside the timed region, so every
+ * invocation sees the same graph shape.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraphBenchmark {
+
+    private static final Map<String, Supplier<Graph<String>>> IMPLEMENTATIONS = new LinkedHashMap<>();
+    static {
+        IMPLEMENTATIONS.put("ConcreteEdgesGraph", ConcreteEdgesGraph::new);
+        IMPLEMENTATIONS.put("ConcreteVerticesGraph", ConcreteVerticesGraph::new);
+        IMPLEMENTATIONS.put("CompactGraph", CompactGraph::new);
+        IMPLEMENTATIONS.put("ConcurrentGraph", ConcurrentGraph::new);
+        IMPLEMENTATIONS.put("AdaptiveGraph", AdaptiveGraph::new);
+        IMPLEMENTATIONS.put("OffHeapGraph", OffHeapGraph::new);
+    }
+
+    /** Name of the implementation under test, a key of IMPLEMENTATIONS. */
+    @Param({"ConcreteEdgesGraph", "ConcreteVerticesGraph", "CompactGraph", "ConcurrentGraph",
+            "AdaptiveGraph", "OffHeapGraph"})
+    public String implementation;
+
+    /** Number of vertices. */
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    /** Average out-degree; the graph has size * density random edges. */
+    @Param({"2", "8", "32"})
+    public int density;
+
+    private Supplier<Graph<String>> factory;
+    private String[] labels;
+    private int[] sources;
+    private int[] targets;
+    private int[] picks;
+    private int next;
+    private Graph<String> graph;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        factory = IMPLEMENTATIONS.get(implementation);
+        if (factory == null) throw new IllegalArgumentException("Unknown implementation: " + implementation);
+        labels = new String[size];
+        for (int i = 0; i < size; i++) {
+            labels[i] = "v" + i;
+        }
+        Random random = new Random(size * 31L + density);
+        sources = new int[size * density];
+        targets = new int[size * density];
+        for (int e = 0; e < sources.length; e++) {
+            sources[e] = random.nextInt(size);
+            targets[e] = random.nextInt(size);
+        }
+        picks = new int[1 << 14];
+        for (int i = 0; i < picks.length; i++) {
+            picks[i] = random.nextInt(size);
+        }
+        graph = build();
+    }
+
+    // Return the next of a fixed cycle of random vertex indices
+    private int pick() {
+        next = (next + 1) & (picks.length - 1);
+        return picks[next];
+    }
+
+    /**
+     * @return a new graph of every label and random edge, each of weight 1
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Graph<String> build() {
+        Graph<String> built = factory.get();
+        for (String label : labels) {
+            built.add(label);
+        }
+        for (int e = 0; e < sources.length; e++) {
+            built.set(labels[sources[e]], labels[targets[e]], 1);
+        }
+        return built;
+    }
+
+    @Benchmark
+    public int targets() {
+        return graph.targets(labels[pick()]).size();
+    }
+
+    @Benchmark
+    public int sources() {
+        return graph.sources(labels[pick()]).size();
+    }
+
+    @Benchmark
+    public int vertices() {
+        return graph.vertices().size();
+    }
+
+    /**
+     * @return the previous weight of a random edge, which alternates between 1 and 2
+     */
+    @Benchmark
+    public int set() {
+        int e = pick() % sources.length;
+        return graph.set(labels[sources[e]], labels[targets[e]], 1 + (next & 1));
+    }
+
+    /**
+     * @param fresh a label not yet in the graph, removed again after the call
+     * @return whether the label was added
+     */
+    @Benchmark
+    public boolean add(FreshVertex fresh) {
+        return graph.add(fresh.label);
+    }
+
+    /**
+     * @param removal a connected vertex, restored with its edges after the call
+     * @return whether the vertex was removed
+     */
+    @Benchmark
+    public boolean remove(ConnectedVertex removal) {
+        return graph.remove(removal.label);
+    }
+
+    /** A label that is not in the graph during an invocation. */
+    @State(Scope.Thread)
+    public static class FreshVertex {
+        private String label;
+        private int count;
+        private Graph<String> graph;
+
+        @Setup(Level.Invocation)
+        public void setUp(GraphBenchmark benchmark) {
+            graph = benchmark.graph;
+            label = "fresh" + count++;
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() {
+            graph.remove(label);
+        }
+    }
+
+    /** A random vertex of the graph, with its edges saved so it can be restored. */
+    @State(Scope.Thread)
+    public static class ConnectedVertex {
+        private String label;
+        private Map<String, Integer> in;
+        private Map<String, Integer> out;
+        private Graph<String> graph;
+
+        @Setup(Level.Invocation)
+        public void setUp(GraphBenchmark benchmark) {
+            graph = benchmark.graph;
+            label = benchmark.labels[benchmark.pick()];
+            in = new HashMap<>(graph.sources(label));
+            out = new HashMap<>(graph.targets(label));
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() {
+            graph.add(label);
+            in.forEach((source, weight) -> graph.set(source, label, weight));
+            out.forEach((target, weight) -> graph.set(label, target, weight));
+        }
+    }
+}
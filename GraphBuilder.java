@@ -0,0 +1,145 @@
+package graph;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Accumulates weight increments for the edges of a graph and applies them in
+ * batches.
+ *
+ * <p>Increments to the same edge are merged in a local table, and each batch
+ * changes each distinct edge with a single update, so readers of the graph
+ * never see a partly applied increment: a {@link ConcurrentGraph} is
+ * incremented atomically, a {@link TraversableGraph} is read and then set
+ * without copying an adjacency map, and any other graph has its weight read
+ * from {@link Graph#targets} before it is set.
+ *
+ * @param <L> type of vertex labels in the graph, must be immutable
+ */
+public class GraphBuilder<L> {
+
+    /** Number of distinct pending edges that triggers a flush by default. */
+    public static final int DEFAULT_BATCH_SIZE = 1 << 16;
+
+    private final Graph<L> graph;
+    private final int batchSize;
+    private final Map<L, Map<L, int[]>> pending = new HashMap<>();
+    private int pendingSize = 0;
+
+    // Abstraction function:
+    //   Represents graph with the weight of each edge (s, t) increased by pending[s][t][0].
+    // Representation invariant:
+    //   - batchSize > 0, and pendingSize is the number of (s, t) pairs in pending, at most batchSize.
+    //   - Every pending increment is positive.
+    // Safety from rep exposure:
+    //   - All fields are private; graph is shared with the caller by design, and pending is
+    //     never returned.
+
+    /**
+     * Create a builder that adds to a graph in batches of the default size.
+     *
+     * @param graph graph to add edge weights to, for example an empty graph
+     */
+    public GraphBuilder(Graph<L> graph) {
+        this(graph, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Create a builder that adds to a graph.
+     *
+     * @param graph graph to add edge weights to, for example an empty graph
+     * @param batchSize number of distinct pending edges that triggers a flush,
+     *        must be positive
+     */
+    public GraphBuilder(Graph<L> graph, int batchSize) {
+        if (batchSize <= 0) throw new IllegalArgumentException("Batch size must be positive");
+        this.graph = graph;
+        this.batchSize = batchSize;
+        checkRep();
+    }
+
+    // Check representation invariant
+    private void checkRep() {
+        assert batchSize > 0;
+        assert pendingSize <= batchSize;
+    }
+
+    /**
+     * Increase the weight of an edge, adding the edge and its vertices to the
+     * graph if needed. The change may not be visible in the graph until the
+     * next flush.
+     *
+     * @param source label of the source vertex
+     * @param target label of the target vertex
+     * @param delta positive amount to add to the weight of the edge
+     */
+    public void increment(L source, L target, int delta) {
+        if (delta <= 0) throw new IllegalArgumentException("Increment must be positive");
+
+        int[] weight = pending.computeIfAbsent(source, s -> new HashMap<>()).get(target);
+        if (weight == null) {
+            pending.get(source).put(target, new int[] {delta});
+            if (++pendingSize >= batchSize) {
+                flush();
+            }
+        } else {
+            weight[0] = Math.addExact(weight[0], delta);
+        }
+    }
+
+    /**
+     * Apply all pending increments to the graph.
+     *
+     * @throws ArithmeticException if an edge weight would overflow an int;
+     *         that edge keeps its weight and its increment stays pending,
+     *         along with any increments not yet applied, while those already
+     *         applied are no longer pending
+     */
+    public void flush() {
+        try {
+            for (Iterator<Map.Entry<L, Map<L, int[]>>> rows = pending.entrySet().iterator(); rows.hasNext();) {
+                Map.Entry<L, Map<L, int[]>> row = rows.next();
+                for (Iterator<Map.Entry<L, int[]>> edges = row.getValue().entrySet().iterator(); edges.hasNext();) {
+                    Map.Entry<L, int[]> edge = edges.next();
+                    apply(row.getKey(), edge.getKey(), edge.getValue()[0]);
+                    edges.remove();
+                    pendingSize--;
+                }
+                rows.remove();
+            }
+        } finally {
+            checkRep();
+        }
+    }
+
+    // Add delta to the weight of an edge with a single update, leaving the graph unchanged if
+    // the sum overflows
+    private void apply(L source, L target, int delta) {
+        if (graph instanceof ConcurrentGraph) {
+            // L is String, since graph is a Graph<String>
+            ((ConcurrentGraph) graph).increment((String) source, (String) target, delta);
+            return;
+        }
+        int previousWeight;
+        if (graph instanceof TraversableGraph) {
+            previousWeight = ((TraversableGraph<L>) graph).weight(source, target);
+        } else {
+            Integer weight = graph.targets(source).get(target);
+            previousWeight = weight == null ? 0 : weight;
+        }
+        graph.set(source, target, Math.addExact(previousWeight, delta));
+    }
+
+    /**
+     * Apply all pending increments and return the graph.
+     *
+     * @return the graph this builder adds to
+     * @throws ArithmeticException if an edge weight would overflow an int, as
+     *         for {@link #flush()}
+     */
+    public Graph<L> build() {
+        flush();
+        return graph;
+    }
+}
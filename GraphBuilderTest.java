@@ -0,0 +1,112 @@
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Tests for GraphBuilder.
+ */
+public class GraphBuilderTest {
+
+    // Testing strategy
+    //   graph: empty, has existing edges
+    //   increments: repeated edge within a batch, across batches
+    //   delta: positive, zero or negative (rejected)
+    //   overflow: of an existing edge weight, on a traversable graph and on a plain graph, then
+    //     retried
+    //   updates: one set() per existing edge on a plain graph, atomic increment on ConcurrentGraph
+
+    // Test that repeated increments within a batch are merged
+    @Test
+    public void testIncrementMerged() {
+        GraphBuilder<String> builder = new GraphBuilder<>(new ConcreteEdgesGraph());
+        builder.increment("A", "B", 1);
+        builder.increment("A", "B", 2);
+        builder.increment("B", "A", 1);
+        Graph<String> graph = builder.build();
+        assertEquals(Map.of("B", 3), graph.targets("A"));
+        assertEquals(Map.of("A", 1), graph.targets("B"));
+    }
+
+    // Test that increments add to existing edges, across batches
+    @Test
+    public void testIncrementAcrossBatches() {
+        Graph<String> graph = new ConcreteVerticesGraph();
+        graph.set("A", "B", 5);
+        GraphBuilder<String> builder = new GraphBuilder<>(graph, 2);
+        for (int i = 0; i < 10; i++) {
+            builder.increment("A", "B", 1);
+            builder.increment("A", "C" + (i % 3), 1);
+        }
+        builder.build();
+        assertEquals(Map.of("B", 15, "C0", 4, "C1", 3, "C2", 3), graph.targets("A"));
+    }
+
+    // Test that non-positive increments are rejected
+    @Test(expected = IllegalArgumentException.class)
+    public void testIncrementZero() {
+        new GraphBuilder<>(new ConcreteEdgesGraph()).increment("A", "B", 0);
+    }
+
+    // Test that an overflowing edge keeps its weight, and a retry applies every edge once
+    @Test
+    public void testOverflowKeepsWeight() {
+        assertOverflowKeepsWeight(new ConcreteEdgesGraph());
+        assertOverflowKeepsWeight(new InstrumentedGraph<>(new ConcreteEdgesGraph()));
+    }
+
+    private static void assertOverflowKeepsWeight(Graph<String> graph) {
+        graph.set("A", "B", Integer.MAX_VALUE - 1);
+        GraphBuilder<String> builder = new GraphBuilder<>(graph);
+        builder.increment("A", "B", 5);
+        for (int i = 0; i < 10; i++) {
+            builder.increment("C", "D" + i, 1);
+        }
+        try {
+            builder.build();
+            fail("expected overflow");
+        } catch (ArithmeticException e) {
+            assertEquals((Integer) (Integer.MAX_VALUE - 1), graph.targets("A").get("B"));
+        }
+
+        // The overflowing increment stays pending, and edges applied before it are not reapplied
+        graph.set("A", "B", 1);
+        builder.build();
+        assertEquals(Map.of("B", 6), graph.targets("A"));
+        assertEquals(10, graph.targets("C").size());
+        for (int weight : graph.targets("C").values()) {
+            assertEquals(1, weight);
+        }
+    }
+
+    // Test that an existing edge of a plain graph is updated with a single set(), so readers
+    // never see the increment alone as its weight
+    @Test
+    public void testSingleSetPerEdge() {
+        InstrumentedGraph<String> graph = new InstrumentedGraph<>(new ConcreteEdgesGraph());
+        graph.set("A", "B", 5);
+        GraphBuilder<String> builder = new GraphBuilder<>(graph);
+        builder.increment("A", "B", 2);
+        builder.increment("A", "C", 1);
+        builder.build();
+        assertEquals(Map.of("B", 7, "C", 1), graph.targets("A"));
+        assertEquals(1, graph.snapshot(InstrumentedGraph.Operation.SET_UPDATE).getCalls());
+        assertEquals(2, graph.snapshot(InstrumentedGraph.Operation.SET_ADD).getCalls());
+    }
+
+    // Test increments to a concurrent graph
+    @Test
+    public void testConcurrentGraph() {
+        ConcurrentGraph graph = new ConcurrentGraph();
+        graph.set("A", "B", 5);
+        GraphBuilder<String> builder = new GraphBuilder<>(graph);
+        builder.increment("A", "B", 2);
+        builder.increment("B", "A", 1);
+        builder.build();
+        assertEquals(Map.of("B", 7), graph.targets("A"));
+        assertEquals(Map.of("A", 1), graph.targets("B"));
+    }
+}
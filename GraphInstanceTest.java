@@ -41,6 +41,11 @@
     //             has no targets, has multiple targets
     //      sourceTargets contains all target vertices from source
     //
+    //   Partition for TraversableGraph operations, if implemented
+    //      vertex: doesn't exist in graph, has no edges, has edges removed and updated
+    //      observe forEachTarget(), forEachSource(), outDegree(), inDegree(), weight()
+    //      against targets() and sources()
+    //
 
 
 
@@ -49,9 +54,11 @@ package graph;
 import static org.junit.Assert.*;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -151,4 +158,35 @@ public abstract class GraphInstanceTest {
         assertEquals("expected weight of edge from A to B to be 5", (Integer) 5, targets.get("B"));
         assertEquals("expected weight of edge from A to C to be 10", (Integer) 10, targets.get("C"));
     }
+
+    // Test that primitive traversal agrees with sources() and targets()
+    @Test
+    public void testTraversalMatchesMaps() {
+        // A fresh instance, since subclasses may set up their own graph field instead
+        Graph<String> instance = emptyInstance();
+        Assume.assumeTrue(instance instanceof TraversableGraph);
+        TraversableGraph<String> traversable = (TraversableGraph<String>) instance;
+        instance.add("D");
+        instance.set("A", "B", 5);
+        instance.set("A", "C", 10);
+        instance.set("C", "B", 7);
+        instance.set("B", "B", 2);
+        instance.set("A", "C", 0);
+        instance.set("C", "A", 4);
+        instance.set("C", "A", 3);
+
+        for (String vertex : Set.of("A", "B", "C", "D", "E")) {
+            Map<String, Integer> targets = new HashMap<>();
+            traversable.forEachTarget(vertex, (target, weight) -> assertNull(targets.put(target, weight)));
+            assertEquals(instance.targets(vertex), targets);
+            Map<String, Integer> sources = new HashMap<>();
+            traversable.forEachSource(vertex, (source, weight) -> assertNull(sources.put(source, weight)));
+            assertEquals(instance.sources(vertex), sources);
+            assertEquals(targets.size(), traversable.outDegree(vertex));
+            assertEquals(sources.size(), traversable.inDegree(vertex));
+            for (String other : Set.of("A", "B", "C", "D", "E")) {
+                assertEquals((int) targets.getOrDefault(other, 0), traversable.weight(vertex, other));
+            }
+        }
+    }
 }
@@ -6,22 +6,77 @@ package poet;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.Reader;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.random.RandomGenerator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import graph.FrozenGraph;
+import graph.Graph;
+import graph.GraphBuilder;
+import graph.GraphSnapshot;
+import graph.Validation;
 
 /**
  * A graph-based poetry generator.
  */
 public class GraphPoet {
 
-    private final Graph<String> graph = Graph.empty();
+    /**
+     * Most edges of the rows whose derived values each row cache keeps: alias
+     * tables for walks, ranked rows for bridge searches, and the heaviest
+     * weights of sources rows. Values beyond it are evicted and derived again
+     * when their rows are next read.
+     */
+    static final int ROW_CACHE_EDGES = 1 << 21;
+
+    final Graph<String> graph; // package-private so that GraphPoetTest can inspect it
+    private volatile FrozenGraph<String> snapshot = FrozenGraph.empty();
+    private volatile BridgeCache bridgeCache = null;
+    private volatile BridgeTable bridgeTable = null;
+    private volatile BridgeSearchMetrics searchMetrics = null;
+    private volatile BridgePathSearch pathSearch = null;
+    private final RowCache<AliasTable> aliasTables = new RowCache<>(AliasTable::new, ROW_CACHE_EDGES);
+    private final RowCache<RankedRow> rankedTargets = new RowCache<>(RankedRow::new, ROW_CACHE_EDGES);
+    private final RowCache<RankedRow> rankedSources = new RowCache<>(RankedRow::new, ROW_CACHE_EDGES);
+    private final RowCache<Integer> maxSourceWeights =
+            new RowCache<>(row -> Collections.max(row.values()), ROW_CACHE_EDGES);
+    private final Lock appendLock = new ReentrantLock();
+    private String tail = null;
 
     // Abstraction function:
     //   Represents a directed graph where nodes are words in the corpus and edges denote adjacency with weights as frequency.
+    //   tail is the last word of the corpus so far, or null if it is empty or unknown.
     // Representation invariant:
     //   Graph must not have null vertices or edges.
+    //   Outside of append(), snapshot is a frozen copy of graph.
+    //   aliasTables, rankedTargets, rankedSources and maxSourceWeights hold alias tables of
+    //   targets rows, ranked targets and sources rows, and the heaviest weights of sources rows,
+    //   of the snapshots they were read from.
     // Safety from rep exposure:
-    //   The graph field is private and final, and only immutable operations are exposed.
+    //   The graph field is final and only visible to tests in this package, and only immutable
+    //   operations are exposed.
+    //   snapshot and alias tables are immutable, bridgeCache only holds immutable strings,
+    //   bridgeTable and pathSearch are immutable, and searchMetrics only exposes immutable
+    //   snapshots.
+    // Thread safety argument:
+    //   graph and tail are private to the appending thread: they are only used after
+    //   construction while holding appendLock. Readers never touch graph; they read the
+    //   immutable snapshot, which append() replaces through a volatile write once the whole text
+    //   is added, so each poem() sees a whole number of appends without taking a lock.
+    //   An append publishes its snapshot before clearing the bridge cache, and readers read the
+    //   cache generation before the snapshot and only cache bridges under that generation, so
+    //   no bridge found in an older snapshot stays cached after the append returns; changing
+    //   the bridge path search clears the cache in the same way.
+    //   The row caches are thread-safe, and only return values derived from the very row of the
+    //   snapshot being read, so a value derived from an older snapshot is rebuilt, not used.
 
     /**
      * Create a new poet with the graph from corpus.
@@ -30,16 +85,214 @@ public class GraphPoet {
      * @throws IOException if the corpus file cannot be found or read
      */
     public GraphPoet(File corpus) throws IOException {
-        List<String> words = List.of(Files.readString(corpus.toPath()).toLowerCase().split("\\s+"));
-        for (int i = 0; i < words.size() - 1; i++) {
-            String word1 = words.get(i);
-            String word2 = words.get(i + 1);
-            graph.set(word1, word2, graph.targets(word1).getOrDefault(word2, 0) + 1);
+        this(corpus.toPath());
+    }
+
+    /**
+     * Create a new poet with the graph from a UTF-8 corpus file, reading it as
+     * a stream so that memory use does not grow with the corpus size.
+     *
+     * @param corpus text file from which to derive the poet's affinity graph
+     * @throws IOException if the corpus file cannot be found or read
+     */
+    public GraphPoet(Path corpus) throws IOException {
+        this(Graph.empty());
+        try (Reader in = Files.newBufferedReader(corpus)) {
+            ingest(in);
         }
+        snapshot = FrozenGraph.freeze(graph);
+        checkRep();
+    }
+
+    /**
+     * Create a new poet with the graph from a corpus stream, reading it
+     * incrementally so that memory use does not grow with the corpus size.
+     *
+     * @param corpus text from which to derive the poet's affinity graph; it is
+     *        read to the end but not closed
+     * @throws IOException if the corpus cannot be read
+     */
+    public GraphPoet(Reader corpus) throws IOException {
+        this(Graph.empty());
+        ingest(corpus);
+        snapshot = FrozenGraph.freeze(graph);
         checkRep();
     }
 
+    /**
+     * Create a new poet with the graph from a UTF-8 corpus file, counting the
+     * bigrams of byte ranges of the file in parallel, so that the corpus is
+     * never held in memory whole. The resulting graph is the same as the one
+     * built by {@link #GraphPoet(File)} for well-formed UTF-8.
+     *
+     * @param corpus text file from which to derive the poet's affinity graph
+     * @param pool fork-join pool to count bigrams on
+     * @throws IOException if the corpus file cannot be found or read
+     */
+    public GraphPoet(File corpus, ForkJoinPool pool) throws IOException {
+        this(Graph.empty());
+        BigramCounter.Counts counts = BigramCounter.count(corpus.toPath(), pool, BigramCounter.DEFAULT_CHUNK_SIZE);
+        GraphBuilder<String> builder = new GraphBuilder<>(graph);
+        counts.addTo(builder);
+        builder.build();
+        tail = counts.last();
+        snapshot = FrozenGraph.freeze(graph);
+        checkRep();
+    }
+
+    /**
+     * Create a new poet with the graph from a UTF-8 corpus file, scanning the
+     * memory-mapped bytes of the file and materializing each distinct word as
+     * a string only once. The resulting graph is the same as the one built by
+     * {@link #GraphPoet(Path)} for well-formed UTF-8.
+     *
+     * @param corpus text file from which to derive the poet's affinity graph
+     * @return a new poet
+     * @throws IOException if the corpus file cannot be found or read
+     */
+    public static GraphPoet fromMappedFile(Path corpus) throws IOException {
+        MappedWordReader words = new MappedWordReader();
+        words.read(corpus);
+        GraphPoet poet = new GraphPoet(Graph.empty());
+        GraphBuilder<String> builder = new GraphBuilder<>(poet.graph);
+        words.addTo(builder);
+        builder.build();
+        poet.tail = words.lastWord();
+        poet.snapshot = FrozenGraph.freeze(poet.graph);
+        poet.checkRep();
+        return poet;
+    }
+
+    /**
+     * Load a poet from a graph snapshot, so that no corpus text is parsed. The
+     * file is read through memory-mapped windows, and its labels and rows are
+     * copied into heap arrays, which is a full deserialization. Poems are then
+     * served from a frozen view that shares those arrays, without boxing their
+     * edges into maps.
+     *
+     * @param snapshot file written by {@link #save(Path)}
+     * @return a poet with the saved affinity graph
+     * @throws IOException if the file cannot be read or is not a valid snapshot
+     */
+    public static GraphPoet load(Path snapshot) throws IOException {
+        GraphPoet poet = new GraphPoet(GraphSnapshot.read(snapshot));
+        poet.snapshot = FrozenGraph.freeze(poet.graph);
+        poet.checkRep();
+        return poet;
+    }
+
+    private GraphPoet(Graph<String> graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Save this poet's affinity graph as a binary snapshot.
+     *
+     * @param snapshot file to write, replaced if it exists
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path snapshot) throws IOException {
+        GraphSnapshot.write(this.snapshot, snapshot);
+    }
+
+    /**
+     * Add the bigrams of more corpus text to this poet's affinity graph, in
+     * time proportional to the new text and the adjacency of the words in it.
+     * Concurrent calls to poem() are not blocked, and see the graph either
+     * before or after the whole text is added. Clears the bridge cache and
+     * stops using any bridge table, which no longer match the graph. The text
+     * is split into words as the constructors split a corpus, so text that
+     * starts with whitespace has an empty first word.
+     *
+     * @param text text to add to the corpus; it is read to the end but not
+     *        closed
+     * @param joinWithTail if true, also count the bigram of the last word of
+     *        the corpus so far and the first word of text
+     * @throws IOException if the text cannot be read
+     * @throws ArithmeticException if an edge weight would overflow an int, in
+     *         which case the graph is not changed
+     */
+    public void append(Reader text, boolean joinWithTail) throws IOException {
+        // Count the new bigrams before locking, so other appends only wait for the merge
+        BigramCounter.Counts counts = new BigramCounter.Counts();
+        WordReader words = new WordReader(text);
+        for (String word = words.next(); word != null; word = words.next()) {
+            counts.append(word);
+        }
+        if (counts.first() == null) {
+            return;
+        }
+
+        appendLock.lock();
+        try {
+            if (joinWithTail && tail != null) {
+                counts.count(tail, counts.first(), 1);
+            }
+            // The snapshot matches the graph here, so an overflow is caught before any change
+            counts.checkAddTo(snapshot);
+            Set<String> changed = counts.words();
+            GraphBuilder<String> builder = new GraphBuilder<>(graph);
+            try {
+                counts.addTo(builder);
+                builder.build();
+            } catch (RuntimeException e) {
+                // Keep the snapshot a copy of whatever part of the text did reach the graph
+                snapshot = snapshot.refreeze(graph, changed);
+                throw e;
+            }
+            tail = counts.last();
+            // Drop the table before publishing, so no reader uses it with the new snapshot
+            bridgeTable = null;
+            snapshot = snapshot.refreeze(graph, changed);
+            aliasTables.invalidate(changed);
+            rankedTargets.invalidate(changed);
+            rankedSources.invalidate(changed);
+            maxSourceWeights.invalidate(changed);
+            BridgePathSearch paths = pathSearch;
+            if (paths != null) {
+                paths.invalidate(changed);
+            }
+            invalidateBridgeCache();
+            checkRep();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Add the bigrams of a UTF-8 text file to this poet's affinity graph, as
+     * {@link #append(Reader, boolean)} does.
+     *
+     * @param text text file to add to the corpus
+     * @param joinWithTail if true, also count the bigram of the last word of
+     *        the corpus so far and the first word of text
+     * @throws IOException if the file cannot be found or read
+     */
+    public void append(Path text, boolean joinWithTail) throws IOException {
+        try (Reader in = Files.newBufferedReader(text)) {
+            append(in, joinWithTail);
+        }
+    }
+
+    // Count the bigrams of corpus into the graph, carrying only the previous word
+    private void ingest(Reader corpus) throws IOException {
+        WordReader words = new WordReader(corpus);
+        GraphBuilder<String> builder = new GraphBuilder<>(graph);
+        String previous = words.next();
+        for (String word = words.next(); word != null; word = words.next()) {
+            builder.increment(previous, word, 1);
+            previous = word;
+        }
+        builder.build();
+        tail = previous;
+    }
+
+    // Check the whole graph, which is only cheap enough at validation level FULL or when sampled
     private void checkRep() {
+        if (!Validation.checkAll()) {
+            return;
+        }
+        assert snapshot.vertices().equals(graph.vertices()) : "Snapshot does not match graph";
         for (String vertex : graph.vertices()) {
             assert vertex != null : "Null vertex in graph";
             for (Map.Entry<String, Integer> edge : graph.targets(vertex).entrySet()) {
@@ -56,39 +309,392 @@ public class GraphPoet {
      * @return poem (as described above)
      */
     public String poem(String input) {
-        List<String> words = List.of(input.split("\\s+"));
-        StringBuilder poem = new StringBuilder();
-        for (int i = 0; i < words.size() - 1; i++) {
-            String word1 = words.get(i).toLowerCase();
-            String word2 = words.get(i + 1).toLowerCase();
-
-            // Find the bridge word
-            String bridge = null;
-            int maxWeight = 0;
-            for (String candidate : graph.targets(word1).keySet()) {
-                if (graph.targets(candidate).containsKey(word2)) {
-                    int weight = graph.targets(word1).get(candidate) + graph.targets(candidate).get(word2);
-                    if (weight > maxWeight) {
-                        maxWeight = weight;
-                        bridge = candidate;
-                    }
-                }
+        return new Reading().compose(input);
+    }
+
+    /**
+     * Generate a poem for each of a batch of inputs, spreading the work over a
+     * fork-join pool. Every poem is generated from the same graph, even if
+     * appends finish during the batch.
+     *
+     * @param inputs strings from which to create poems
+     * @param pool fork-join pool to generate the poems on
+     * @return the poem of each input, as poem() would generate it, in the
+     *         iteration order of inputs
+     */
+    public List<String> poems(Collection<String> inputs, ForkJoinPool pool) {
+        List<String> batch = List.copyOf(inputs);
+        Reading reading = new Reading();
+        String[] poems = pool.submit(() -> IntStream.range(0, batch.size()).parallel()
+                .mapToObj(i -> reading.compose(batch.get(i))).toArray(String[]::new)).join();
+        return List.of(poems);
+    }
+
+    /**
+     * Generate a poem for each of a stream of inputs, as
+     * {@link #poems(Collection, ForkJoinPool)} does.
+     *
+     * @param inputs finite stream of strings from which to create poems
+     * @param pool fork-join pool to generate the poems on
+     * @return the poem of each input, in encounter order
+     */
+    public List<String> poems(Stream<String> inputs, ForkJoinPool pool) {
+        return poems(inputs.collect(Collectors.toList()), pool);
+    }
+
+    /**
+     * Generate new text by a weighted random walk over the affinity graph:
+     * from each word, step to a word that follows it in the corpus, chosen
+     * with probability proportional to how often it does. Each step takes
+     * constant time, sampling from an alias table of the word's successors
+     * that is built the first time a walk leaves the word, and rebuilt only
+     * after an append changes its successors.
+     *
+     * @param start first word of the text
+     * @param maxWords maximum number of words in the text, at least 1
+     * @param random source of randomness; walks over the same graph with the
+     *        same random sequence generate the same text
+     * @return start followed by up to maxWords - 1 lowercase words, separated
+     *         by single spaces; the walk stops early at a word that no word
+     *         follows in the corpus
+     */
+    public String walk(String start, int maxWords, RandomGenerator random) {
+        if (maxWords < 1) throw new IllegalArgumentException("Walk must have at least one word");
+        FrozenGraph<String> graph = snapshot;
+        StringBuilder text = new StringBuilder(start);
+        String word = start.toLowerCase();
+        for (int i = 1; i < maxWords; i++) {
+            AliasTable table = aliasTable(graph, word);
+            if (table == null) {
+                break;
             }
+            word = table.sample(random);
+            text.append(' ').append(word);
+        }
+        return text.toString();
+    }
+
+    /**
+     * Generate new text by a weighted random walk, as
+     * {@link #walk(String, int, RandomGenerator)} does, with a seeded source
+     * of randomness.
+     *
+     * @param start first word of the text
+     * @param maxWords maximum number of words in the text, at least 1
+     * @param seed seed of the walk; walks over the same graph with the same
+     *        seed generate the same text
+     * @return start followed by up to maxWords - 1 lowercase words
+     */
+    public String walk(String start, int maxWords, long seed) {
+        return walk(start, maxWords, new SplittableRandom(seed));
+    }
+
+    // Return the alias table of the successors of word in graph, or null if it has none
+    private AliasTable aliasTable(FrozenGraph<String> graph, String word) {
+        Map<String, Integer> row = graph.targets(word);
+        return row.isEmpty() ? null : aliasTables.get(word, row);
+    }
+
+    /**
+     * Cache the bridge words that poem() finds, keeping the most recently used
+     * word pairs. Replaces any previous cache and its counters.
+     *
+     * @param maxEntries positive maximum number of word pairs to cache
+     */
+    public void enableBridgeCache(int maxEntries) {
+        bridgeCache = new BridgeCache(maxEntries);
+    }
+
+    /**
+     * Stop caching bridge words.
+     */
+    public void disableBridgeCache() {
+        bridgeCache = null;
+    }
+
+    /**
+     * @return the counters of the bridge cache, or null if it is not enabled
+     */
+    public BridgeCache.Stats bridgeCacheStats() {
+        BridgeCache cache = bridgeCache;
+        return cache == null ? null : cache.stats();
+    }
+
+    /**
+     * Let poem() bridge word pairs that no single word bridges with a path of
+     * several words: the path with the fewest words, and among those the
+     * highest summed edge weight, found by a bidirectional search that follows
+     * at most maxExpansions edges per pair. Clears the bridge cache, which
+     * holds bridges of the previous mode. Pairs that a bridge table answers
+     * keep its bridge.
+     *
+     * @param maxWords most words in a bridge, at least 2
+     * @param maxExpansions positive maximum number of edges to follow per pair
+     *        when no single word bridges it; if the budget runs out first,
+     *        the pair gets no bridge
+     */
+    public void enableBridgePaths(int maxWords, int maxExpansions) {
+        pathSearch = new BridgePathSearch(maxWords, maxExpansions, ROW_CACHE_EDGES);
+        invalidateBridgeCache();
+    }
+
+    /**
+     * Bridge word pairs with single words only, clearing the bridge cache.
+     */
+    public void disableBridgePaths() {
+        pathSearch = null;
+        invalidateBridgeCache();
+    }
+
+    private void invalidateBridgeCache() {
+        BridgeCache cache = bridgeCache;
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    /**
+     * Count the work of the bridge word and bridge path searches that poem()
+     * makes in the graph, which excludes pairs answered by a bridge cache or
+     * table. Replaces any previous counters.
+     */
+    public void enableBridgeSearchStats() {
+        searchMetrics = new BridgeSearchMetrics();
+    }
+
+    /**
+     * Stop counting the work of bridge word searches.
+     */
+    public void disableBridgeSearchStats() {
+        searchMetrics = null;
+    }
+
+    /**
+     * @return the counters of bridge word searches, or null if they are not
+     *         enabled
+     */
+    public BridgeSearchMetrics.Stats bridgeSearchStats() {
+        BridgeSearchMetrics metrics = searchMetrics;
+        return metrics == null ? null : metrics.stats();
+    }
+
+    /**
+     * Precompute the best bridge word of every word pair joined by a two-edge
+     * path in this poet's graph, and write them to a file that
+     * {@link #useBridgeTable(BridgeTable)} can use after loading it with
+     * {@link BridgeTable#load(Path)}.
+     *
+     * @param file file to write, replaced if it exists
+     * @param pool fork-join pool to compute the table on
+     * @throws IOException if the file cannot be written
+     */
+    public void writeBridgeTable(Path file, ForkJoinPool pool) throws IOException {
+        BridgeTable.write(snapshot, file, pool);
+    }
+
+    /**
+     * Look up bridge words in a precomputed table instead of searching the
+     * graph. The table must have been written from a poet with the same
+     * corpus; like a search, where two bridges tie the table picks the
+     * lexicographically smallest.
+     *
+     * @param table precomputed bridge table, or null to search the graph again
+     */
+    public void useBridgeTable(BridgeTable table) {
+        bridgeTable = table;
+    }
+
+    /**
+     * Rank the bridge words of a word pair: the words that follow word1 and
+     * precede word2 in the corpus, scored by the summed weight of their
+     * two-edge path. Candidates are visited in order of decreasing weight from
+     * word1, and the search stops as soon as no remaining candidate can enter
+     * the top k. The best bridge is the one poem() inserts when it searches
+     * the graph.
+     *
+     * @param word1 first word of the pair, case-insensitive
+     * @param word2 second word of the pair, case-insensitive
+     * @param k positive maximum number of bridges to return
+     * @return up to k bridges, by decreasing score and then increasing word
+     * @throws IllegalArgumentException if k is not positive
+     */
+    public List<Bridge> bridges(String word1, String word2, int k) {
+        if (k < 1) throw new IllegalArgumentException("Number of bridges must be positive");
+        return findBridges(snapshot, word1.toLowerCase(), word2.toLowerCase(), k);
+    }
+
+    // Find the bridge word with the heaviest two-edge path from word1 to word2, or null if none
+    private String findBridge(FrozenGraph<String> graph, String word1, String word2) {
+        List<Bridge> bridges = findBridges(graph, word1, word2, 1);
+        return bridges.isEmpty() ? null : bridges.get(0).getWord();
+    }
+
+    // Find the k best bridges from word1 to word2 in graph, best first
+    private List<Bridge> findBridges(FrozenGraph<String> graph, String word1, String word2, int k) {
+        Map<String, Integer> targets = graph.targets(word1);
+        Map<String, Integer> sources = graph.sources(word2);
+        if (targets.isEmpty() || sources.isEmpty()) {
+            return List.of();
+        }
+        RankedRow candidates = rankedTargets.get(word1, targets);
+        int maxWeight2 = maxSourceWeights.get(word2, sources);
+        BridgeSearchMetrics metrics = searchMetrics;
 
-            poem.append(words.get(i)).append(" ");
-            if (bridge != null) {
-                poem.append(bridge).append(" ");
+        // Keep the best k so far with the worst at the head, to compare against and evict
+        PriorityQueue<Bridge> best = new PriorityQueue<>(Math.min(k, candidates.size()), Bridge.ORDER.reversed());
+        int visited = 0;
+        for (; visited < candidates.size(); visited++) {
+            int weight1 = candidates.weight(visited);
+            if (best.size() == k && weight1 + maxWeight2 < best.peek().getScore()) {
+                break; // Candidates are by decreasing weight, so none of the rest can enter
             }
+            String candidate = candidates.word(visited);
+            int weight2 = graph.weight(candidate, word2);
+            if (weight2 == 0) {
+                continue;
+            }
+            Bridge bridge = new Bridge(candidate, weight1 + weight2);
+            if (best.size() < k) {
+                best.add(bridge);
+            } else if (Bridge.ORDER.compare(bridge, best.peek()) < 0) {
+                best.poll();
+                best.add(bridge);
+            }
+        }
+        if (metrics != null) {
+            // Each candidate reads its edge from word1, then looks up its edge to word2
+            metrics.record(visited, 2L * visited, !best.isEmpty());
         }
-        poem.append(words.get(words.size() - 1));
-        return poem.toString();
+        List<Bridge> ranked = new ArrayList<>(best);
+        ranked.sort(Bridge.ORDER);
+        return Collections.unmodifiableList(ranked);
     }
 
     @Override
     public String toString() {
-        return "GraphPoet{" + "graph=" + graph + '}';
+        return "GraphPoet{" + "graph=" + snapshot + '}';
     }
-}
 
+    /**
+     * The bridge sources of one poem or batch of poems: the path search, the
+     * bridge table, the bridge cache with its generation, and the graph
+     * snapshot, read in that order so that an append or a change of path
+     * search racing with the read cannot leave a stale bridge cached.
+     */
+    private class Reading {
+
+        private final BridgePathSearch paths = pathSearch;
+        private final BridgeTable table = bridgeTable;
+        private final BridgeCache cache = bridgeCache;
+        private final long generation = cache == null ? 0 : cache.generation();
+        private final FrozenGraph<String> graph = snapshot;
+
+        // Generate the poem of input
+        String compose(String input) {
+            List<String> words = List.of(input.split("\\s+"));
+            StringBuilder poem = new StringBuilder();
+            String word2 = words.get(0).toLowerCase();
+            for (int i = 0; i < words.size() - 1; i++) {
+                String word1 = word2;
+                word2 = words.get(i + 1).toLowerCase();
+
+                String bridge = bridge(word1, word2);
+
+                poem.append(words.get(i)).append(" ");
+                if (bridge != null) {
+                    poem.append(bridge).append(" ");
+                }
+            }
+            poem.append(words.get(words.size() - 1));
+            return poem.toString();
+        }
 
+        // Find the bridge word of word1 and word2, through the table or cache if enabled
+        private String bridge(String word1, String word2) {
+            if (table != null) {
+                String bridge = table.bridge(word1, word2);
+                return bridge != null || paths == null ? bridge : paths.find(graph, word1, word2, searchMetrics);
+            }
+            if (cache == null) {
+                return search(word1, word2);
+            }
+            Optional<String> cached = cache.get(word1, word2);
+            if (cached != null) {
+                return cached.orElse(null);
+            }
+            String bridge = search(word1, word2);
+            cache.put(word1, word2, bridge, generation);
+            return bridge;
+        }
 
+        // Search the graph for a bridge word, then for a bridge path if enabled
+        private String search(String word1, String word2) {
+            String bridge = findBridge(graph, word1, word2);
+            return bridge != null || paths == null ? bridge : paths.find(graph, word1, word2, searchMetrics);
+        }
+    }
+
+    /**
+     * A bridge word of a word pair, with the summed weight of its two-edge
+     * path as its score. Immutable.
+     */
+    public static final class Bridge {
+
+        // Orders bridges from best to worst: by decreasing score, then increasing word
+        private static final Comparator<Bridge> ORDER =
+                Comparator.comparingInt(Bridge::getScore).reversed().thenComparing(Bridge::getWord);
+
+        private final String word;
+        private final int score;
+
+        // Abstraction function:
+        //   Represents the bridge word word, whose path from the first word of its pair to the
+        //   second has total weight score.
+        // Representation invariant:
+        //   - word is not null, and score >= 2.
+        // Safety from rep exposure:
+        //   - All fields are private and final, and immutable.
+
+        Bridge(String word, int score) {
+            this.word = word;
+            this.score = score;
+            assert word != null && score >= 2;
+        }
+
+        /**
+         * @return the bridge word
+         */
+        public String getWord() {
+            return word;
+        }
+
+        /**
+         * @return the summed weight of the edges into and out of the bridge
+         */
+        public int getScore() {
+            return score;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Bridge)) {
+                return false;
+            }
+            Bridge that = (Bridge) other;
+            return score == that.score && word.equals(that.word);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(word, score);
+        }
+
+        @Override
+        public String toString() {
+            return word + "=" + score;
+        }
+    }
+}
@@ -5,8 +5,26 @@ package poet;
 
 import static org.junit.Assert.*;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
 import org.junit.Test;
 
+import graph.Graph;
+import graph.GraphSnapshot;
+import graph.Validation;
+
 /**
  * Tests for GraphPoet.
  */
@@ -14,6 +32,15 @@ public class GraphPoetTest {
     
     // Testing strategy
     //   TODO
+    //   walk(): start with no successors, unknown start, single path, branching graph with a
+    //     fixed seed, text of a fixed seed across JVM runs, after an append changes successors
+    //   bridges(): k = 1, 1 < k < number of bridges, k > number of bridges, no bridges, tied
+    //     scores, search stopping before visiting every candidate, k not positive
+    //   parallel constructor: corpus with leading whitespace, mixed case and punctuation, corpus
+    //     larger than one counting chunk
+    //   fromMappedFile(): empty corpus, leading whitespace, mixed case, punctuation, non-ASCII
+    //   bridge paths: disabled, enabled with a one-word bridge available, enabled with only a
+    //     longer path, toggled with the bridge cache enabled
     
     @Test(expected=AssertionError.class)
     public void testAssertionsEnabled() {
@@ -79,5 +106,287 @@ public class GraphPoetTest {
         assertTrue(poet.toString().contains("GraphPoet with graph:"));
     }
 
+    @Test
+    public void testAppendAddsBridge() throws IOException {
+        GraphPoet poet = new GraphPoet(new StringReader("an unrelated corpus"));
+        assertEquals("Test the system.", poet.poem("Test the system."));
+
+        poet.append(new StringReader("a test of the system"), false);
+        assertEquals("Test of the system.", poet.poem("Test the system."));
+    }
+
+    @Test
+    public void testAppendJoinWithTail() throws IOException {
+        GraphPoet joined = new GraphPoet(new StringReader("hello"));
+        joined.append(new StringReader("world again"), true);
+        assertEquals("hello world again", joined.poem("hello again"));
+
+        GraphPoet separate = new GraphPoet(new StringReader("hello"));
+        separate.append(new StringReader("world again"), false);
+        assertEquals("hello again", separate.poem("hello again"));
+    }
+
+    @Test
+    public void testAppendEmptyKeepsTail() throws IOException {
+        GraphPoet poet = new GraphPoet(new StringReader("hello"));
+        poet.append(new StringReader("   "), true);
+        poet.append(new StringReader("world again"), true);
+        assertEquals("hello world again", poet.poem("hello again"));
+    }
+
+    // Test that appended text keeps its empty first word, as a corpus does
+    @Test
+    public void testAppendLeadingWhitespace() throws IOException {
+        GraphPoet poet = new GraphPoet(new StringReader("a b"));
+        poet.append(new StringReader("  c d"), false);
+        GraphPoet constructed = new GraphPoet(new StringReader("  c d"));
+        assertEquals(constructed.graph.targets(""), poet.graph.targets(""));
+        assertEquals(1, (int) poet.graph.targets("").get("c"));
+    }
+
+    // Test that an append that would overflow a weight changes neither the graph nor the tail
+    @Test
+    public void testAppendOverflowUnchanged() throws IOException {
+        Graph<String> graph = Graph.empty();
+        graph.set("a", "b", Integer.MAX_VALUE);
+        Path file = Files.createTempFile("poet", ".graph");
+        try {
+            GraphSnapshot.write(graph, file);
+            GraphPoet poet = GraphPoet.load(file);
+            poet.append(new StringReader("x y"), false);
+            try {
+                poet.append(new StringReader("w a b"), true);
+                fail("expected overflow");
+            } catch (ArithmeticException e) {
+                // expected
+            }
+            assertEquals(Integer.MAX_VALUE, (int) poet.graph.targets("a").get("b"));
+            assertFalse(poet.graph.vertices().contains("w"));
+
+            poet.append(new StringReader("z"), true);
+            assertEquals(1, (int) poet.graph.targets("y").get("z"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testAppendInvalidatesBridgeCache() throws IOException {
+        GraphPoet poet = new GraphPoet(new StringReader("a b c"));
+        poet.enableBridgeCache(16);
+        assertEquals("a b c", poet.poem("a c"));
+
+        poet.append(new StringReader("a x c a x c"), false);
+        assertEquals("a x c", poet.poem("a c"));
+        assertEquals(0, poet.bridgeCacheStats().getHits());
+    }
+
+    @Test
+    public void testPoemsMatchesPoemInOrder() throws IOException {
+        GraphPoet poet = new GraphPoet(new StringReader("this is a test of the system of a poet"));
+        List<String> inputs = Stream.of("Test the system.", "this a test", "", "a of poet", "solo")
+                .collect(Collectors.toList());
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<String> expected = inputs.stream().map(poet::poem).collect(Collectors.toList());
+            assertEquals(expected, poet.poems(inputs, pool));
+            assertEquals(expected, poet.poems(inputs.stream(), pool));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testBridgeSearchStats() throws IOException {
+        GraphPoet poet = new GraphPoet(new StringReader("a b c a x c x"));
+        assertNull(poet.bridgeSearchStats());
+        poet.enableBridgeSearchStats();
+        poet.poem("a c b");
+
+        // (a, c) examines b and x, and (c, b) examines a and x, each reading its edge from the
+        // first word and looking up its edge to the second
+        BridgeSearchMetrics.Stats stats = poet.bridgeSearchStats();
+        assertEquals(2, stats.getSearches());
+        assertEquals(2, stats.getBridgesFound());
+        assertEquals(4, stats.getCandidates());
+        assertEquals(2, stats.getMaxCandidates());
+        assertEquals(2 * 4, stats.getEdges());
+
+        poet.disableBridgeSearchStats();
+        assertNull(poet.bridgeSearchStats());
+    }
+
+    @Test
+    public void testPoemsEmptyBatch() throws IOException {
+        GraphPoet poet = new GraphPoet(new StringReader("a b c"));
+        assertEquals(List.of(), poet.poems(List.of(), ForkJoinPool.commonPool()));
+    }
+
+    @Test
+    public void testWalkFollowsOnlyPath() throws IOException {
+        GraphPoet poet = new GraphPoet(new StringReader("The quick brown fox"));
+        assertEquals("The quick brown fox", poet.walk("The", 10, 1L));
+        assertEquals("quick brown", poet.walk("quick", 2, 1L));
+        assertEquals("Fox", poet.walk("Fox", 10, 1L));
+        assertEquals("unknown", poet.walk("unknown", 10, 1L));
+    }
+
+    @Test
+    public void testWalkSameSeedSameText() throws IOException {
+        GraphPoet poet = new GraphPoet(new StringReader("a b a c a b b c c a d a"));
+        String text = poet.walk("a", 50, 42L);
+        assertEquals(text, poet.walk("a", 50, 42L));
+        assertEquals(50, text.split(" ").length);
+        for (String word : text.split(" ")) {
+            assertTrue(Set.of("a", "b", "c", "d").contains(word));
+        }
+    }
+
+    // Test that a seed gives the same text in every JVM run, not only within one
+    @Test
+    public void testWalkSeedPinsText() throws IOException {
+        GraphPoet poet = new GraphPoet(new StringReader("a b a c a b b c c a d a"));
+        assertEquals("a b a b a b c a c a b a", poet.walk("a", 12, 12345L));
+    }
+
+    @Test
+    public void testWalkSeesAppend() throws IOException {
+        GraphPoet poet = new GraphPoet(new StringReader("a b"));
+        assertEquals("a b", poet.walk("a", 3, 1L));
+
+        poet.append(new StringReader("b c"), false);
+        assertEquals("a b c", poet.walk("a", 3, 1L));
+    }
+
+    @Test
+    public void testBridgesRankedByScore() throws IOException {
+        GraphPoet poet = new GraphPoet(new StringReader("a b c a b c a x c a y c"));
+        GraphPoet.Bridge b = new GraphPoet.Bridge("b", 4);
+        GraphPoet.Bridge x = new GraphPoet.Bridge("x", 2);
+        GraphPoet.Bridge y = new GraphPoet.Bridge("y", 2);
+        assertEquals(List.of(b), poet.bridges("a", "c", 1));
+        assertEquals(List.of(b, x), poet.bridges("A", "C", 2));
+        assertEquals(List.of(b, x, y), poet.bridges("a", "c", 10));
+        assertEquals(List.of(), poet.bridges("x", "b", 3));
+        assertEquals(List.of(), poet.bridges("a", "unknown", 3));
+    }
+
+    @Test
+    public void testPoemTieGoesToSmallestBridge() throws IOException {
+        GraphPoet poet = new GraphPoet(new StringReader("a y c a x c a z c"));
+        assertEquals("a x c", poet.poem("a c"));
+        assertEquals("x", poet.bridges("a", "c", 3).get(0).getWord());
+    }
+
+    @Test
+    public void testBridgesStopEarly() throws IOException {
+        GraphPoet poet = new GraphPoet(new StringReader("a b c a b c a b c a d a e a f"));
+        poet.enableBridgeSearchStats();
+        assertEquals(List.of(new GraphPoet.Bridge("b", 6)), poet.bridges("a", "c", 1));
+
+        // d, e and f weigh 1 from a, and no edge into c weighs over 3, so none can beat 6
+        BridgeSearchMetrics.Stats stats = poet.bridgeSearchStats();
+        assertEquals(1, stats.getCandidates());
+    }
+
+    @Test
+    public void testBridgePaths() throws IOException {
+        GraphPoet poet = new GraphPoet(new StringReader("a b c d a x d"));
+        assertEquals("b a", poet.poem("b a"));
+
+        poet.enableBridgePaths(2, 100);
+        assertEquals("b c d a", poet.poem("b a"));
+        assertEquals("A x d", poet.poem("A d")); // Preferred to the heavier path b c
+
+        poet.disableBridgePaths();
+        assertEquals("b a", poet.poem("b a"));
+    }
+
+    @Test
+    public void testBridgePathsClearCache() throws IOException {
+        GraphPoet poet = new GraphPoet(new StringReader("a b c d"));
+        poet.enableBridgeCache(10);
+        assertEquals("a d", poet.poem("a d"));
+
+        poet.enableBridgePaths(2, 100);
+        assertEquals("a b c d", poet.poem("a d"));
+
+        poet.disableBridgePaths();
+        assertEquals("a d", poet.poem("a d"));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testBridgesNonPositiveK() throws IOException {
+        new GraphPoet(new StringReader("a b c")).bridges("a", "c", 0);
+    }
+
+    @Test
+    public void testParallelMatchesSequential() throws IOException {
+        StringBuilder large = new StringBuilder();
+        Random random = new Random(0);
+        String[] whitespace = {" ", "  ", "\n", "\t ", "\r\n"};
+        while (large.length() < 3 * BigramCounter.DEFAULT_CHUNK_SIZE) {
+            large.append(random.nextBoolean() ? "W" : "w").append(random.nextInt(500))
+                    .append(whitespace[random.nextInt(whitespace.length)]);
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        Path corpus = Files.createTempFile("corpus", ".txt");
+        Validation previous = Validation.level();
+        Validation.setLevel(Validation.INCREMENTAL);
+        try {
+            for (String text : List.of("", " \n", "solo", "  Hello world. Hello AGAIN, world.\n\tThe end",
+                    "\tA b a B\r\n", large.toString())) {
+                Files.writeString(corpus, text, StandardCharsets.UTF_8);
+                GraphPoet sequential = new GraphPoet(corpus.toFile());
+                GraphPoet parallel = new GraphPoet(corpus.toFile(), pool);
+                assertSameGraph(sequential, parallel);
+            }
+        } finally {
+            Validation.setLevel(previous);
+            pool.shutdown();
+            Files.delete(corpus);
+        }
+    }
+
+    @Test
+    public void testMappedFileMatchesPath() throws IOException {
+        Path corpus = Files.createTempFile("corpus", ".txt");
+        try {
+            for (String text : List.of("", "\n\t Hello world. Hello AGAIN, world!",
+                    "This is a TEST of the system. this, IS a test; of THE system.\r\n",
+                    "Caf\u00E9 au lait, CAF\u00C9 noir; caf\u00E9 au LAIT.")) {
+                Files.writeString(corpus, text, StandardCharsets.UTF_8);
+                GraphPoet expected = new GraphPoet(corpus);
+                GraphPoet mapped = GraphPoet.fromMappedFile(corpus);
+                assertSameGraph(expected, mapped);
+                for (String input : List.of("Test the system.", "this a test", "HELLO World.", "Caf\u00E9 lait")) {
+                    assertEquals(expected.poem(input), mapped.poem(input));
+                }
+            }
+        } finally {
+            Files.delete(corpus);
+        }
+    }
+
+    // Assert that two poets have the same affinity graph, compared through their snapshots
+    private static void assertSameGraph(GraphPoet expected, GraphPoet actual) throws IOException {
+        Path expectedFile = Files.createTempFile("expected", ".snapshot");
+        Path actualFile = Files.createTempFile("actual", ".snapshot");
+        try {
+            expected.save(expectedFile);
+            actual.save(actualFile);
+            Graph<String> expectedGraph = GraphSnapshot.read(expectedFile);
+            Graph<String> actualGraph = GraphSnapshot.read(actualFile);
+            assertEquals(expectedGraph.vertices(), actualGraph.vertices());
+            for (String word : expectedGraph.vertices()) {
+                assertEquals("expected same targets of " + word,
+                        expectedGraph.targets(word), actualGraph.targets(word));
+            }
+        } finally {
+            Files.delete(expectedFile);
+            Files.delete(actualFile);
+        }
+    }
+
     
 }
@@ -0,0 +1,248 @@
+package graph;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Saves and loads graphs with string labels as compact binary snapshots.
+ *
+ * <p>File format, all integers big-endian: the magic number and format
+ * version; the vertex and edge counts; each label as a byte length and UTF-8
+ * bytes; the compressed sparse row offsets, target indices and weights of the
+ * edges as int arrays; and a CRC-32 checksum of all preceding bytes as a long.
+ */
+public class GraphSnapshot {
+
+    private static final int MAGIC = 0x47534E50; // "GSNP"
+    private static final int VERSION = 1;
+
+    /** Default number of bytes mapped at a time. */
+    static final int DEFAULT_WINDOW_SIZE = 1 << 30;
+
+    private GraphSnapshot() {
+    }
+
+    /**
+     * Write a snapshot of a graph to a file.
+     *
+     * @param graph graph to save, not modified while it is written
+     * @param file file to write, replaced if it exists
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Graph<String> graph, Path file) throws IOException {
+        String[] labels = graph.vertices().toArray(new String[0]);
+        Map<String, Integer> ids = new HashMap<>();
+        for (int i = 0; i < labels.length; i++) {
+            ids.put(labels[i], i);
+        }
+        int[] offsets = new int[labels.length + 1];
+        long[][] rows = new long[labels.length][];
+        for (int i = 0; i < labels.length; i++) {
+            Map<String, Integer> targets = graph.targets(labels[i]);
+            rows[i] = new long[targets.size()];
+            int size = 0;
+            for (Map.Entry<String, Integer> edge : targets.entrySet()) {
+                rows[i][size++] = ((long) ids.get(edge.getKey()) << 32) | edge.getValue();
+            }
+            Arrays.sort(rows[i]);
+            offsets[i + 1] = offsets[i] + size;
+        }
+
+        CRC32 checksum = new CRC32();
+        try (DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file)), checksum))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(labels.length);
+            out.writeInt(offsets[labels.length]);
+            for (String label : labels) {
+                byte[] bytes = label.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            for (int offset : offsets) {
+                out.writeInt(offset);
+            }
+            for (long[] row : rows) {
+                for (long edge : row) {
+                    out.writeInt((int) (edge >>> 32));
+                }
+            }
+            for (long[] row : rows) {
+                for (long edge : row) {
+                    out.writeInt((int) edge);
+                }
+            }
+            out.flush();
+            out.writeLong(checksum.getValue());
+        }
+    }
+
+    /**
+     * Load a snapshot by memory-mapping its file, one window of
+     * {@link #DEFAULT_WINDOW_SIZE} bytes at a time.
+     *
+     * @param file a file written by {@link #write}
+     * @return a new graph equal to the saved graph
+     * @throws IOException if the file cannot be read or is not a valid
+     *         snapshot
+     */
+    public static CompactGraph<String> read(Path file) throws IOException {
+        return read(file, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Load a snapshot by memory-mapping its file one window at a time.
+     *
+     * @param file a file written by {@link #write}
+     * @param windowSize number of bytes to map at a time, at least 8
+     * @return a new graph equal to the saved graph
+     * @throws IOException if the file cannot be read or is not a valid
+     *         snapshot
+     */
+    static CompactGraph<String> read(Path file, int windowSize) throws IOException {
+        if (windowSize < Long.BYTES) throw new IllegalArgumentException("Window size must be at least 8");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long bodySize = channel.size() - Long.BYTES;
+            MappedInput in = new MappedInput(channel, bodySize, windowSize);
+            if (bodySize < 2 * Integer.BYTES || in.getInt() != MAGIC || in.getInt() != VERSION) {
+                throw new IOException("Not a graph snapshot: " + file);
+            }
+            CRC32 checksum = new CRC32();
+            for (long start = 0; start < bodySize; start += windowSize) {
+                checksum.update(channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(windowSize, bodySize - start)));
+            }
+            if (checksum.getValue() != channel.map(FileChannel.MapMode.READ_ONLY, bodySize, Long.BYTES).getLong()) {
+                throw new IOException("Corrupt graph snapshot: " + file);
+            }
+
+            try {
+                String[] labels = new String[in.getInt()];
+                int edgeCount = in.getInt();
+                for (int i = 0; i < labels.length; i++) {
+                    byte[] bytes = new byte[in.getInt()];
+                    in.get(bytes);
+                    labels[i] = new String(bytes, StandardCharsets.UTF_8);
+                }
+                int[] offsets = new int[labels.length + 1];
+                int[] targetIds = new int[edgeCount];
+                int[] weights = new int[edgeCount];
+                in.get(offsets);
+                in.get(targetIds);
+                in.get(weights);
+                checkRows(file, labels, offsets, targetIds, weights);
+                return new CompactGraph<>(labels, offsets, targetIds, weights);
+            } catch (BufferUnderflowException | IllegalArgumentException | NegativeArraySizeException e) {
+                throw new IOException("Truncated graph snapshot: " + file, e);
+            }
+        }
+    }
+
+    // Check that the loaded arrays are rows that CompactGraph accepts, as write() produces them,
+    // so that a file with a valid checksum but inconsistent contents is rejected
+    private static void checkRows(Path file, String[] labels, int[] offsets, int[] targetIds, int[] weights)
+            throws IOException {
+        if (offsets[0] != 0 || offsets[labels.length] != targetIds.length) {
+            throw new IOException("Corrupt graph snapshot, offsets do not span the edges: " + file);
+        }
+        for (int i = 0; i < labels.length; i++) {
+            if (offsets[i] > offsets[i + 1]) {
+                throw new IOException("Corrupt graph snapshot, offsets decrease at vertex " + i + ": " + file);
+            }
+        }
+        for (int i = 0; i < labels.length; i++) {
+            for (int e = offsets[i]; e < offsets[i + 1]; e++) {
+                if (targetIds[e] < 0 || targetIds[e] >= labels.length) {
+                    throw new IOException("Corrupt graph snapshot, target out of range at edge " + e + ": " + file);
+                }
+                if (e > offsets[i] && targetIds[e - 1] >= targetIds[e]) {
+                    throw new IOException("Corrupt graph snapshot, unsorted row at vertex " + i + ": " + file);
+                }
+                if (weights[e] <= 0) {
+                    throw new IOException("Corrupt graph snapshot, weight not positive at edge " + e + ": " + file);
+                }
+            }
+        }
+        if (new HashSet<>(Arrays.asList(labels)).size() != labels.length) {
+            throw new IOException("Corrupt graph snapshot, duplicate labels: " + file);
+        }
+    }
+
+    /**
+     * Sequential big-endian reads of the bytes of a file before a given end,
+     * mapped one window at a time, so that the file may be larger than a
+     * single mapping.
+     */
+    private static class MappedInput {
+
+        private final FileChannel channel;
+        private final long end;
+        private final int windowSize;
+        private long windowStart = 0;
+        private ByteBuffer window = ByteBuffer.allocate(0);
+
+        // Abstraction function:
+        //   Represents the bytes [windowStart + window.position(), end) of channel, to be read
+        //   in order.
+        // Representation invariant:
+        //   - window holds bytes [windowStart, windowStart + window.limit()) of channel, at most
+        //     windowSize of them and none at or after end.
+
+        MappedInput(FileChannel channel, long end, int windowSize) {
+            this.channel = channel;
+            this.end = end;
+            this.windowSize = windowSize;
+        }
+
+        // Make the next count bytes, at most windowSize, readable from window
+        private void require(int count) throws IOException {
+            if (window.remaining() >= count) {
+                return;
+            }
+            windowStart += window.position();
+            long length = Math.min(windowSize, end - windowStart);
+            if (length < count) {
+                throw new BufferUnderflowException();
+            }
+            window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, length);
+        }
+
+        int getInt() throws IOException {
+            require(Integer.BYTES);
+            return window.getInt();
+        }
+
+        void get(byte[] bytes) throws IOException {
+            for (int done = 0; done < bytes.length;) {
+                require(1);
+                int count = Math.min(window.remaining(), bytes.length - done);
+                window.get(bytes, done, count);
+                done += count;
+            }
+        }
+
+        void get(int[] ints) throws IOException {
+            for (int done = 0; done < ints.length;) {
+                require(Integer.BYTES);
+                int count = Math.min(window.remaining() / Integer.BYTES, ints.length - done);
+                window.asIntBuffer().get(ints, done, count);
+                window.position(window.position() + count * Integer.BYTES);
+                done += count;
+            }
+        }
+    }
+}
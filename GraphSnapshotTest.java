@@ -0,0 +1,142 @@
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for GraphSnapshot.
+ */
+public class GraphSnapshotTest {
+
+    // Testing strategy
+    //   graph: empty, isolated vertices, edges with non-ASCII labels
+    //   file: valid snapshot, wrong magic, corrupted byte, truncated, valid checksum over
+    //     decreasing offsets or an out-of-range target
+    //   windows: one, several, with values and labels crossing window ends
+
+    private Path file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = Files.createTempFile("graph", ".snapshot");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    // Test saving and loading an empty graph
+    @Test
+    public void testEmptyGraph() throws IOException {
+        GraphSnapshot.write(new ConcreteEdgesGraph(), file);
+        assertEquals(Set.of(), GraphSnapshot.read(file).vertices());
+    }
+
+    // Test that a loaded graph equals the saved graph, and can be changed
+    @Test
+    public void testWriteRead() throws IOException {
+        Graph<String> graph = new ConcreteVerticesGraph();
+        graph.add("lonely");
+        graph.set("a", "b", 5);
+        graph.set("a", "caf\u00E9", 2);
+        graph.set("caf\u00E9", "a", 7);
+        GraphSnapshot.write(graph, file);
+
+        Graph<String> loaded = GraphSnapshot.read(file);
+        assertEquals(graph.vertices(), loaded.vertices());
+        for (String vertex : graph.vertices()) {
+            assertEquals(graph.targets(vertex), loaded.targets(vertex));
+            assertEquals(graph.sources(vertex), loaded.sources(vertex));
+        }
+        assertEquals(5, loaded.set("a", "b", 6));
+        assertEquals(Map.of("b", 6, "caf\u00E9", 2), loaded.targets("a"));
+    }
+
+    // Test that a corrupted snapshot is rejected
+    @Test(expected = IOException.class)
+    public void testCorrupted() throws IOException {
+        Graph<String> graph = new ConcreteEdgesGraph();
+        graph.set("a", "b", 5);
+        GraphSnapshot.write(graph, file);
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 12] ^= 1;
+        Files.write(file, bytes);
+        GraphSnapshot.read(file);
+    }
+
+    // Test that other files are rejected
+    @Test(expected = IOException.class)
+    public void testNotSnapshot() throws IOException {
+        Files.write(file, ByteBuffer.allocate(6).putInt(42).array());
+        GraphSnapshot.read(file);
+    }
+
+    // Test that snapshots mapped in small windows load like one mapped whole
+    @Test
+    public void testSmallWindows() throws IOException {
+        Graph<String> graph = new ConcreteEdgesGraph();
+        for (int i = 0; i < 50; i++) {
+            graph.set("caf\u00E9" + i, "w" + (i * 7 % 50), i + 1);
+        }
+        GraphSnapshot.write(graph, file);
+        for (int windowSize : new int[] {8, 9, 13, 100}) {
+            Graph<String> loaded = GraphSnapshot.read(file, windowSize);
+            assertEquals(graph.vertices(), loaded.vertices());
+            for (String vertex : graph.vertices()) {
+                assertEquals(graph.targets(vertex), loaded.targets(vertex));
+            }
+        }
+    }
+
+    // Test that offsets that decrease are rejected even with a valid checksum
+    @Test(expected = IOException.class)
+    public void testDecreasingOffsets() throws IOException {
+        writeTwoEdges();
+        // Header of 16 bytes, then labels "a" and "b" of 5 bytes each; offsets are 0, 2, 2
+        rewriteInt(16 + 5 + 5 + Integer.BYTES, 3);
+        GraphSnapshot.read(file);
+    }
+
+    // Test that targets outside the vertices are rejected even with a valid checksum
+    @Test(expected = IOException.class)
+    public void testTargetOutOfRange() throws IOException {
+        writeTwoEdges();
+        // The targets follow the three offsets
+        rewriteInt(16 + 5 + 5 + 3 * Integer.BYTES, 2);
+        GraphSnapshot.read(file);
+    }
+
+    // Write a snapshot of the graph with edges a -> a and a -> b, labelled in that order
+    private void writeTwoEdges() throws IOException {
+        CompactGraph<String> graph = new CompactGraph<>();
+        graph.set("a", "a", 1);
+        graph.set("a", "b", 1);
+        GraphSnapshot.write(graph, file);
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file));
+        assertEquals("a", new String(bytes.array(), 20, 1, StandardCharsets.UTF_8));
+        assertEquals(2, bytes.getInt(16 + 5 + 5 + Integer.BYTES));
+    }
+
+    // Replace the int at position of the snapshot file, and write a valid checksum again
+    private void rewriteInt(int position, int value) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file));
+        bytes.putInt(position, value);
+        CRC32 checksum = new CRC32();
+        checksum.update(bytes.array(), 0, bytes.capacity() - Long.BYTES);
+        bytes.putLong(bytes.capacity() - Long.BYTES, checksum.getValue());
+        Files.write(file, bytes.array());
+    }
+}
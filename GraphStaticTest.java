@@ -6,6 +6,8 @@ package graph;
 import static org.junit.Assert.*;
 
 import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
 
 import org.junit.Test;
 
@@ -21,6 +23,7 @@ public class GraphStaticTest {
     //   empty()
     //     no inputs, only output is empty graph
     //     observe with vertices()
+    //     vertex labels: String, Integer
     
     @Test(expected=AssertionError.class)
     public void testAssertionsEnabled() {
@@ -33,6 +36,29 @@ public class GraphStaticTest {
                 Collections.emptySet(), Graph.empty().vertices());
     }
     
-    // TODO test other vertex label types in Problem 3.2
+    @Test
+    public void testEmptyIntegerLabels() {
+        Graph<Integer> graph = Graph.empty();
+        assertTrue(graph.add(1));
+        assertEquals(0, graph.set(1, 2, 5));
+        assertEquals(5, graph.set(1, 2, 7));
+        assertEquals(Set.of(1, 2), graph.vertices());
+        assertEquals(Map.of(2, 7), graph.targets(1));
+        assertEquals(Map.of(1, 7), graph.sources(2));
+        assertTrue(graph.remove(2));
+        assertEquals(Map.of(), graph.targets(1));
+    }
+    
+    @Test
+    public void testEmptyGrowsWithIntegerLabels() {
+        Graph<Integer> graph = Graph.empty();
+        for (int i = 0; i < 100; i++) {
+            graph.set(i, (i + 1) % 100, i + 1);
+        }
+        assertEquals(100, graph.vertices().size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(Map.of((i + 1) % 100, i + 1), graph.targets(i));
+        }
+    }
     
 }
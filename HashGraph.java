@@ -0,0 +1,227 @@
+package graph;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An implementation of Graph that keeps, for each vertex, hash maps of its
+ * outgoing and incoming edges by the label at their other end, so that every
+ * operation but remove() takes expected constant time per vertex or edge it
+ * returns.
+ *
+ * @param <L> type of vertex labels in this graph, must be immutable
+ */
+class HashGraph<L> implements TraversableGraph<L> {
+
+    private final Map<L, Map<L, Integer>> outgoing = new HashMap<>();
+    private final Map<L, Map<L, Integer>> incoming = new HashMap<>();
+    private int edgeCount = 0;
+
+    // Abstraction function:
+    //   Represents the directed graph whose vertices are the keys of outgoing, with an edge from
+    //   s to t of weight outgoing[s][t].
+    // Representation invariant:
+    //   - outgoing and incoming have the same key set.
+    //   - outgoing[s][t] == incoming[t][s] for every edge, and every weight is positive.
+    //   - edgeCount is the number of edges.
+    // Safety from rep exposure:
+    //   - All fields are private, and observers return newly built sets and maps.
+
+    /**
+     * Copy a graph into hash maps.
+     *
+     * @param <L> type of vertex labels in the graph
+     * @param graph graph to copy
+     * @return a new graph with the same vertices and edges as graph
+     */
+    static <L> HashGraph<L> copyOf(Graph<L> graph) {
+        HashGraph<L> copy = new HashGraph<>();
+        Set<L> vertices = graph.vertices();
+        for (L vertex : vertices) {
+            copy.add(vertex);
+        }
+        for (L source : vertices) {
+            for (Map.Entry<L, Integer> edge : graph.targets(source).entrySet()) {
+                copy.set(source, edge.getKey(), edge.getValue());
+            }
+        }
+        return copy;
+    }
+
+    // Check representation invariant
+    private void checkRep() {
+        assert outgoing.keySet().equals(incoming.keySet());
+        int edges = 0;
+        for (Map.Entry<L, Map<L, Integer>> row : outgoing.entrySet()) {
+            for (Map.Entry<L, Integer> edge : row.getValue().entrySet()) {
+                assert edge.getValue() > 0;
+                assert edge.getValue().equals(incoming.get(edge.getKey()).get(row.getKey()));
+                edges++;
+            }
+        }
+        assert edges == edgeCount;
+    }
+
+    // Check representation invariant at the current validation level, after a mutation that
+    // touched only the vertices source and target and the edge between them
+    private void checkRep(L source, L target) {
+        if (Validation.checkAll()) {
+            checkRep();
+        } else if (Validation.checkTouched()) {
+            assert outgoing.containsKey(source) == incoming.containsKey(source);
+            assert outgoing.containsKey(target) == incoming.containsKey(target);
+            if (outgoing.containsKey(source) && outgoing.containsKey(target)) {
+                Integer weight = outgoing.get(source).get(target);
+                assert weight == null || weight > 0;
+                assert weight == null ? !incoming.get(target).containsKey(source)
+                        : weight.equals(incoming.get(target).get(source));
+            }
+        }
+    }
+
+    /**
+     * @return the number of vertices in this graph
+     */
+    int vertexCount() {
+        return outgoing.size();
+    }
+
+    /**
+     * @return the number of edges in this graph
+     */
+    int edgeCount() {
+        return edgeCount;
+    }
+
+    @Override
+    public boolean add(L vertex) {
+        if (outgoing.containsKey(vertex)) {
+            return false;
+        }
+        outgoing.put(vertex, new HashMap<>());
+        incoming.put(vertex, new HashMap<>());
+        checkRep(vertex, vertex);
+        return true;
+    }
+
+    @Override
+    public int set(L source, L target, int weight) {
+        if (weight < 0) throw new IllegalArgumentException("Weight cannot be negative");
+
+        Integer previousWeight;
+        if (weight == 0) {
+            Map<L, Integer> targets = outgoing.get(source);
+            previousWeight = targets == null ? null : targets.remove(target);
+            if (previousWeight != null) {
+                incoming.get(target).remove(source);
+                edgeCount--;
+            }
+        } else {
+            add(source);
+            add(target);
+            previousWeight = outgoing.get(source).put(target, weight);
+            incoming.get(target).put(source, weight);
+            if (previousWeight == null) {
+                edgeCount++;
+            }
+        }
+        checkRep(source, target);
+        return previousWeight == null ? 0 : previousWeight;
+    }
+
+    @Override
+    public boolean remove(L vertex) {
+        Map<L, Integer> targets = outgoing.remove(vertex);
+        if (targets == null) {
+            return false;
+        }
+        Map<L, Integer> sources = incoming.remove(vertex);
+        for (L target : targets.keySet()) {
+            if (!target.equals(vertex)) {
+                incoming.get(target).remove(vertex);
+            }
+        }
+        for (L source : sources.keySet()) {
+            if (!source.equals(vertex)) {
+                outgoing.get(source).remove(vertex);
+            }
+        }
+        edgeCount -= targets.size() + sources.size() - (targets.containsKey(vertex) ? 1 : 0);
+        checkRep(vertex, vertex);
+        return true;
+    }
+
+    @Override
+    public Set<L> vertices() {
+        CopyCounter.copied();
+        return new HashSet<>(outgoing.keySet());
+    }
+
+    @Override
+    public Map<L, Integer> sources(L target) {
+        Map<L, Integer> sources = incoming.get(target);
+        CopyCounter.copied();
+        return sources == null ? new HashMap<>() : new HashMap<>(sources);
+    }
+
+    @Override
+    public Map<L, Integer> targets(L source) {
+        Map<L, Integer> targets = outgoing.get(source);
+        CopyCounter.copied();
+        return targets == null ? new HashMap<>() : new HashMap<>(targets);
+    }
+
+    @Override
+    public void forEachTarget(L source, EdgeVisitor<? super L> visitor) {
+        Map<L, Integer> targets = outgoing.get(source);
+        if (targets != null) {
+            for (Map.Entry<L, Integer> edge : targets.entrySet()) {
+                visitor.visit(edge.getKey(), edge.getValue());
+            }
+        }
+    }
+
+    @Override
+    public void forEachSource(L target, EdgeVisitor<? super L> visitor) {
+        Map<L, Integer> sources = incoming.get(target);
+        if (sources != null) {
+            for (Map.Entry<L, Integer> edge : sources.entrySet()) {
+                visitor.visit(edge.getKey(), edge.getValue());
+            }
+        }
+    }
+
+    @Override
+    public int outDegree(L source) {
+        Map<L, Integer> targets = outgoing.get(source);
+        return targets == null ? 0 : targets.size();
+    }
+
+    @Override
+    public int inDegree(L target) {
+        Map<L, Integer> sources = incoming.get(target);
+        return sources == null ? 0 : sources.size();
+    }
+
+    @Override
+    public int weight(L source, L target) {
+        Map<L, Integer> targets = outgoing.get(source);
+        Integer weight = targets == null ? null : targets.get(target);
+        return weight == null ? 0 : weight;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Vertices: ").append(outgoing.keySet()).append("\nEdges:\n");
+        for (Map.Entry<L, Map<L, Integer>> row : outgoing.entrySet()) {
+            for (Map.Entry<L, Integer> edge : row.getValue().entrySet()) {
+                sb.append(String.format("Edge from %s to %s with weight %d", row.getKey(), edge.getKey(), edge.getValue()))
+                        .append("\n");
+            }
+        }
+        return sb.toString();
+    }
+}
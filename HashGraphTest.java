@@ -0,0 +1,52 @@
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Tests for HashGraph.
+ */
+public class HashGraphTest extends GraphInstanceTest {
+
+    // Testing strategy
+    //   remove(): vertex with incoming, outgoing and self-loop edges
+    //   copyOf(): empty graph, graph with isolated vertices and edges
+
+    @Override
+    public Graph<String> emptyInstance() {
+        return new HashGraph<>();
+    }
+
+    // Test that the edge count drops by each edge of a removed vertex once
+    @Test
+    public void testRemoveCountsSelfLoopOnce() {
+        HashGraph<String> graph = new HashGraph<>();
+        graph.set("A", "A", 1);
+        graph.set("A", "B", 2);
+        graph.set("B", "A", 3);
+        graph.set("B", "C", 4);
+
+        assertTrue(graph.remove("A"));
+        assertEquals(2, graph.vertexCount());
+        assertEquals(1, graph.edgeCount());
+        assertEquals(Map.of(), graph.sources("B"));
+    }
+
+    // Test copying a graph with an isolated vertex
+    @Test
+    public void testCopyOf() {
+        Graph<String> original = new ConcreteEdgesGraph();
+        original.add("X");
+        original.set("A", "B", 5);
+
+        HashGraph<String> copy = HashGraph.copyOf(original);
+        assertEquals(Set.of("A", "B", "X"), copy.vertices());
+        assertEquals(Map.of("B", 5), copy.targets("A"));
+        assertEquals(1, copy.edgeCount());
+        assertEquals(0, HashGraph.copyOf(new HashGraph<String>()).vertexCount());
+    }
+}
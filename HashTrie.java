@@ -0,0 +1,245 @@
+package graph;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * A persistent hash map: an immutable hash array mapped trie, from which
+ * with() returns a new map that shares every node off the path to the
+ * changed key, in time logarithmic in the size of the map. Keys and values
+ * must not be null. Immutable.
+ *
+ * @param <K> type of keys, must be immutable
+ * @param <V> type of values
+ */
+final class HashTrie<K, V> implements Iterable<Map.Entry<K, V>> {
+
+    private static final int BITS = 5;
+    private static final HashTrie<?, ?> EMPTY = new HashTrie<>(new Node(0, new Object[0]), 0);
+
+    private final Node root;
+    private final int size;
+
+    // Abstraction function:
+    //   Represents the map from the key of each leaf below root to its value.
+    // Representation invariant:
+    //   - Each slot of a node at depth d holds a Leaf, a Collision or a child Node, for keys
+    //     whose hashes share the 5-bit digits of the path to it; slots are ordered by digit,
+    //     and bitmap has one bit set per slot.
+    //   - A Collision holds two or more leaves of distinct keys with the same hash.
+    //   - size is the number of leaves.
+    // Safety from rep exposure:
+    //   - All fields are private and final, and nodes are never modified after construction.
+
+    private HashTrie(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * @param <K> type of keys
+     * @param <V> type of values
+     * @return the empty map
+     */
+    @SuppressWarnings("unchecked")
+    static <K, V> HashTrie<K, V> empty() {
+        return (HashTrie<K, V>) EMPTY;
+    }
+
+    /**
+     * @return the number of keys in this map
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param key a key
+     * @return the value of key, or null if it has none
+     */
+    @SuppressWarnings("unchecked")
+    V get(Object key) {
+        int hash = hash(key);
+        Object slot = root;
+        for (int shift = 0; slot instanceof Node; shift += BITS) {
+            Node node = (Node) slot;
+            int bit = 1 << ((hash >>> shift) & 31);
+            if ((node.bitmap & bit) == 0) {
+                return null;
+            }
+            slot = node.slots[Integer.bitCount(node.bitmap & (bit - 1))];
+        }
+        if (slot instanceof Leaf) {
+            Leaf leaf = (Leaf) slot;
+            return leaf.hash == hash && leaf.key.equals(key) ? (V) leaf.value : null;
+        }
+        for (Leaf leaf : ((Collision) slot).leaves) {
+            if (leaf.hash == hash && leaf.key.equals(key)) {
+                return (V) leaf.value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param key a key
+     * @param value its new value
+     * @return a map equal to this one except that key has value
+     */
+    HashTrie<K, V> with(K key, V value) {
+        boolean[] added = {false};
+        Node newRoot = (Node) insert(root, new Leaf(key, hash(key), value), 0, added);
+        return new HashTrie<>(newRoot, added[0] ? size + 1 : size);
+    }
+
+    /**
+     * @return an iterator over the entries of this map, in no particular
+     *         order, that does not support remove()
+     */
+    @Override
+    public Iterator<Map.Entry<K, V>> iterator() {
+        return new Entries<>(root);
+    }
+
+    // Spread the high bits of the hash code into the low digits, which decide the first levels
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    // Return a copy of slot, at the given shift, with leaf inserted or replacing a leaf of its key
+    private static Object insert(Object slot, Leaf leaf, int shift, boolean[] added) {
+        if (slot instanceof Node) {
+            Node node = (Node) slot;
+            int bit = 1 << ((leaf.hash >>> shift) & 31);
+            int index = Integer.bitCount(node.bitmap & (bit - 1));
+            if ((node.bitmap & bit) == 0) {
+                added[0] = true;
+                Object[] slots = new Object[node.slots.length + 1];
+                System.arraycopy(node.slots, 0, slots, 0, index);
+                slots[index] = leaf;
+                System.arraycopy(node.slots, index, slots, index + 1, node.slots.length - index);
+                return new Node(node.bitmap | bit, slots);
+            }
+            Object[] slots = node.slots.clone();
+            slots[index] = insert(slots[index], leaf, shift + BITS, added);
+            return new Node(node.bitmap, slots);
+        }
+        int hash = slot instanceof Leaf ? ((Leaf) slot).hash : ((Collision) slot).hash;
+        if (hash != leaf.hash) {
+            added[0] = true;
+            return split(slot, hash, leaf, shift);
+        }
+        Leaf[] leaves = slot instanceof Leaf ? new Leaf[] {(Leaf) slot} : ((Collision) slot).leaves;
+        for (int i = 0; i < leaves.length; i++) {
+            if (leaves[i].key.equals(leaf.key)) {
+                if (leaves.length == 1) {
+                    return leaf;
+                }
+                Leaf[] replaced = leaves.clone();
+                replaced[i] = leaf;
+                return new Collision(hash, replaced);
+            }
+        }
+        added[0] = true;
+        Leaf[] extended = Arrays.copyOf(leaves, leaves.length + 1);
+        extended[leaves.length] = leaf;
+        return new Collision(hash, extended);
+    }
+
+    // Return a node, at the given shift, holding slot, whose keys have hash, and leaf, whose
+    // hash differs
+    private static Node split(Object slot, int hash, Leaf leaf, int shift) {
+        int digit = (hash >>> shift) & 31;
+        int leafDigit = (leaf.hash >>> shift) & 31;
+        if (digit == leafDigit) {
+            return new Node(1 << digit, new Object[] {split(slot, hash, leaf, shift + BITS)});
+        }
+        Object[] slots = digit < leafDigit ? new Object[] {slot, leaf} : new Object[] {leaf, slot};
+        return new Node((1 << digit) | (1 << leafDigit), slots);
+    }
+
+    /** An interior node of the trie. */
+    private static final class Node {
+        private final int bitmap;
+        private final Object[] slots;
+
+        Node(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+    }
+
+    /** One key and its value. */
+    private static final class Leaf implements Map.Entry<Object, Object> {
+        private final Object key;
+        private final int hash;
+        private final Object value;
+
+        Leaf(Object key, int hash, Object value) {
+            this.key = key;
+            this.hash = hash;
+            this.value = value;
+        }
+
+        @Override
+        public Object getKey() {
+            return key;
+        }
+
+        @Override
+        public Object getValue() {
+            return value;
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            throw new UnsupportedOperationException("HashTrie is immutable");
+        }
+    }
+
+    /** The leaves of keys whose hashes are all equal. */
+    private static final class Collision {
+        private final int hash;
+        private final Leaf[] leaves;
+
+        Collision(int hash, Leaf[] leaves) {
+            this.hash = hash;
+            this.leaves = leaves;
+        }
+    }
+
+    /** A depth-first iterator over the leaves of a trie. */
+    private static final class Entries<K, V> implements Iterator<Map.Entry<K, V>> {
+        private final Deque<Object> pending = new ArrayDeque<>();
+
+        Entries(Node root) {
+            pending.push(root);
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!pending.isEmpty() && !(pending.peek() instanceof Leaf)) {
+                Object slot = pending.pop();
+                Object[] children = slot instanceof Node ? ((Node) slot).slots : ((Collision) slot).leaves;
+                for (Object child : children) {
+                    pending.push(child);
+                }
+            }
+            return !pending.isEmpty();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Map.Entry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return (Map.Entry<K, V>) pending.pop();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Tests for HashTrie.
+ */
+public class HashTrieTest {
+
+    // Testing strategy
+    //   with(): new key, existing key, keys with equal hashes, many keys
+    //   get(): present key, absent key, absent key whose hash collides with a present one
+    //   persistence: older versions unaffected by with()
+    //   iterator(): empty, every entry exactly once
+
+    @Test
+    public void testEmpty() {
+        HashTrie<String, Integer> trie = HashTrie.empty();
+        assertEquals(0, trie.size());
+        assertNull(trie.get("a"));
+        assertFalse(trie.iterator().hasNext());
+    }
+
+    @Test
+    public void testWithAndReplace() {
+        HashTrie<String, Integer> one = HashTrie.<String, Integer>empty().with("a", 1);
+        HashTrie<String, Integer> two = one.with("b", 2);
+        HashTrie<String, Integer> replaced = two.with("a", 3);
+        assertEquals(1, one.size());
+        assertEquals(2, two.size());
+        assertEquals(2, replaced.size());
+        assertEquals(Integer.valueOf(1), two.get("a"));
+        assertEquals(Integer.valueOf(3), replaced.get("a"));
+        assertEquals(Integer.valueOf(2), replaced.get("b"));
+        assertNull(one.get("b"));
+    }
+
+    @Test
+    public void testCollidingHashes() {
+        // "Aa" and "BB" have the same hash code
+        HashTrie<String, Integer> trie = HashTrie.<String, Integer>empty().with("Aa", 1).with("BB", 2);
+        assertEquals(2, trie.size());
+        assertEquals(Integer.valueOf(1), trie.get("Aa"));
+        assertEquals(Integer.valueOf(2), trie.get("BB"));
+        assertNull(trie.get("C#")); // Also the same hash code
+        trie = trie.with("BB", 3).with("C#", 4);
+        assertEquals(3, trie.size());
+        assertEquals(Integer.valueOf(3), trie.get("BB"));
+        assertEquals(Integer.valueOf(4), trie.get("C#"));
+    }
+
+    @Test
+    public void testManyKeys() {
+        HashTrie<String, Integer> trie = HashTrie.empty();
+        HashTrie<String, Integer> half = null;
+        for (int i = 0; i < 20_000; i++) {
+            trie = trie.with("k" + i, i);
+            if (i == 9_999) {
+                half = trie;
+            }
+        }
+        assertEquals(20_000, trie.size());
+        assertEquals(10_000, half.size());
+        for (int i = 0; i < 20_000; i++) {
+            assertEquals(Integer.valueOf(i), trie.get("k" + i));
+            assertEquals(i < 10_000 ? Integer.valueOf(i) : null, half.get("k" + i));
+        }
+        Map<String, Integer> seen = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : trie) {
+            assertNull(seen.put(entry.getKey(), entry.getValue()));
+        }
+        assertEquals(20_000, seen.size());
+        assertEquals(Integer.valueOf(123), seen.get("k123"));
+    }
+}
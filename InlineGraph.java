@@ -0,0 +1,273 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An implementation of Graph for a handful of vertices and edges, stored in
+ * small parallel arrays that every operation scans linearly. It has no
+ * per-vertex or per-edge objects, so it is the smallest representation of a
+ * graph with few edges.
+ *
+ * @param <L> type of vertex labels in this graph, must be immutable
+ */
+class InlineGraph<L> implements TraversableGraph<L> {
+
+    private Object[] labels = new Object[4];
+    private int vertexCount = 0;
+    private int[] sources = new int[4];
+    private int[] targets = new int[4];
+    private int[] weights = new int[4];
+    private int edgeCount = 0;
+
+    // Abstraction function:
+    //   Represents the directed graph with vertices labels[0..vertexCount) and, for each
+    //   i in [0, edgeCount), an edge from labels[sources[i]] to labels[targets[i]] of weight
+    //   weights[i].
+    // Representation invariant:
+    //   - labels[0..vertexCount) are distinct and non-null.
+    //   - Edge endpoints are in [0, vertexCount), no two edges have the same endpoints, and
+    //     every weight is positive.
+    // Safety from rep exposure:
+    //   - All fields are private, and observers return newly built sets and maps.
+
+    // Check representation invariant
+    private void checkRep() {
+        assert new HashSet<>(Arrays.asList(labels).subList(0, vertexCount)).size() == vertexCount;
+        for (int i = 0; i < edgeCount; i++) {
+            assert 0 <= sources[i] && sources[i] < vertexCount;
+            assert 0 <= targets[i] && targets[i] < vertexCount;
+            assert weights[i] > 0;
+        }
+    }
+
+    // Check representation invariant at the current validation level; every mutation may
+    // renumber vertices, so the touched part is the whole graph
+    private void checkRepAfterMutation() {
+        if (Validation.checkAll() || Validation.checkTouched()) {
+            checkRep();
+        }
+    }
+
+    /**
+     * @return the number of vertices in this graph
+     */
+    int vertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * @return the number of edges in this graph
+     */
+    int edgeCount() {
+        return edgeCount;
+    }
+
+    @Override
+    public boolean add(L vertex) {
+        if (indexOf(vertex) >= 0) {
+            return false;
+        }
+        intern(vertex);
+        checkRepAfterMutation();
+        return true;
+    }
+
+    @Override
+    public int set(L source, L target, int weight) {
+        if (weight < 0) throw new IllegalArgumentException("Weight cannot be negative");
+
+        int sourceIndex = indexOf(source);
+        int targetIndex = indexOf(target);
+        if (weight == 0 && (sourceIndex < 0 || targetIndex < 0)) {
+            return 0; // No such edge, and the graph is not otherwise modified
+        }
+        sourceIndex = sourceIndex >= 0 ? sourceIndex : intern(source);
+        targetIndex = targetIndex >= 0 ? targetIndex : intern(target);
+
+        int edge = edgeIndex(sourceIndex, targetIndex);
+        int previousWeight = edge < 0 ? 0 : weights[edge];
+        if (edge >= 0 && weight > 0) {
+            weights[edge] = weight;
+        } else if (edge >= 0) {
+            removeEdge(edge);
+        } else if (weight > 0) {
+            if (edgeCount == weights.length) {
+                sources = Arrays.copyOf(sources, edgeCount * 2);
+                targets = Arrays.copyOf(targets, edgeCount * 2);
+                weights = Arrays.copyOf(weights, edgeCount * 2);
+            }
+            sources[edgeCount] = sourceIndex;
+            targets[edgeCount] = targetIndex;
+            weights[edgeCount] = weight;
+            edgeCount++;
+        }
+        checkRepAfterMutation();
+        return previousWeight;
+    }
+
+    @Override
+    public boolean remove(L vertex) {
+        int index = indexOf(vertex);
+        if (index < 0) {
+            return false;
+        }
+        for (int i = edgeCount - 1; i >= 0; i--) {
+            if (sources[i] == index || targets[i] == index) {
+                removeEdge(i);
+            }
+        }
+        // Move the last vertex into the freed index
+        int last = --vertexCount;
+        labels[index] = labels[last];
+        labels[last] = null;
+        for (int i = 0; i < edgeCount; i++) {
+            if (sources[i] == last) sources[i] = index;
+            if (targets[i] == last) targets[i] = index;
+        }
+        checkRepAfterMutation();
+        return true;
+    }
+
+    @Override
+    public Set<L> vertices() {
+        CopyCounter.copied();
+        Set<L> vertices = new HashSet<>();
+        for (int i = 0; i < vertexCount; i++) {
+            vertices.add(label(i));
+        }
+        return vertices;
+    }
+
+    @Override
+    public Map<L, Integer> sources(L target) {
+        CopyCounter.copied();
+        Map<L, Integer> result = new HashMap<>();
+        int index = indexOf(target);
+        for (int i = 0; index >= 0 && i < edgeCount; i++) {
+            if (targets[i] == index) {
+                result.put(label(sources[i]), weights[i]);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Map<L, Integer> targets(L source) {
+        CopyCounter.copied();
+        Map<L, Integer> result = new HashMap<>();
+        int index = indexOf(source);
+        for (int i = 0; index >= 0 && i < edgeCount; i++) {
+            if (sources[i] == index) {
+                result.put(label(targets[i]), weights[i]);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void forEachTarget(L source, EdgeVisitor<? super L> visitor) {
+        int index = indexOf(source);
+        for (int i = 0; index >= 0 && i < edgeCount; i++) {
+            if (sources[i] == index) {
+                visitor.visit(label(targets[i]), weights[i]);
+            }
+        }
+    }
+
+    @Override
+    public void forEachSource(L target, EdgeVisitor<? super L> visitor) {
+        int index = indexOf(target);
+        for (int i = 0; index >= 0 && i < edgeCount; i++) {
+            if (targets[i] == index) {
+                visitor.visit(label(sources[i]), weights[i]);
+            }
+        }
+    }
+
+    @Override
+    public int outDegree(L source) {
+        int index = indexOf(source);
+        int degree = 0;
+        for (int i = 0; index >= 0 && i < edgeCount; i++) {
+            if (sources[i] == index) {
+                degree++;
+            }
+        }
+        return degree;
+    }
+
+    @Override
+    public int inDegree(L target) {
+        int index = indexOf(target);
+        int degree = 0;
+        for (int i = 0; index >= 0 && i < edgeCount; i++) {
+            if (targets[i] == index) {
+                degree++;
+            }
+        }
+        return degree;
+    }
+
+    @Override
+    public int weight(L source, L target) {
+        int sourceIndex = indexOf(source);
+        int targetIndex = indexOf(target);
+        int edge = sourceIndex < 0 || targetIndex < 0 ? -1 : edgeIndex(sourceIndex, targetIndex);
+        return edge < 0 ? 0 : weights[edge];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Vertices: ").append(vertices()).append("\nEdges:\n");
+        for (int i = 0; i < edgeCount; i++) {
+            sb.append(String.format("Edge from %s to %s with weight %d", labels[sources[i]], labels[targets[i]], weights[i]))
+                    .append("\n");
+        }
+        return sb.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private L label(int index) {
+        return (L) labels[index];
+    }
+
+    private int indexOf(L vertex) {
+        for (int i = 0; i < vertexCount; i++) {
+            if (labels[i].equals(vertex)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Add a vertex known to be absent, returning its index
+    private int intern(L vertex) {
+        if (vertexCount == labels.length) {
+            labels = Arrays.copyOf(labels, vertexCount * 2);
+        }
+        labels[vertexCount] = vertex;
+        return vertexCount++;
+    }
+
+    private int edgeIndex(int sourceIndex, int targetIndex) {
+        for (int i = 0; i < edgeCount; i++) {
+            if (sources[i] == sourceIndex && targets[i] == targetIndex) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Remove an edge by moving the last edge into its place
+    private void removeEdge(int edge) {
+        int last = --edgeCount;
+        sources[edge] = sources[last];
+        targets[edge] = targets[last];
+        weights[edge] = weights[last];
+    }
+}
@@ -0,0 +1,52 @@
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Tests for InlineGraph.
+ */
+public class InlineGraphTest extends GraphInstanceTest {
+
+    // Testing strategy
+    //   remove(): first, middle or last vertex, which renumbers the last vertex
+    //   set(): grows past the initial array capacity
+
+    @Override
+    public Graph<String> emptyInstance() {
+        return new InlineGraph<>();
+    }
+
+    // Test that removing a vertex keeps the edges of the vertex moved into its place
+    @Test
+    public void testRemoveRenumbersLastVertex() {
+        InlineGraph<String> graph = new InlineGraph<>();
+        graph.set("A", "B", 1);
+        graph.set("B", "C", 2);
+        graph.set("C", "A", 3);
+        graph.set("C", "C", 4);
+
+        assertTrue(graph.remove("A"));
+        assertEquals(Set.of("B", "C"), graph.vertices());
+        assertEquals(Map.of("C", 2), graph.targets("B"));
+        assertEquals(Map.of("B", 2, "C", 4), graph.sources("C"));
+        assertEquals(2, graph.vertexCount());
+        assertEquals(2, graph.edgeCount());
+    }
+
+    // Test growing past the initial capacity
+    @Test
+    public void testManyEdges() {
+        InlineGraph<String> graph = new InlineGraph<>();
+        for (int i = 0; i < 20; i++) {
+            graph.set("v" + i, "v" + (i + 1), i + 1);
+        }
+        assertEquals(21, graph.vertexCount());
+        assertEquals(20, graph.edgeCount());
+        assertEquals(Map.of("v10", 11), graph.sources("v11"));
+    }
+}
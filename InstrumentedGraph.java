@@ -0,0 +1,335 @@
+package graph;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A Graph that forwards every call to another graph and records, for each
+ * operation, its call count, latency histogram, result sizes and the number
+ * of defensive copies the wrapped graph reported making through
+ * {@link CopyCounter}. set() is recorded as one of four operations, by
+ * whether it added, updated, removed or left unchanged an edge.
+ *
+ * <p>Recording is thread-safe and lock-free, so this graph is as thread-safe
+ * as the graph it wraps.
+ *
+ * @param <L> type of vertex labels in this graph, must be immutable
+ */
+public class InstrumentedGraph<L> implements Graph<L> {
+
+    /**
+     * The operations of a graph, with set() split by outcome.
+     */
+    public enum Operation {
+        /** add() of any vertex */
+        ADD,
+        /** set() that created an edge */
+        SET_ADD,
+        /** set() that changed the weight of an edge, or set it to the same weight */
+        SET_UPDATE,
+        /** set() that removed an edge */
+        SET_REMOVE,
+        /** set() of weight 0 where there was no edge */
+        SET_NONE,
+        /** remove() of any vertex */
+        REMOVE,
+        /** vertices() */
+        VERTICES,
+        /** sources() */
+        SOURCES,
+        /** targets() */
+        TARGETS,
+    }
+
+    private static final int BUCKETS = 64;
+
+    private final Graph<L> delegate;
+    private final Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+
+    // Abstraction function:
+    //   Represents the graph delegate, and for each operation op the calls to op recorded in
+    //   recorders[op] since creation or the last reset().
+    // Representation invariant:
+    //   - recorders has a recorder for every operation.
+    // Safety from rep exposure:
+    //   - All fields are private and final; graph results come from delegate, and snapshots
+    //     are immutable.
+    // Thread safety argument:
+    //   - recorders is never modified after construction, and each Recorder is thread-safe.
+
+    /**
+     * Create a graph that records the calls made to another.
+     *
+     * @param delegate graph to forward every call to; it should not be used
+     *        directly while wrapped, or those calls are not recorded
+     */
+    public InstrumentedGraph(Graph<L> delegate) {
+        this.delegate = Objects.requireNonNull(delegate);
+        for (Operation operation : Operation.values()) {
+            recorders.put(operation, new Recorder());
+        }
+        checkRep();
+    }
+
+    private void checkRep() {
+        assert recorders.size() == Operation.values().length;
+    }
+
+    @Override
+    public boolean add(L vertex) {
+        long start = System.nanoTime();
+        boolean added = delegate.add(vertex);
+        recorders.get(Operation.ADD).record(System.nanoTime() - start);
+        return added;
+    }
+
+    @Override
+    public int set(L source, L target, int weight) {
+        long start = System.nanoTime();
+        int previous = delegate.set(source, target, weight);
+        long elapsed = System.nanoTime() - start;
+        Operation outcome;
+        if (weight == 0) {
+            outcome = previous == 0 ? Operation.SET_NONE : Operation.SET_REMOVE;
+        } else {
+            outcome = previous == 0 ? Operation.SET_ADD : Operation.SET_UPDATE;
+        }
+        recorders.get(outcome).record(elapsed);
+        return previous;
+    }
+
+    @Override
+    public boolean remove(L vertex) {
+        long start = System.nanoTime();
+        boolean removed = delegate.remove(vertex);
+        recorders.get(Operation.REMOVE).record(System.nanoTime() - start);
+        return removed;
+    }
+
+    @Override
+    public Set<L> vertices() {
+        long copies = CopyCounter.count();
+        long start = System.nanoTime();
+        Set<L> vertices = delegate.vertices();
+        long elapsed = System.nanoTime() - start;
+        recorders.get(Operation.VERTICES).record(elapsed, vertices.size(), CopyCounter.count() - copies);
+        return vertices;
+    }
+
+    @Override
+    public Map<L, Integer> sources(L target) {
+        long copies = CopyCounter.count();
+        long start = System.nanoTime();
+        Map<L, Integer> sources = delegate.sources(target);
+        long elapsed = System.nanoTime() - start;
+        recorders.get(Operation.SOURCES).record(elapsed, sources.size(), CopyCounter.count() - copies);
+        return sources;
+    }
+
+    @Override
+    public Map<L, Integer> targets(L source) {
+        long copies = CopyCounter.count();
+        long start = System.nanoTime();
+        Map<L, Integer> targets = delegate.targets(source);
+        long elapsed = System.nanoTime() - start;
+        recorders.get(Operation.TARGETS).record(elapsed, targets.size(), CopyCounter.count() - copies);
+        return targets;
+    }
+
+    /**
+     * @return an immutable snapshot of the metrics of every operation; a
+     *         snapshot taken during calls may miss some of them
+     */
+    public Map<Operation, OperationStats> snapshot() {
+        Map<Operation, OperationStats> snapshot = new EnumMap<>(Operation.class);
+        for (Map.Entry<Operation, Recorder> entry : recorders.entrySet()) {
+            snapshot.put(entry.getKey(), entry.getValue().snapshot());
+        }
+        return Collections.unmodifiableMap(snapshot);
+    }
+
+    /**
+     * @param operation an operation
+     * @return an immutable snapshot of the metrics of that operation
+     */
+    public OperationStats snapshot(Operation operation) {
+        return recorders.get(operation).snapshot();
+    }
+
+    /**
+     * Reset the metrics of every operation to zero.
+     */
+    public void reset() {
+        for (Recorder recorder : recorders.values()) {
+            recorder.reset();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return delegate.toString();
+    }
+
+    /**
+     * The metrics of one operation, recorded by concurrent callers.
+     */
+    private static class Recorder {
+
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder elements = new LongAdder();
+        private final LongAdder copies = new LongAdder();
+
+        // Abstraction function:
+        //   Represents calls calls taking totalNanos in total, buckets[i] of them taking a time
+        //   whose highest set bit is bit i-1 (0 for bucket 0); elements and copies count the
+        //   result elements and the defensive copies reported during the calls.
+        // Representation invariant:
+        //   - All counts are non-negative.
+        // Thread safety argument:
+        //   - Every field is an atomic or concurrent accumulator.
+
+        void record(long nanos) {
+            calls.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+            buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(Math.max(0, nanos)));
+        }
+
+        // Record an observer call with the size of its result and the copies it reported
+        void record(long nanos, int size, long copied) {
+            record(nanos);
+            elements.add(size);
+            copies.add(copied);
+        }
+
+        OperationStats snapshot() {
+            long[] counts = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = buckets.get(i);
+            }
+            return new OperationStats(calls.sum(), totalNanos.sum(), maxNanos.get(), counts,
+                    elements.sum(), copies.sum());
+        }
+
+        void reset() {
+            calls.reset();
+            totalNanos.reset();
+            maxNanos.reset();
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets.set(i, 0);
+            }
+            elements.reset();
+            copies.reset();
+        }
+    }
+
+    /**
+     * An immutable snapshot of the metrics of one operation.
+     */
+    public static class OperationStats {
+
+        private final long calls;
+        private final long totalNanos;
+        private final long maxNanos;
+        private final long[] buckets;
+        private final long elements;
+        private final long copies;
+
+        private OperationStats(long calls, long totalNanos, long maxNanos, long[] buckets, long elements, long copies) {
+            this.calls = calls;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+            this.buckets = buckets;
+            this.elements = elements;
+            this.copies = copies;
+        }
+
+        /**
+         * @return the number of calls
+         */
+        public long getCalls() {
+            return calls;
+        }
+
+        /**
+         * @return the total time of all calls, in nanoseconds
+         */
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        /**
+         * @return the mean time of a call in nanoseconds, or 0 if there were none
+         */
+        public double getMeanNanos() {
+            return calls == 0 ? 0 : (double) totalNanos / calls;
+        }
+
+        /**
+         * @return the time of the slowest call, in nanoseconds
+         */
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        /**
+         * @param fraction fraction of calls, in [0, 1]
+         * @return an upper bound, less than twice the true value, on the time
+         *         in nanoseconds within which that fraction of calls finished,
+         *         or 0 if there were none
+         */
+        public long getPercentileNanos(double fraction) {
+            if (fraction < 0 || fraction > 1) throw new IllegalArgumentException("Fraction must be in [0, 1]");
+            long rank = (long) Math.ceil(fraction * calls);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets[i];
+                if (seen >= rank && seen > 0) {
+                    return Math.min(i == 0 ? 0 : (1L << i) - 1, maxNanos);
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * @return the call count of each latency bucket, where bucket 0 counts
+         *         calls taking 0 ns and bucket i > 0 counts calls taking
+         *         [2^(i-1), 2^i) ns
+         */
+        public long[] getBuckets() {
+            return buckets.clone();
+        }
+
+        /**
+         * @return the total number of vertices or edges in the results of
+         *         observer calls, or 0 for mutators
+         */
+        public long getElements() {
+            return elements;
+        }
+
+        /**
+         * @return the number of defensive copies the wrapped graph reported
+         *         through {@link CopyCounter} during observer calls, or 0 for
+         *         mutators and for graphs that do not report copies
+         */
+        public long getCopies() {
+            return copies;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("OperationStats{calls=%d, meanNanos=%.1f, p99Nanos=%d, maxNanos=%d, elements=%d, copies=%d}",
+                    calls, getMeanNanos(), getPercentileNanos(0.99), maxNanos, elements, copies);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+import graph.InstrumentedGraph.Operation;
+import graph.InstrumentedGraph.OperationStats;
+
+/**
+ * Tests for InstrumentedGraph.
+ */
+public class InstrumentedGraphTest extends GraphInstanceTest {
+
+    // Testing strategy
+    //   set outcome: add, update, remove, none
+    //   observers: fresh copies, cached results built once then reused, alternating arguments,
+    //     graph that never copies
+    //   snapshot: before and after reset, unaffected by later calls
+
+    @Override
+    public Graph<String> emptyInstance() {
+        return new InstrumentedGraph<>(new ConcreteEdgesGraph());
+    }
+
+    // Test that set() is counted by outcome
+    @Test
+    public void testSetOutcomes() {
+        InstrumentedGraph<String> graph = new InstrumentedGraph<>(new ConcreteEdgesGraph());
+        graph.set("a", "b", 1);
+        graph.set("a", "c", 1);
+        graph.set("a", "b", 2);
+        graph.set("a", "b", 0);
+        graph.set("a", "b", 0);
+        graph.add("a");
+        graph.remove("c");
+
+        Map<Operation, OperationStats> stats = graph.snapshot();
+        assertEquals(2, stats.get(Operation.SET_ADD).getCalls());
+        assertEquals(1, stats.get(Operation.SET_UPDATE).getCalls());
+        assertEquals(1, stats.get(Operation.SET_REMOVE).getCalls());
+        assertEquals(1, stats.get(Operation.SET_NONE).getCalls());
+        assertEquals(1, stats.get(Operation.ADD).getCalls());
+        assertEquals(1, stats.get(Operation.REMOVE).getCalls());
+        assertEquals(0, stats.get(Operation.TARGETS).getCalls());
+        assertEquals(0, stats.get(Operation.SET_ADD).getElements());
+    }
+
+    // Test result sizes and copies with a graph that returns fresh maps
+    @Test
+    public void testObserverCopies() {
+        InstrumentedGraph<String> graph = new InstrumentedGraph<>(new ConcreteEdgesGraph());
+        graph.set("a", "b", 1);
+        graph.set("a", "c", 1);
+        graph.targets("a");
+        graph.targets("a");
+        graph.sources("b");
+        graph.vertices();
+
+        assertEquals(2, graph.snapshot(Operation.TARGETS).getCalls());
+        assertEquals(4, graph.snapshot(Operation.TARGETS).getElements());
+        assertEquals(2, graph.snapshot(Operation.TARGETS).getCopies());
+        assertEquals(1, graph.snapshot(Operation.SOURCES).getElements());
+        assertEquals(3, graph.snapshot(Operation.VERTICES).getElements());
+    }
+
+    // Test that a cached result is counted as a copy only when it is built
+    @Test
+    public void testObserverReuse() {
+        InstrumentedGraph<String> graph = new InstrumentedGraph<>(new ConcreteEdgesGraph(true));
+        graph.set("a", "b", 1);
+        graph.set("c", "b", 1);
+        graph.targets("a");
+        graph.targets("a");
+        graph.targets("a");
+        assertEquals(1, graph.snapshot(Operation.TARGETS).getCopies());
+
+        graph.targets("c");
+        graph.targets("a");
+        graph.targets("c");
+        assertEquals(2, graph.snapshot(Operation.TARGETS).getCopies());
+    }
+
+    // Test that alternating calls to a graph that shares its rows count no copies
+    @Test
+    public void testObserverNoCopies() {
+        Graph<String> rows = new ConcreteEdgesGraph();
+        rows.set("a", "b", 1);
+        rows.set("c", "b", 1);
+        InstrumentedGraph<String> graph = new InstrumentedGraph<>(FrozenGraph.freeze(rows));
+        for (int i = 0; i < 5; i++) {
+            graph.targets("a");
+            graph.targets("c");
+            graph.sources(i % 2 == 0 ? "a" : "b");
+        }
+        graph.vertices();
+        assertEquals(10, graph.snapshot(Operation.TARGETS).getCalls());
+        assertEquals(0, graph.snapshot(Operation.TARGETS).getCopies());
+        assertEquals(0, graph.snapshot(Operation.SOURCES).getCopies());
+        assertEquals(0, graph.snapshot(Operation.VERTICES).getCopies());
+    }
+
+    // Test latency statistics, reset, and snapshot immutability
+    @Test
+    public void testLatencyAndReset() {
+        InstrumentedGraph<String> graph = new InstrumentedGraph<>(new ConcreteEdgesGraph());
+        for (int i = 0; i < 100; i++) {
+            graph.add("v" + i);
+        }
+        OperationStats adds = graph.snapshot(Operation.ADD);
+        assertEquals(100, adds.getCalls());
+        assertTrue(adds.getTotalNanos() > 0);
+        assertTrue(adds.getPercentileNanos(0.5) <= adds.getPercentileNanos(1));
+        assertEquals(adds.getMaxNanos(), adds.getPercentileNanos(1));
+        long bucketTotal = 0;
+        for (long count : adds.getBuckets()) {
+            bucketTotal += count;
+        }
+        assertEquals(100, bucketTotal);
+
+        graph.reset();
+        assertEquals(0, graph.snapshot(Operation.ADD).getCalls());
+        assertEquals(0, graph.snapshot(Operation.ADD).getPercentileNanos(0.5));
+        assertEquals(100, adds.getCalls());
+    }
+}
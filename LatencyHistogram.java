@@ -0,0 +1,111 @@
+package poet;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread-safe histogram of latencies in microseconds, with one bucket per
+ * power of two, so that recording is wait-free and percentiles are accurate
+ * to within a factor of two.
+ */
+class LatencyHistogram {
+
+    private static final int BUCKETS = 64;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    // Abstraction function:
+    //   Represents a multiset of latencies with sum total and maximum max, of which counts[0]
+    //   are 0 and counts[i] are in [2^(i-1), 2^i) for i > 0.
+    // Representation invariant:
+    //   - Every count is non-negative.
+    // Safety from rep exposure:
+    //   - All fields are private, and only primitives and strings are returned.
+    // Thread safety argument:
+    //   - Every field is an atomic or concurrent accumulator, updated independently, so a
+    //     snapshot taken while latencies are recorded may miss the most recent ones.
+
+    /**
+     * Record a latency.
+     *
+     * @param micros non-negative latency in microseconds
+     */
+    void record(long micros) {
+        if (micros < 0) throw new IllegalArgumentException("Latency cannot be negative");
+        counts.incrementAndGet(bucket(micros));
+        total.add(micros);
+        max.accumulate(micros);
+    }
+
+    /**
+     * @return the number of latencies recorded
+     */
+    long count() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * @param fraction fraction of latencies, in [0, 1]
+     * @return an upper bound, less than twice the true value, on the latency
+     *         below which that fraction of the recorded latencies fall, or 0
+     *         if none were recorded
+     */
+    long percentile(double fraction) {
+        if (fraction < 0 || fraction > 1) throw new IllegalArgumentException("Fraction must be in [0, 1]");
+        long[] snapshot = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        long rank = (long) Math.ceil(fraction * count);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank && seen > 0) {
+                return Math.min(upperBound(i), max.get());
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return the recorded latencies as a JSON object with their count, mean,
+     *         50th, 90th and 99th percentiles, maximum, and the count of each
+     *         bucket up to the last non-empty one, bucket i > 0 holding
+     *         latencies in [2^(i-1), 2^i)
+     */
+    String toJson() {
+        long count = count();
+        int last = BUCKETS - 1;
+        while (last > 0 && counts.get(last) == 0) {
+            last--;
+        }
+        StringBuilder json = new StringBuilder("{\"count\":").append(count)
+                .append(",\"meanMicros\":").append(count == 0 ? 0 : total.sum() / count)
+                .append(",\"p50Micros\":").append(percentile(0.5))
+                .append(",\"p90Micros\":").append(percentile(0.9))
+                .append(",\"p99Micros\":").append(percentile(0.99))
+                .append(",\"maxMicros\":").append(max.get())
+                .append(",\"buckets\":[");
+        for (int i = 0; i <= last; i++) {
+            json.append(i == 0 ? "" : ",").append(counts.get(i));
+        }
+        return json.append("]}").toString();
+    }
+
+    private static int bucket(long micros) {
+        return Long.SIZE - Long.numberOfLeadingZeros(micros);
+    }
+
+    private static long upperBound(int bucket) {
+        return bucket == 0 ? 0 : (1L << bucket) - 1;
+    }
+}
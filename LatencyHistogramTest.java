@@ -0,0 +1,60 @@
+package poet;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Tests for LatencyHistogram.
+ */
+public class LatencyHistogramTest {
+
+    // Testing strategy
+    //   recorded latencies: none, zero, powers of two and between them
+    //   percentile: 0, middle, 1
+    //   record: negative latency
+
+    // Test an empty histogram
+    @Test
+    public void testEmpty() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.percentile(0.5));
+        assertTrue(histogram.toJson().startsWith("{\"count\":0,"));
+    }
+
+    // Test that percentiles are bucket upper bounds capped by the maximum
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 90; i++) {
+            histogram.record(5);
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(100);
+        }
+        assertEquals(100, histogram.count());
+        assertEquals(7, histogram.percentile(0.5));
+        assertEquals(7, histogram.percentile(0.9));
+        assertEquals(100, histogram.percentile(0.99));
+        assertEquals(100, histogram.percentile(1));
+    }
+
+    // Test the bucket of zero and the bucket boundaries
+    @Test
+    public void testBuckets() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(0);
+        histogram.record(1);
+        histogram.record(2);
+        histogram.record(3);
+        histogram.record(4);
+        assertTrue(histogram.toJson().endsWith("\"buckets\":[1,1,2,1]}"));
+        assertEquals(0, histogram.percentile(0.2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeLatency() {
+        new LatencyHistogram().record(-1);
+    }
+}
@@ -5,6 +5,8 @@ package poet;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 /**
  * Example program using GraphPoet.
@@ -16,11 +18,22 @@ public class Main {
     /**
      * Generate example poetry.
      * 
-     * @param args unused
-     * @throws IOException if a poet corpus file cannot be found or read
+     * @param args optionally, the path of a graph snapshot to load instead of
+     *        reading the corpus, which is created from the corpus if it does
+     *        not exist
+     * @throws IOException if a poet corpus or snapshot file cannot be read or
+     *         written
      */
     public static void main(String[] args) throws IOException {
-        final GraphPoet nimoy = new GraphPoet(new File("src/poet/mugar-omni-theater.txt"));
+        final GraphPoet nimoy;
+        if (args.length > 0 && Files.exists(Path.of(args[0]))) {
+            nimoy = GraphPoet.load(Path.of(args[0]));
+        } else {
+            nimoy = new GraphPoet(new File("src/poet/mugar-omni-theater.txt"));
+            if (args.length > 0) {
+                nimoy.save(Path.of(args[0]));
+            }
+        }
         final String input = "Test the system.";
         System.out.println(input + "\n>>>\n" + nimoy.poem(input));
     }
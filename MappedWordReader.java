@@ -0,0 +1,348 @@
+package poet;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import graph.GraphBuilder;
+
+/**
+ * Reads the words of a UTF-8 corpus file by memory-mapping it and scanning
+ * its bytes, resolving each word to an interned int id without creating a
+ * string for it.
+ *
+ * <p>Words are split on the ASCII whitespace bytes of {@code \s}, which never
+ * occur inside a multi-byte UTF-8 sequence. A word is decoded and lowercased
+ * with {@link String#toLowerCase()}, exactly as {@link WordReader} lowercases
+ * it, only the first time its bytes are seen; spellings that differ only in
+ * case take one table slot each and share the id of their lowercase word. So
+ * the words are the same as those of WordReader, in any default locale,
+ * except that malformed UTF-8 is replaced rather than rejected.
+ */
+class MappedWordReader {
+
+    /** Default number of bytes mapped at a time. */
+    static final int DEFAULT_WINDOW_SIZE = 1 << 30;
+
+    private static final int EMPTY = -1;
+
+    private final int windowSize;
+
+    private final List<String> words = new ArrayList<>();
+    private final Map<String, Integer> wordIds = new HashMap<>();
+
+    private int[] slotHashes = new int[1 << 12];
+    private int[] slotOffsets = new int[1 << 12];
+    private int[] slotLengths = new int[1 << 12];
+    private int[] slotWords = newSlots(1 << 12);
+    private int slotCount = 0;
+    private byte[] keys = new byte[1 << 16];
+    private int keysSize = 0;
+    private byte[] scratch = new byte[64];
+
+    private final BigramTable bigrams = new BigramTable();
+    private int lastWord = EMPTY;
+
+    // Abstraction function:
+    //   Represents the vocabulary read so far, where word id i is words[i], and the bigram counts
+    //   of the words read so far, the last of which has id lastWord (EMPTY if none). Each used
+    //   slot s of the byte table maps the bytes keys[slotOffsets[s]..+slotLengths[s]),
+    //   with hash slotHashes[s], to word id slotWords[s].
+    // Representation invariant:
+    //   - wordIds and words are inverse of each other.
+    //   - slotCount counts the used slots, which are at most half of them; slot arrays have
+    //     the same power-of-two length.
+    //   - No empty slot lies between a key's home slot and the slot holding it.
+    // Safety from rep exposure:
+    //   - All fields are private; only immutable strings and primitives are returned.
+
+    MappedWordReader() {
+        this(DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * @param windowSize positive number of bytes to map at a time, at least
+     *        the length in bytes of the longest word
+     */
+    MappedWordReader(int windowSize) {
+        if (windowSize <= 0) throw new IllegalArgumentException("Window size must be positive");
+        this.windowSize = windowSize;
+    }
+
+    private void checkRep() {
+        assert words.size() == wordIds.size();
+        assert slotCount * 2 <= slotWords.length;
+    }
+
+    /**
+     * Read every word of a corpus file and count its bigrams.
+     *
+     * @param corpus UTF-8 text file
+     * @throws IOException if the file cannot be read, or holds a word longer
+     *         than the window size
+     */
+    void read(Path corpus) throws IOException {
+        try (FileChannel channel = FileChannel.open(corpus, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long start = 0;
+            int previous = EMPTY;
+            boolean leadingSpace = false;
+            while (start < size) {
+                int limit = (int) Math.min(windowSize, size - start);
+                boolean last = start + limit == size;
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, start, limit);
+                if (start == 0) {
+                    leadingSpace = isSpace(window.get(0));
+                }
+                int i = 0;
+                while (true) {
+                    while (i < limit && isSpace(window.get(i))) {
+                        i++;
+                    }
+                    int wordStart = i;
+                    while (i < limit && !isSpace(window.get(i))) {
+                        i++;
+                    }
+                    if (i == wordStart) {
+                        start += limit;
+                        break;
+                    }
+                    if (i == limit && !last) {
+                        if (wordStart > 0) {
+                            // The word may go on past the window, so map again from its start
+                            start += wordStart;
+                            break;
+                        }
+                        if (!isSpace(byteAt(channel, start + limit))) {
+                            throw new IOException("Word longer than " + windowSize + " bytes at " + start);
+                        }
+                        // The word fills the window exactly
+                    }
+                    int word = id(window, wordStart, i);
+                    if (previous == EMPTY && leadingSpace) {
+                        previous = id(""); // split() yields an empty first word here
+                    }
+                    if (previous != EMPTY) {
+                        bigrams.increment(previous, word);
+                    }
+                    previous = word;
+                }
+            }
+            lastWord = previous;
+        }
+        checkRep();
+    }
+
+    /**
+     * @param id a word id
+     * @return the word with that id
+     */
+    String word(int id) {
+        return words.get(id);
+    }
+
+    /**
+     * @return the last word read, or null if no word was read
+     */
+    String lastWord() {
+        return lastWord == EMPTY ? null : word(lastWord);
+    }
+
+    /**
+     * Add every bigram count read so far as an edge weight increment.
+     *
+     * @param builder builder of a word affinity graph
+     */
+    void addTo(GraphBuilder<String> builder) {
+        bigrams.forEach((word1, word2, count) -> builder.increment(word(word1), word(word2), count));
+    }
+
+    // Return the byte of the file at position
+    private static byte byteAt(FileChannel channel, long position) throws IOException {
+        ByteBuffer one = ByteBuffer.allocate(1);
+        if (channel.read(one, position) != 1) {
+            throw new IOException("Corpus file shrank while it was read");
+        }
+        return one.get(0);
+    }
+
+    // Return the id of the word in window[start..end), interning it if it is new
+    private int id(MappedByteBuffer window, int start, int end) {
+        int length = end - start;
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            byte b = window.get(start + i);
+            scratch[i] = b;
+            hash = 31 * hash + b;
+        }
+        int mask = slotWords.length - 1;
+        for (int slot = mix(hash) & mask; slotWords[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (slotHashes[slot] == hash && slotLengths[slot] == length
+                    && Arrays.equals(keys, slotOffsets[slot], slotOffsets[slot] + length, scratch, 0, length)) {
+                return slotWords[slot];
+            }
+        }
+        int word = id(new String(scratch, 0, length, StandardCharsets.UTF_8).toLowerCase());
+        insert(hash, length, word);
+        return word;
+    }
+
+    // Return the id of a decoded lowercase word, interning it if it is new
+    private int id(String word) {
+        Integer id = wordIds.get(word);
+        if (id == null) {
+            id = words.size();
+            words.add(word);
+            wordIds.put(word, id);
+        }
+        return id;
+    }
+
+    // Add the bytes in scratch[0..length) to the byte table
+    private void insert(int hash, int length, int word) {
+        if (keys.length - keysSize < length) {
+            keys = Arrays.copyOf(keys, Math.max(keysSize + length, keys.length * 2));
+        }
+        System.arraycopy(scratch, 0, keys, keysSize, length);
+        int mask = slotWords.length - 1;
+        int slot = mix(hash) & mask;
+        while (slotWords[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        slotHashes[slot] = hash;
+        slotOffsets[slot] = keysSize;
+        slotLengths[slot] = length;
+        slotWords[slot] = word;
+        keysSize += length;
+        if (++slotCount * 2 > slotWords.length) {
+            resize();
+        }
+    }
+
+    private void resize() {
+        int[] oldHashes = slotHashes;
+        int[] oldOffsets = slotOffsets;
+        int[] oldLengths = slotLengths;
+        int[] oldWords = slotWords;
+        int capacity = oldWords.length * 2;
+        slotHashes = new int[capacity];
+        slotOffsets = new int[capacity];
+        slotLengths = new int[capacity];
+        slotWords = newSlots(capacity);
+        for (int i = 0; i < oldWords.length; i++) {
+            if (oldWords[i] != EMPTY) {
+                int slot = mix(oldHashes[i]) & (capacity - 1);
+                while (slotWords[slot] != EMPTY) {
+                    slot = (slot + 1) & (capacity - 1);
+                }
+                slotHashes[slot] = oldHashes[i];
+                slotOffsets[slot] = oldOffsets[i];
+                slotLengths[slot] = oldLengths[i];
+                slotWords[slot] = oldWords[i];
+            }
+        }
+    }
+
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int[] newSlots(int capacity) {
+        int[] slots = new int[capacity];
+        Arrays.fill(slots, EMPTY);
+        return slots;
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == 0x0B || b == '\f' || b == '\r';
+    }
+
+    /**
+     * An open-addressing table counting bigrams of word ids, keyed on the
+     * packed pair of ids.
+     */
+    private static class BigramTable {
+
+        private static final long FREE = -1L;
+
+        private long[] keys = newKeys(1 << 12);
+        private int[] counts = new int[1 << 12];
+        private int size = 0;
+
+        // Abstraction function:
+        //   Represents the count counts[i] for the bigram packed in each keys[i] != FREE.
+        // Representation invariant:
+        //   - Keys are non-negative, distinct, and fill at most half of the slots.
+        // Safety from rep exposure:
+        //   - All fields are private, and only primitives cross the interface.
+
+        interface Visitor {
+            void visit(int word1, int word2, int count);
+        }
+
+        void increment(int word1, int word2) {
+            long key = ((long) word1 << 32) | word2;
+            int mask = keys.length - 1;
+            int slot = home(key, mask);
+            while (keys[slot] != FREE && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            boolean added = keys[slot] == FREE;
+            keys[slot] = key;
+            counts[slot]++;
+            if (added && ++size * 2 > keys.length) {
+                resize();
+            }
+        }
+
+        void forEach(Visitor visitor) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != FREE) {
+                    visitor.visit((int) (keys[i] >>> 32), (int) keys[i], counts[i]);
+                }
+            }
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            int[] oldCounts = counts;
+            keys = newKeys(oldKeys.length * 2);
+            counts = new int[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != FREE) {
+                    int slot = home(oldKeys[i], mask);
+                    while (keys[slot] != FREE) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    counts[slot] = oldCounts[i];
+                }
+            }
+        }
+
+        private static int home(long key, int mask) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32)) & mask;
+        }
+
+        private static long[] newKeys(int capacity) {
+            long[] keys = new long[capacity];
+            Arrays.fill(keys, FREE);
+            return keys;
+        }
+    }
+}
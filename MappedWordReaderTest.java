@@ -0,0 +1,104 @@
+package poet;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.junit.Test;
+
+import graph.ConcreteEdgesGraph;
+import graph.Graph;
+import graph.GraphBuilder;
+
+/**
+ * Tests for MappedWordReader.
+ */
+public class MappedWordReaderTest {
+
+    // Testing strategy
+    //   text: empty, leading whitespace, mixed case ASCII, non-ASCII letters, uppercase letters
+    //     whose lowercase depends on the default locale
+    //   window size: larger than file, words crossing windows, word exactly as long as the
+    //     window, word longer than window
+
+    // Test that bigram counts match those of WordReader
+    @Test
+    public void testMatchesWordReader() throws IOException {
+        for (String text : new String[] {"", "  The cat THE cat", "\u00C9lan \u00E9lan \u00C9LAN caf\u00C9\ncaf\u00E9",
+                "a b c a b c\r\n a  b\tc "}) {
+            for (int windowSize : new int[] {8, 1 << 20}) {
+                assertEquals("expected same bigrams for \"" + text + "\" in windows of " + windowSize,
+                        expectedBigrams(text), mappedBigrams(text, windowSize));
+            }
+        }
+    }
+
+    // Test that lowercasing matches WordReader where it depends on the default locale
+    @Test
+    public void testMatchesWordReaderInLocale() throws IOException {
+        Locale locale = Locale.getDefault();
+        try {
+            Locale.setDefault(new Locale("tr"));
+            String text = "IRMAK \u0131rmak Irmak \u0130stanbul istanbul \u00C7AY \u00E7ay";
+            Map<String, Map<String, Integer>> expected = expectedBigrams(text);
+            assertTrue(expected.containsKey("\u0131rmak"));
+            assertEquals(expected, mappedBigrams(text, 1 << 20));
+        } finally {
+            Locale.setDefault(locale);
+        }
+    }
+
+    // Test that a word that exactly fills a window is read whole
+    @Test
+    public void testWordFillsWindow() throws IOException {
+        String text = "abcdefgh ab abcdefgh abcdefg";
+        assertEquals(expectedBigrams(text), mappedBigrams(text, 8));
+        assertEquals(expectedBigrams("abcdefgh"), mappedBigrams("abcdefgh", 8));
+    }
+
+    // Test that a word longer than the window is rejected
+    @Test(expected = IOException.class)
+    public void testWordLongerThanWindow() throws IOException {
+        mappedBigrams("short loooooooooong word", 4);
+    }
+
+    private static Map<String, Map<String, Integer>> expectedBigrams(String text) throws IOException {
+        Map<String, Map<String, Integer>> bigrams = new HashMap<>();
+        WordReader words = new WordReader(new StringReader(text));
+        String previous = words.next();
+        for (String word = words.next(); word != null; word = words.next()) {
+            bigrams.computeIfAbsent(previous, w -> new HashMap<>()).merge(word, 1, Integer::sum);
+            previous = word;
+        }
+        return bigrams;
+    }
+
+    private static Map<String, Map<String, Integer>> mappedBigrams(String text, int windowSize) throws IOException {
+        Path corpus = Files.createTempFile("corpus", ".txt");
+        try {
+            Files.writeString(corpus, text, StandardCharsets.UTF_8);
+            MappedWordReader words = new MappedWordReader(windowSize);
+            words.read(corpus);
+            Graph<String> graph = new ConcreteEdgesGraph();
+            GraphBuilder<String> builder = new GraphBuilder<>(graph);
+            words.addTo(builder);
+            builder.build();
+            Map<String, Map<String, Integer>> bigrams = new HashMap<>();
+            for (String word : graph.vertices()) {
+                if (!graph.targets(word).isEmpty()) {
+                    bigrams.put(word, graph.targets(word));
+                }
+            }
+            return bigrams;
+        } finally {
+            Files.delete(corpus);
+        }
+    }
+}
@@ -0,0 +1,574 @@
+package graph;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An implementation of Graph whose adjacency lists, weights and edge index
+ * live outside the Java heap, in chunks of direct memory. Only the label
+ * dictionary, which maps each label to a dense int id and back, is on the
+ * heap, so heap use and garbage collection work grow with the number of
+ * vertices but not with the number of edges.
+ *
+ * <p>Each edge is a fixed-size record of ints, linked into a doubly linked
+ * list of the edges out of its source and one of the edges into its target,
+ * and indexed by an open-addressing hash table of edge ids keyed by (source,
+ * target). This costs 28 bytes per edge for the record and at most 16 for
+ * the index, plus 16 bytes per vertex.
+ *
+ * <p>The chunks are direct ByteBuffers, which count against the JVM's limit
+ * on direct memory, {@code -XX:MaxDirectMemorySize}, rather than the heap
+ * limit. That limit defaults to the maximum heap size, so a graph whose
+ * records outgrow {@code -Xmx} fails with an OutOfMemoryError for "Direct
+ * buffer memory" unless the flag is raised. Records only grow and the index
+ * reuses its chunks when it grows, so a graph holds no dead chunks past
+ * those of its first 2^16-slot index; its memory is released when the graph
+ * is garbage collected. The chunks are plain ByteBuffers, so the same layout
+ * could be backed by memory-mapped files.
+ */
+public class OffHeapGraph implements TraversableGraph<String> {
+
+    private static final int NONE = -1;
+
+    // Vertex record fields
+    private static final int FIRST_OUT = 0;
+    private static final int FIRST_IN = 1;
+    private static final int OUT_DEGREE = 2;
+    private static final int IN_DEGREE = 3;
+    private static final int VERTEX_INTS = 4;
+
+    // Edge record fields
+    private static final int SOURCE = 0;
+    private static final int TARGET = 1;
+    private static final int WEIGHT = 2;
+    private static final int NEXT_OUT = 3;
+    private static final int PREV_OUT = 4;
+    private static final int NEXT_IN = 5;
+    private static final int PREV_IN = 6;
+    private static final int EDGE_INTS = 7;
+
+    private static final int MIN_TABLE_CAPACITY = 16;
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> labels = new ArrayList<>();
+    private int freeVertex = NONE;
+
+    private final IntArena vertexRecords = new IntArena(IntArena.DEFAULT_CHUNK_SHIFT);
+    private final IntArena edgeRecords = new IntArena(IntArena.DEFAULT_CHUNK_SHIFT);
+    private int edgeSlots = 0;
+    private int freeEdge = NONE;
+    private int edgeCount = 0;
+
+    private IntArena table = newTable(MIN_TABLE_CAPACITY);
+    private int tableCapacity = MIN_TABLE_CAPACITY;
+
+    // Abstraction function:
+    //   Represents the directed graph whose vertices are the keys of ids, and which for each live
+    //   edge record e has an edge from labels[source(e)] to labels[target(e)] of weight weight(e).
+    //   Vertex id v's record holds the heads of its out-list (linked through NEXT_OUT/PREV_OUT)
+    //   and in-list (NEXT_IN/PREV_IN) and their lengths.
+    // Representation invariant:
+    //   - ids and the non-null entries of labels are inverse of each other; the ids whose label
+    //     is null are exactly those on the free vertex list, linked through FIRST_OUT.
+    //   - Edge records [0, edgeSlots) are live unless on the free edge list, linked through
+    //     NEXT_OUT with weight 0. Each live edge has live endpoints and a positive weight, is in
+    //     exactly the out-list of its source and the in-list of its target, and no two live
+    //     edges share endpoints.
+    //   - Each list's prev links mirror its next links, and its vertex's degree is its length.
+    //   - table is an open-addressing table of tableCapacity slots, a power of two, holding
+    //     edge id + 1 of every live edge exactly once (0 for an empty slot), with at most half
+    //     of the slots used and no empty slot between an edge's home slot and its slot.
+    //   - edgeCount is the number of live edges.
+    // Safety from rep exposure:
+    //   - All fields are private, the arenas are never shared, and observers return newly
+    //     built sets and maps.
+
+    /**
+     * Create an empty graph.
+     */
+    public OffHeapGraph() {
+    }
+
+    // Check representation invariant
+    private void checkRep() {
+        assert ids.size() + freeVertexCount() == labels.size();
+        int edges = 0;
+        for (Map.Entry<String, Integer> entry : ids.entrySet()) {
+            int id = entry.getValue();
+            assert entry.getKey().equals(labels.get(id));
+            checkLists(id);
+            edges += vertex(id, OUT_DEGREE);
+        }
+        assert edges == edgeCount;
+        int used = 0;
+        for (long slot = 0; slot < tableCapacity; slot++) {
+            if (table.get(slot) != 0) {
+                used++;
+            }
+        }
+        assert used == edgeCount && edgeCount * 2 <= tableCapacity;
+    }
+
+    // Check representation invariant at the current validation level, after a mutation that
+    // touched only the vertices source and target and the edges between them
+    private void checkRep(String source, String target) {
+        if (Validation.checkAll()) {
+            checkRep();
+        } else if (Validation.checkTouched()) {
+            Integer sourceId = ids.get(source);
+            Integer targetId = ids.get(target);
+            if (sourceId != null) {
+                checkLists(sourceId);
+            }
+            if (targetId != null) {
+                checkLists(targetId);
+            }
+        }
+    }
+
+    // Check the out-list and in-list of vertex id, and the index entries of their edges
+    private void checkLists(int id) {
+        int degree = 0;
+        int previous = NONE;
+        for (int edge = vertex(id, FIRST_OUT); edge != NONE; edge = edge(edge, NEXT_OUT)) {
+            assert edge(edge, SOURCE) == id && edge(edge, PREV_OUT) == previous;
+            assert edge(edge, WEIGHT) > 0 && labels.get(edge(edge, TARGET)) != null;
+            assert find(id, edge(edge, TARGET)) == edge;
+            previous = edge;
+            degree++;
+        }
+        assert degree == vertex(id, OUT_DEGREE);
+        degree = 0;
+        previous = NONE;
+        for (int edge = vertex(id, FIRST_IN); edge != NONE; edge = edge(edge, NEXT_IN)) {
+            assert edge(edge, TARGET) == id && edge(edge, PREV_IN) == previous;
+            assert labels.get(edge(edge, SOURCE)) != null;
+            previous = edge;
+            degree++;
+        }
+        assert degree == vertex(id, IN_DEGREE);
+    }
+
+    private int freeVertexCount() {
+        int count = 0;
+        for (int id = freeVertex; id != NONE; id = vertex(id, FIRST_OUT)) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of bytes of off-heap memory this graph holds
+     */
+    public long offHeapBytes() {
+        return vertexRecords.bytes() + edgeRecords.bytes() + table.bytes();
+    }
+
+    @Override
+    public boolean add(String vertex) {
+        if (ids.containsKey(vertex)) {
+            return false;
+        }
+        intern(vertex);
+        checkRep(vertex, vertex);
+        return true;
+    }
+
+    @Override
+    public int set(String source, String target, int weight) {
+        if (weight < 0) throw new IllegalArgumentException("Weight cannot be negative");
+
+        Integer sourceId = ids.get(source);
+        Integer targetId = ids.get(target);
+        if (weight == 0) {
+            int edge = sourceId == null || targetId == null ? NONE : find(sourceId, targetId);
+            if (edge == NONE) {
+                return 0; // No such edge, and the graph is not otherwise modified
+            }
+            int previousWeight = edge(edge, WEIGHT);
+            removeEdge(edge);
+            checkRep(source, target);
+            return previousWeight;
+        }
+
+        int s = sourceId != null ? sourceId : intern(source);
+        int t = targetId != null ? targetId : ids.containsKey(target) ? ids.get(target) : intern(target);
+        int edge = find(s, t);
+        int previousWeight = 0;
+        if (edge != NONE) {
+            previousWeight = edge(edge, WEIGHT);
+            setEdge(edge, WEIGHT, weight);
+        } else {
+            addEdge(s, t, weight);
+        }
+        checkRep(source, target);
+        return previousWeight;
+    }
+
+    @Override
+    public boolean remove(String vertex) {
+        Integer id = ids.remove(vertex);
+        if (id == null) {
+            return false;
+        }
+        while (vertex(id, FIRST_OUT) != NONE) {
+            removeEdge(vertex(id, FIRST_OUT));
+        }
+        while (vertex(id, FIRST_IN) != NONE) {
+            removeEdge(vertex(id, FIRST_IN));
+        }
+        labels.set(id, null);
+        setVertex(id, FIRST_OUT, freeVertex);
+        freeVertex = id;
+        checkRep(vertex, vertex);
+        return true;
+    }
+
+    @Override
+    public Set<String> vertices() {
+        CopyCounter.copied();
+        return new HashSet<>(ids.keySet());
+    }
+
+    @Override
+    public Map<String, Integer> sources(String target) {
+        CopyCounter.copied();
+        Map<String, Integer> sources = new HashMap<>();
+        forEachSource(target, sources::put);
+        return sources;
+    }
+
+    @Override
+    public Map<String, Integer> targets(String source) {
+        CopyCounter.copied();
+        Map<String, Integer> targets = new HashMap<>();
+        forEachTarget(source, targets::put);
+        return targets;
+    }
+
+    @Override
+    public void forEachTarget(String source, EdgeVisitor<? super String> visitor) {
+        Integer id = ids.get(source);
+        if (id == null) {
+            return;
+        }
+        for (int edge = vertex(id, FIRST_OUT); edge != NONE; edge = edge(edge, NEXT_OUT)) {
+            visitor.visit(labels.get(edge(edge, TARGET)), edge(edge, WEIGHT));
+        }
+    }
+
+    @Override
+    public void forEachSource(String target, EdgeVisitor<? super String> visitor) {
+        Integer id = ids.get(target);
+        if (id == null) {
+            return;
+        }
+        for (int edge = vertex(id, FIRST_IN); edge != NONE; edge = edge(edge, NEXT_IN)) {
+            visitor.visit(labels.get(edge(edge, SOURCE)), edge(edge, WEIGHT));
+        }
+    }
+
+    @Override
+    public int outDegree(String source) {
+        Integer id = ids.get(source);
+        return id == null ? 0 : vertex(id, OUT_DEGREE);
+    }
+
+    @Override
+    public int inDegree(String target) {
+        Integer id = ids.get(target);
+        return id == null ? 0 : vertex(id, IN_DEGREE);
+    }
+
+    @Override
+    public int weight(String source, String target) {
+        Integer sourceId = ids.get(source);
+        Integer targetId = ids.get(target);
+        int edge = sourceId == null || targetId == null ? NONE : find(sourceId, targetId);
+        return edge == NONE ? 0 : edge(edge, WEIGHT);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Vertices: ").append(ids.keySet()).append("\nEdges:\n");
+        for (Map.Entry<String, Integer> entry : ids.entrySet()) {
+            int id = entry.getValue();
+            for (int edge = vertex(id, FIRST_OUT); edge != NONE; edge = edge(edge, NEXT_OUT)) {
+                sb.append(String.format("Edge from %s to %s with weight %d",
+                        entry.getKey(), labels.get(edge(edge, TARGET)), edge(edge, WEIGHT))).append("\n");
+            }
+        }
+        return sb.toString();
+    }
+
+    private int vertex(int id, int field) {
+        return vertexRecords.get((long) id * VERTEX_INTS + field);
+    }
+
+    private void setVertex(int id, int field, int value) {
+        vertexRecords.set((long) id * VERTEX_INTS + field, value);
+    }
+
+    private int edge(int edge, int field) {
+        return edgeRecords.get((long) edge * EDGE_INTS + field);
+    }
+
+    private void setEdge(int edge, int field, int value) {
+        edgeRecords.set((long) edge * EDGE_INTS + field, value);
+    }
+
+    // Add a vertex known to be absent, reusing a free id if there is one, and return its id
+    private int intern(String vertex) {
+        int id;
+        if (freeVertex != NONE) {
+            id = freeVertex;
+            freeVertex = vertex(id, FIRST_OUT);
+            labels.set(id, vertex);
+        } else {
+            id = labels.size();
+            vertexRecords.ensureCapacity((long) (id + 1) * VERTEX_INTS);
+            labels.add(vertex);
+        }
+        setVertex(id, FIRST_OUT, NONE);
+        setVertex(id, FIRST_IN, NONE);
+        setVertex(id, OUT_DEGREE, 0);
+        setVertex(id, IN_DEGREE, 0);
+        ids.put(vertex, id);
+        return id;
+    }
+
+    // Add an edge between live vertices with no edge between them, at the head of both lists
+    private void addEdge(int source, int target, int weight) {
+        int edge;
+        if (freeEdge != NONE) {
+            edge = freeEdge;
+            freeEdge = edge(edge, NEXT_OUT);
+        } else {
+            edge = edgeSlots++;
+            edgeRecords.ensureCapacity((long) edgeSlots * EDGE_INTS);
+        }
+        int nextOut = vertex(source, FIRST_OUT);
+        int nextIn = vertex(target, FIRST_IN);
+        setEdge(edge, SOURCE, source);
+        setEdge(edge, TARGET, target);
+        setEdge(edge, WEIGHT, weight);
+        setEdge(edge, NEXT_OUT, nextOut);
+        setEdge(edge, PREV_OUT, NONE);
+        setEdge(edge, NEXT_IN, nextIn);
+        setEdge(edge, PREV_IN, NONE);
+        if (nextOut != NONE) {
+            setEdge(nextOut, PREV_OUT, edge);
+        }
+        if (nextIn != NONE) {
+            setEdge(nextIn, PREV_IN, edge);
+        }
+        setVertex(source, FIRST_OUT, edge);
+        setVertex(target, FIRST_IN, edge);
+        setVertex(source, OUT_DEGREE, vertex(source, OUT_DEGREE) + 1);
+        setVertex(target, IN_DEGREE, vertex(target, IN_DEGREE) + 1);
+        edgeCount++;
+        insert(edge);
+    }
+
+    // Unlink a live edge from both its lists and the table, and free its record
+    private void removeEdge(int edge) {
+        int source = edge(edge, SOURCE);
+        int target = edge(edge, TARGET);
+        delete(edge);
+        int nextOut = edge(edge, NEXT_OUT);
+        int prevOut = edge(edge, PREV_OUT);
+        if (prevOut != NONE) {
+            setEdge(prevOut, NEXT_OUT, nextOut);
+        } else {
+            setVertex(source, FIRST_OUT, nextOut);
+        }
+        if (nextOut != NONE) {
+            setEdge(nextOut, PREV_OUT, prevOut);
+        }
+        int nextIn = edge(edge, NEXT_IN);
+        int prevIn = edge(edge, PREV_IN);
+        if (prevIn != NONE) {
+            setEdge(prevIn, NEXT_IN, nextIn);
+        } else {
+            setVertex(target, FIRST_IN, nextIn);
+        }
+        if (nextIn != NONE) {
+            setEdge(nextIn, PREV_IN, prevIn);
+        }
+        setVertex(source, OUT_DEGREE, vertex(source, OUT_DEGREE) - 1);
+        setVertex(target, IN_DEGREE, vertex(target, IN_DEGREE) - 1);
+        edgeCount--;
+        setEdge(edge, WEIGHT, 0);
+        setEdge(edge, NEXT_OUT, freeEdge);
+        freeEdge = edge;
+    }
+
+    // Return the id of the live edge from source to target, or NONE
+    private int find(int source, int target) {
+        int mask = tableCapacity - 1;
+        for (int slot = home(source, target); ; slot = (slot + 1) & mask) {
+            int entry = table.get(slot);
+            if (entry == 0) {
+                return NONE;
+            }
+            int edge = entry - 1;
+            if (edge(edge, SOURCE) == source && edge(edge, TARGET) == target) {
+                return edge;
+            }
+        }
+    }
+
+    // Index a live edge that is not yet in the table
+    private void insert(int edge) {
+        int mask = tableCapacity - 1;
+        int slot = home(edge(edge, SOURCE), edge(edge, TARGET));
+        while (table.get(slot) != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table.set(slot, edge + 1);
+        if (edgeCount * 2 > tableCapacity) {
+            resize(tableCapacity * 2);
+        }
+    }
+
+    // Remove an indexed edge from the table, shifting later entries of its probe run back
+    private void delete(int edge) {
+        int mask = tableCapacity - 1;
+        int slot = home(edge(edge, SOURCE), edge(edge, TARGET));
+        while (table.get(slot) != edge + 1) {
+            slot = (slot + 1) & mask;
+        }
+        for (int next = (slot + 1) & mask; table.get(next) != 0; next = (next + 1) & mask) {
+            int moved = table.get(next) - 1;
+            int nextHome = home(edge(moved, SOURCE), edge(moved, TARGET));
+            if (((next - nextHome) & mask) >= ((next - slot) & mask)) {
+                table.set(slot, moved + 1);
+                slot = next;
+            }
+        }
+        table.set(slot, 0);
+    }
+
+    private void resize(int capacity) {
+        if (capacity > 1 << IntArena.DEFAULT_CHUNK_SHIFT) {
+            // Rebuilt from the edge records, so reuse the old chunks rather than leave them to GC
+            table.clear();
+            table.ensureCapacity(capacity);
+        } else {
+            table = newTable(capacity);
+        }
+        tableCapacity = capacity;
+        int mask = capacity - 1;
+        for (int edge = 0; edge < edgeSlots; edge++) {
+            if (edge(edge, WEIGHT) > 0) {
+                int slot = home(edge(edge, SOURCE), edge(edge, TARGET));
+                while (table.get(slot) != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                table.set(slot, edge + 1);
+            }
+        }
+    }
+
+    private int home(int source, int target) {
+        long hash = (((long) source << 32) | (target & 0xFFFFFFFFL)) * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & (tableCapacity - 1);
+    }
+
+    private static IntArena newTable(int capacity) {
+        IntArena table = new IntArena(Math.min(IntArena.DEFAULT_CHUNK_SHIFT, Integer.numberOfTrailingZeros(capacity)));
+        table.ensureCapacity(capacity);
+        return table;
+    }
+}
+
+/**
+ * A growable array of ints stored in equal-sized chunks of direct memory, so
+ * that it can grow past the largest single buffer and never copies existing
+ * contents when it grows. New elements are 0.
+ */
+class IntArena {
+
+    /** The default chunk size, 2^16 ints or 256 KiB. */
+    static final int DEFAULT_CHUNK_SHIFT = 16;
+
+    private final int chunkShift;
+    private final int chunkMask;
+    private IntBuffer[] chunks = new IntBuffer[0];
+
+    // Abstraction function:
+    //   Represents the array of chunks.length << chunkShift ints whose element i is element
+    //   (i & chunkMask) of chunks[i >>> chunkShift].
+    // Representation invariant:
+    //   - Every chunk is a direct buffer of exactly 1 << chunkShift ints.
+    // Safety from rep exposure:
+    //   - All fields are private, and only primitives cross the interface.
+
+    /**
+     * @param chunkShift log2 of the number of ints per chunk, in [0, 28]
+     */
+    IntArena(int chunkShift) {
+        if (chunkShift < 0 || chunkShift > 28) throw new IllegalArgumentException("Chunk shift must be in [0, 28]");
+        this.chunkShift = chunkShift;
+        this.chunkMask = (1 << chunkShift) - 1;
+    }
+
+    int get(long index) {
+        return chunks[(int) (index >>> chunkShift)].get((int) index & chunkMask);
+    }
+
+    void set(long index, int value) {
+        chunks[(int) (index >>> chunkShift)].put((int) index & chunkMask, value);
+    }
+
+    /**
+     * @return the number of ints this array can hold without growing
+     */
+    long capacity() {
+        return (long) chunks.length << chunkShift;
+    }
+
+    /**
+     * @return the number of bytes of direct memory this array holds
+     */
+    long bytes() {
+        return capacity() * Integer.BYTES;
+    }
+
+    /**
+     * Set every element of this array to 0, keeping its chunks.
+     */
+    void clear() {
+        for (IntBuffer chunk : chunks) {
+            for (int i = 0; i < chunk.capacity(); i++) {
+                chunk.put(i, 0);
+            }
+        }
+    }
+
+    /**
+     * Grow this array by whole chunks until it holds at least size ints.
+     *
+     * @param size number of ints
+     */
+    void ensureCapacity(long size) {
+        if (size <= capacity()) {
+            return;
+        }
+        int count = (int) ((size + chunkMask) >>> chunkShift);
+        int old = chunks.length;
+        chunks = Arrays.copyOf(chunks, Math.max(count, old + (old >> 1)));
+        for (int i = old; i < chunks.length; i++) {
+            chunks[i] = ByteBuffer.allocateDirect(Integer.BYTES << chunkShift).order(ByteOrder.nativeOrder()).asIntBuffer();
+        }
+    }
+}
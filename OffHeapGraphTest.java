@@ -0,0 +1,155 @@
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Tests for OffHeapGraph.
+ */
+public class OffHeapGraphTest extends GraphInstanceTest {
+
+    // Testing strategy
+    //   edges: self-loop, in the middle of both lists, spanning several arena chunks
+    //   records: freed edge and vertex records reused
+    //   index: grows past its initial capacity, grows past one chunk without leaving old chunks
+    //     live, random sets and removals against a map oracle
+    //   offHeapBytes(): empty graph, grows with edges
+
+    @Override
+    public Graph<String> emptyInstance() {
+        return new OffHeapGraph();
+    }
+
+    // Test a self-loop on a new vertex and removing its vertex
+    @Test
+    public void testSelfLoop() {
+        OffHeapGraph graph = new OffHeapGraph();
+        assertEquals(0, graph.set("A", "A", 3));
+        assertEquals(Set.of("A"), graph.vertices());
+        assertEquals(Map.of("A", 3), graph.targets("A"));
+        assertEquals(Map.of("A", 3), graph.sources("A"));
+        assertTrue(graph.remove("A"));
+        assertEquals(Set.of(), graph.vertices());
+        assertEquals(0, graph.weight("A", "A"));
+    }
+
+    // Test that removing an edge from the middle of both lists keeps the rest
+    @Test
+    public void testRemoveMiddleEdge() {
+        OffHeapGraph graph = new OffHeapGraph();
+        graph.set("A", "B", 1);
+        graph.set("A", "C", 2);
+        graph.set("A", "D", 3);
+        graph.set("B", "C", 4);
+        graph.set("D", "C", 5);
+
+        assertEquals(2, graph.set("A", "C", 0));
+        assertEquals(Map.of("B", 1, "D", 3), graph.targets("A"));
+        assertEquals(Map.of("B", 4, "D", 5), graph.sources("C"));
+        assertEquals(2, graph.outDegree("A"));
+        assertEquals(2, graph.inDegree("C"));
+    }
+
+    // Test that freed vertex and edge records are reused without leaking old edges
+    @Test
+    public void testReuseRecords() {
+        OffHeapGraph graph = new OffHeapGraph();
+        graph.set("A", "B", 1);
+        graph.set("B", "C", 2);
+        graph.remove("B");
+        graph.set("D", "A", 3);
+        graph.set("A", "E", 4);
+
+        assertEquals(Set.of("A", "C", "D", "E"), graph.vertices());
+        assertEquals(Map.of("E", 4), graph.targets("A"));
+        assertEquals(Map.of("D", 3), graph.sources("A"));
+        assertEquals(Map.of(), graph.sources("C"));
+        assertEquals(Map.of("A", 3), graph.targets("D"));
+    }
+
+    // Test many random sets and removals, spanning several chunks, against a map of edges
+    @Test
+    public void testRandomEdgesMatchMap() {
+        Validation previous = Validation.level();
+        Validation.setLevel(Validation.INCREMENTAL);
+        try {
+            OffHeapGraph graph = new OffHeapGraph();
+            Map<String, Integer> expected = new HashMap<>();
+            Random random = new Random(42);
+            for (int i = 0; i < 30_000; i++) {
+                String source = "v" + random.nextInt(300);
+                String target = "v" + random.nextInt(300);
+                int weight = random.nextInt(4);
+                Integer old = weight == 0 ? expected.remove(source + " " + target)
+                        : expected.put(source + " " + target, weight);
+                assertEquals(old == null ? 0 : (int) old, graph.set(source, target, weight));
+            }
+            int edges = 0;
+            for (String vertex : graph.vertices()) {
+                for (Map.Entry<String, Integer> edge : graph.targets(vertex).entrySet()) {
+                    assertEquals(expected.get(vertex + " " + edge.getKey()), edge.getValue());
+                    edges++;
+                }
+            }
+            assertEquals(expected.size(), edges);
+            assertTrue(graph.offHeapBytes() > edges * 28L);
+        } finally {
+            Validation.setLevel(previous);
+        }
+    }
+
+    @Test
+    public void testOffHeapBytes() {
+        Validation previous = Validation.level();
+        Validation.setLevel(Validation.INCREMENTAL);
+        try {
+            OffHeapGraph graph = new OffHeapGraph();
+            long empty = graph.offHeapBytes();
+            for (int i = 0; i < 20_000; i++) {
+                graph.set("v" + (i % 100), "w" + i, 1);
+            }
+            assertTrue(graph.offHeapBytes() >= empty + 20_000 * 28L);
+            assertEquals(200, graph.outDegree("v0"));
+            assertEquals(1, graph.weight("v0", "w0"));
+        } finally {
+            Validation.setLevel(previous);
+        }
+    }
+
+    @Test
+    public void testIndexGrowthReusesChunks() {
+        Validation previous = Validation.level();
+        Validation.setLevel(Validation.INCREMENTAL);
+        try {
+            long before = directMemoryUsed();
+            OffHeapGraph graph = new OffHeapGraph();
+            for (int i = 0; i < 200_000; i++) {
+                graph.set("v" + (i % 1000), "w" + i, 1);
+            }
+            // Only the index's chunks from before its first 2^16 slots may be left dead
+            long dead = directMemoryUsed() - before - graph.offHeapBytes();
+            assertTrue("expected no dead index chunks beyond the small ones, found " + dead,
+                    dead <= (1L << 16) * Integer.BYTES);
+            assertEquals(1, graph.weight("v999", "w199999"));
+        } finally {
+            Validation.setLevel(previous);
+        }
+    }
+
+    private static long directMemoryUsed() {
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (pool.getName().equals("direct")) {
+                return pool.getMemoryUsed();
+            }
+        }
+        throw new AssertionError("no direct buffer pool");
+    }
+}
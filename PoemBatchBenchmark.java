@@ -0,0 +1,102 @@
+package poet;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Compares the throughput of {@link GraphPoet#poems} on pools of increasing
+ * parallelism with a serial loop over {@link GraphPoet#poem(String)}.
+ *
+ * <p>Inputs are random runs of corpus words, so that most word pairs have
+ * bridge candidates to search.
+ */
+public class PoemBatchBenchmark {
+
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+
+    /**
+     * Run the benchmark and print poems per second for each configuration.
+     *
+     * @param args the corpus file, then optionally the number of inputs per
+     *        batch (default 100000) and the number of words per input
+     *        (default 12)
+     * @throws IOException if the corpus cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("usage: PoemBatchBenchmark corpus [inputs [wordsPerInput]]");
+            System.exit(2);
+        }
+        Path corpus = Path.of(args[0]);
+        int inputCount = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        int inputWords = args.length > 2 ? Integer.parseInt(args[2]) : 12;
+
+        GraphPoet poet = new GraphPoet(corpus);
+        List<String> inputs = inputs(corpus, inputCount, inputWords, new Random(42));
+
+        List<String> expected = new ArrayList<>();
+        double serial = measure(() -> {
+            expected.clear();
+            for (String input : inputs) {
+                expected.add(poet.poem(input));
+            }
+        }, inputs.size());
+        System.out.printf("serial loop: %,.0f poems/s%n", serial);
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int parallelism = 1; ; parallelism = Math.min(parallelism * 2, cores)) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                if (!poet.poems(inputs, pool).equals(expected)) {
+                    throw new AssertionError("batch poems differ from serial poems");
+                }
+                double batch = measure(() -> poet.poems(inputs, pool), inputs.size());
+                System.out.printf("poems(), %2d threads: %,.0f poems/s (%.2fx serial)%n",
+                        parallelism, batch, batch / serial);
+            } finally {
+                pool.shutdown();
+            }
+            if (parallelism == cores) {
+                break;
+            }
+        }
+    }
+
+    // Return inputs of consecutive words starting at random positions in the corpus
+    private static List<String> inputs(Path corpus, int count, int length, Random random) throws IOException {
+        String[] words = Files.readString(corpus).trim().split("\\s+");
+        List<String> inputs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int start = random.nextInt(Math.max(1, words.length - length));
+            StringBuilder input = new StringBuilder();
+            // Skip every other word so that the poet has bridges to find
+            for (int j = start; j < Math.min(words.length, start + 2 * length); j += 2) {
+                input.append(input.length() == 0 ? "" : " ").append(words[j]);
+            }
+            inputs.add(input.toString());
+        }
+        return inputs;
+    }
+
+    // Return the throughput in operations per second of the median measured round
+    private static double measure(Runnable round, int operations) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            round.run();
+        }
+        long[] times = new long[MEASURED_ROUNDS];
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long start = System.nanoTime();
+            round.run();
+            times[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+        return operations * 1e9 / times[MEASURED_ROUNDS / 2];
+    }
+}
@@ -0,0 +1,116 @@
+package poet;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A closed-loop load generator for {@link PoemServer}: a fixed number of
+ * workers each send one poem request at a time for a fixed duration, and the
+ * throughput, shed requests and client-side latencies are printed at the end.
+ */
+public class PoemLoadClient {
+
+    private static final String[] WORDS = {
+        "test", "the", "system", "of", "a", "poem", "seek", "new", "life", "and", "civilizations",
+    };
+
+    /**
+     * Run the load generator.
+     *
+     * @param args the server base URL (for example http://localhost:8080),
+     *        then optionally the number of concurrent workers (default 64),
+     *        the duration in seconds (default 10), and the number of inputs
+     *        per request, sending batches to /poems when it is more than 1
+     *        (default 1)
+     * @throws InterruptedException if interrupted while waiting for workers
+     */
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length < 1) {
+            System.err.println("usage: PoemLoadClient url [workers [seconds [batchSize]]]");
+            System.exit(2);
+        }
+        String base = args[0];
+        int workers = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        long seconds = args.length > 2 ? Long.parseLong(args[2]) : 10;
+        int batchSize = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        LatencyHistogram latencies = new LatencyHistogram();
+        LongAdder ok = new LongAdder();
+        LongAdder shed = new LongAdder();
+        LongAdder errors = new LongAdder();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < workers; w++) {
+            Random random = new Random(w);
+            Thread thread = new Thread(() -> {
+                while (System.nanoTime() < deadline) {
+                    HttpRequest request = request(base, batchSize, random);
+                    long start = System.nanoTime();
+                    try {
+                        int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                        if (status == 200) {
+                            ok.increment();
+                            latencies.record((System.nanoTime() - start) / 1000);
+                        } else if (status == 503) {
+                            shed.increment();
+                        } else {
+                            errors.increment();
+                        }
+                    } catch (IOException e) {
+                        errors.increment();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        System.out.printf("%,d ok (%,.0f requests/s, %,.0f poems/s), %,d shed, %,d errors%n",
+                ok.sum(), ok.sum() / (double) seconds, ok.sum() * batchSize / (double) seconds,
+                shed.sum(), errors.sum());
+        System.out.println("latency: " + latencies.toJson());
+    }
+
+    // Return a request for the poems of batchSize random inputs
+    private static HttpRequest request(String base, int batchSize, Random random) {
+        if (batchSize == 1) {
+            String input = URLEncoder.encode(input(random), StandardCharsets.UTF_8);
+            return HttpRequest.newBuilder(URI.create(base + "/poem?input=" + input)).GET().build();
+        }
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < batchSize; i++) {
+            body.append(input(random)).append('\n');
+        }
+        return HttpRequest.newBuilder(URI.create(base + "/poems"))
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build();
+    }
+
+    private static String input(Random random) {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 6; i++) {
+            input.append(i == 0 ? "" : " ").append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return input.toString();
+    }
+}
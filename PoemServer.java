@@ -0,0 +1,405 @@
+package poet;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * An embedded HTTP server for the poems of a preloaded GraphPoet.
+ *
+ * <p>Endpoints:
+ * <ul>
+ * <li>{@code GET /poem?input=...}, or {@code POST /poem} with the input as
+ *     the body: the poem of the input, as plain text.
+ * <li>{@code POST /poems} with one input per line: the poem of each input,
+ *     one per line, in order.
+ * <li>{@code GET /stats}: request counters and the latency histogram of the
+ *     poem endpoints, as JSON.
+ * </ul>
+ *
+ * <p>Each request runs on its own virtual thread when the JVM supports them,
+ * and otherwise on a bounded pool of platform threads, a few more than the
+ * poem request limit, which closes any connection it has no thread for. Poem
+ * requests are served within a fixed load limit, where a request weighs one
+ * permit plus one per 64 inputs of its batch; a request takes its first
+ * permit before reading its body, and any request over the limit is shed
+ * immediately with status 503 rather than queued.
+ *
+ * <p>Single poem requests that arrive within a short coalescing window of
+ * each other are generated together, as one batch in which each distinct
+ * input is generated once; the first request of a window waits out the
+ * window and then generates the poems of the whole batch.
+ */
+public class PoemServer {
+
+    /** Maximum number of inputs in one batch request. */
+    static final int MAX_BATCH_SIZE = 10_000;
+
+    /** Minimum number of inputs for a batch to be generated in parallel. */
+    private static final int PARALLEL_BATCH_SIZE = 64;
+
+    /** Number of platform threads beyond the load limit, to shed requests and serve stats. */
+    private static final int SPARE_THREADS = 16;
+
+    /** Default coalescing window of single poem requests, in microseconds. */
+    static final long COALESCE_MICROS = 200;
+
+    private final GraphPoet poet;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final int maxInFlight;
+    private final Semaphore permits;
+    private final long coalesceNanos;
+    private final Object coalesceLock = new Object();
+    private Map<String, CompletableFuture<String>> pending; // guarded by coalesceLock
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final LongAdder served = new LongAdder();
+    private final LongAdder shed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    // Abstraction function:
+    //   Represents an HTTP server at server's address generating poems with poet, able to take on
+    //   permits more weight of poem requests out of maxInFlight; served, shed and failed count
+    //   poem requests answered, rejected for load, and rejected as malformed, and latencies holds
+    //   the latency of each served request; pending, if not null, maps the distinct inputs of the
+    //   single poem requests in the open coalescing window to their future poems, and coalesced
+    //   counts single requests whose input was already in their window.
+    // Representation invariant:
+    //   - maxInFlight > 0, and permits never has more than maxInFlight permits.
+    //   - coalesceNanos >= 0.
+    // Safety from rep exposure:
+    //   - All fields are private, and only the bound port and strings are returned.
+    // Thread safety argument:
+    //   - poet, permits and the counters are thread-safe; server and executor are only used to
+    //     start and stop the server.
+    //   - pending is only read and written while holding coalesceLock; once the first request
+    //     of a window sets it back to null, no other thread reaches that window's map, and its
+    //     futures are thread-safe.
+
+    /**
+     * Create a server, without starting it.
+     *
+     * @param poet poet to generate poems with
+     * @param address address to listen on; port 0 picks a free port
+     * @param maxInFlight positive maximum weight of poem requests served at
+     *        once, where a request weighs one plus one per 64 inputs of its
+     *        batch, capped at maxInFlight
+     * @throws IOException if the address cannot be bound
+     */
+    public PoemServer(GraphPoet poet, InetSocketAddress address, int maxInFlight) throws IOException {
+        this(poet, address, maxInFlight, COALESCE_MICROS);
+    }
+
+    /**
+     * Create a server, without starting it.
+     *
+     * @param poet poet to generate poems with
+     * @param address address to listen on; port 0 picks a free port
+     * @param maxInFlight positive maximum weight of poem requests served at
+     *        once, where a request weighs one plus one per 64 inputs of its
+     *        batch, capped at maxInFlight
+     * @param coalesceMicros nonnegative coalescing window of single poem
+     *        requests, in microseconds; 0 generates each request on its own
+     * @throws IOException if the address cannot be bound
+     */
+    public PoemServer(GraphPoet poet, InetSocketAddress address, int maxInFlight, long coalesceMicros)
+            throws IOException {
+        if (maxInFlight <= 0) throw new IllegalArgumentException("Request limit must be positive");
+        if (coalesceMicros < 0) throw new IllegalArgumentException("Coalescing window must be nonnegative");
+        this.poet = poet;
+        this.maxInFlight = maxInFlight;
+        this.coalesceNanos = TimeUnit.MICROSECONDS.toNanos(coalesceMicros);
+        this.permits = new Semaphore(maxInFlight);
+        this.executor = newRequestExecutor(maxInFlight);
+        this.server = HttpServer.create(address, 0);
+        server.setExecutor(executor);
+        server.createContext("/poem", this::handlePoem);
+        server.createContext("/poems", this::handlePoems);
+        server.createContext("/stats", this::handleStats);
+    }
+
+    /**
+     * Start serving requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stop serving requests and release the address.
+     *
+     * @param delaySeconds maximum number of seconds to wait for requests in
+     *        progress to finish
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+    }
+
+    /**
+     * @return the port this server is bound to
+     */
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    // One virtual thread per request on Java 21 and later, else a bounded pool of platform
+    // threads that rejects tasks it has no thread for, which makes the server close their
+    // connections
+    static ExecutorService newRequestExecutor(int maxInFlight) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            int threads = (int) Math.min(Integer.MAX_VALUE, (long) maxInFlight + SPARE_THREADS);
+            return new ThreadPoolExecutor(0, threads, 60, TimeUnit.SECONDS,
+                    new SynchronousQueue<>(), new ThreadPoolExecutor.AbortPolicy());
+        }
+    }
+
+    private void handlePoem(HttpExchange exchange) throws IOException {
+        boolean get = "GET".equals(exchange.getRequestMethod());
+        if (!get && !"POST".equals(exchange.getRequestMethod())) {
+            send(exchange, 405, "Method not allowed");
+            return;
+        }
+        if (!admit(exchange)) {
+            return;
+        }
+        String input;
+        try {
+            input = get ? queryParameter(exchange.getRequestURI().getRawQuery(), "input") : readBody(exchange).strip();
+        } catch (IOException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        if (input == null) {
+            permits.release();
+            failed.increment();
+            send(exchange, 400, "Missing input");
+            return;
+        }
+        serve(exchange, List.of(input));
+    }
+
+    private void handlePoems(HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            send(exchange, 405, "Method not allowed");
+            return;
+        }
+        if (!admit(exchange)) {
+            return;
+        }
+        List<String> inputs;
+        try {
+            inputs = readBody(exchange).lines().toList();
+        } catch (IOException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        if (inputs.size() > MAX_BATCH_SIZE) {
+            permits.release();
+            failed.increment();
+            send(exchange, 413, "Batch larger than " + MAX_BATCH_SIZE + " inputs");
+            return;
+        }
+        serve(exchange, inputs);
+    }
+
+    // Take the first permit of a poem request, or shed it and return false if none is left
+    private boolean admit(HttpExchange exchange) throws IOException {
+        if (permits.tryAcquire()) {
+            return true;
+        }
+        shed(exchange);
+        return false;
+    }
+
+    private void shed(HttpExchange exchange) throws IOException {
+        shed.increment();
+        exchange.getResponseHeaders().set("Retry-After", "1");
+        send(exchange, 503, "Server busy");
+    }
+
+    // Return the permits a batch weighs: one, plus one per PARALLEL_BATCH_SIZE inputs, capped
+    // at the limit so that any batch can be served by an idle server
+    private int weight(int inputs) {
+        return Math.min(maxInFlight, 1 + inputs / PARALLEL_BATCH_SIZE);
+    }
+
+    // Generate and send the poems of a batch whose first permit is held, unless the rest of its
+    // weight is over the limit; releases every permit of the batch before sending
+    private void serve(HttpExchange exchange, List<String> inputs) throws IOException {
+        int weight = weight(inputs.size());
+        if (!permits.tryAcquire(weight - 1)) {
+            permits.release();
+            shed(exchange);
+            return;
+        }
+        long start = System.nanoTime();
+        String response;
+        try {
+            response = inputs.size() == 1 && coalesceNanos > 0
+                    ? coalesce(inputs.get(0))
+                    : String.join("\n", generate(inputs));
+        } finally {
+            permits.release(weight);
+        }
+        send(exchange, 200, response);
+        served.increment();
+        latencies.record((System.nanoTime() - start) / 1000);
+    }
+
+    // Return the poems of inputs, generated in parallel if there are enough of them
+    private List<String> generate(List<String> inputs) {
+        if (inputs.size() >= PARALLEL_BATCH_SIZE) {
+            return poet.poems(inputs, ForkJoinPool.commonPool());
+        }
+        List<String> poems = new ArrayList<>(inputs.size());
+        for (String input : inputs) {
+            poems.add(poet.poem(input));
+        }
+        return poems;
+    }
+
+    // Return the poem of input, generated with the other single requests of its coalescing
+    // window; the request that opens a window waits it out and generates the whole batch
+    private String coalesce(String input) {
+        Map<String, CompletableFuture<String>> batch;
+        CompletableFuture<String> poem;
+        boolean first;
+        synchronized (coalesceLock) {
+            first = pending == null;
+            if (first) {
+                pending = new LinkedHashMap<>();
+            }
+            batch = pending;
+            poem = batch.get(input);
+            if (poem == null) {
+                poem = new CompletableFuture<>();
+                batch.put(input, poem);
+            } else {
+                coalesced.increment();
+            }
+        }
+        if (first) {
+            LockSupport.parkNanos(coalesceNanos);
+            synchronized (coalesceLock) {
+                pending = null;
+            }
+            List<String> inputs = new ArrayList<>(batch.keySet());
+            try {
+                List<String> poems = generate(inputs);
+                for (int i = 0; i < inputs.size(); i++) {
+                    batch.get(inputs.get(i)).complete(poems.get(i));
+                }
+            } catch (RuntimeException e) {
+                for (CompletableFuture<String> waiting : batch.values()) {
+                    waiting.completeExceptionally(e);
+                }
+                throw e;
+            }
+        }
+        try {
+            return poem.join();
+        } catch (CompletionException e) {
+            throw (RuntimeException) e.getCause();
+        }
+    }
+
+    private void handleStats(HttpExchange exchange) throws IOException {
+        String json = "{\"served\":" + served.sum()
+                + ",\"shed\":" + shed.sum()
+                + ",\"failed\":" + failed.sum()
+                + ",\"available\":" + permits.availablePermits()
+                + ",\"coalesced\":" + coalesced.sum()
+                + ",\"latency\":" + latencies.toJson() + "}";
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        send(exchange, 200, json);
+    }
+
+    // Return the decoded value of a query parameter, or null if it is absent
+    private static String queryParameter(String rawQuery, String name) {
+        if (rawQuery == null) {
+            return null;
+        }
+        for (String parameter : rawQuery.split("&")) {
+            int equals = parameter.indexOf('=');
+            if (equals >= 0 && parameter.substring(0, equals).equals(name)) {
+                return URLDecoder.decode(parameter.substring(equals + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        if (!exchange.getResponseHeaders().containsKey("Content-Type")) {
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        }
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Serve the poems of a corpus until the process is stopped.
+     *
+     * @param args the corpus file or a graph snapshot written by
+     *        {@link GraphPoet#save(Path)}, then optionally the port (default
+     *        8080) and the maximum weight of poem requests served at once
+     *        (default 4096)
+     * @throws IOException if the corpus cannot be read or the port bound
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("usage: PoemServer corpus|snapshot [port [maxInFlight]]");
+            System.exit(2);
+        }
+        Path source = Path.of(args[0]);
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+        int maxInFlight = args.length > 2 ? Integer.parseInt(args[2]) : 4096;
+        GraphPoet poet;
+        try {
+            poet = GraphPoet.load(source);
+        } catch (IOException notSnapshot) {
+            if (!Files.isReadable(source)) {
+                throw notSnapshot;
+            }
+            poet = new GraphPoet(source);
+        }
+        PoemServer server = new PoemServer(poet, new InetSocketAddress(port), maxInFlight);
+        server.start();
+        System.out.println("Serving poems on port " + server.port());
+    }
+}
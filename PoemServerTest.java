@@ -0,0 +1,255 @@
+package poet;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for PoemServer.
+ */
+public class PoemServerTest {
+
+    // Testing strategy
+    //   /poem: GET with input, GET without input, POST
+    //   /poems: small batch, batch generated in parallel, oversized batch, wrong method
+    //   /stats: after served and rejected requests
+    //   load: every permit held by requests in progress, a batch heavier than the permits left
+    //   coalescing: concurrent single requests with the same input, disabled, negative window
+    //   request executor: virtual threads on Java 21 and later, bounded pool before
+
+    private GraphPoet poet;
+    private PoemServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        poet = new GraphPoet(new StringReader("this is a test of the system"));
+        server = new PoemServer(poet, new InetSocketAddress("localhost", 0), 4);
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    // Return the status and body of a request to the server
+    private String[] request(String method, String path, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + server.port() + path).openConnection();
+        connection.setRequestMethod(method);
+        if (body != null) {
+            connection.setDoOutput(true);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        int status = connection.getResponseCode();
+        InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        String response = in == null ? "" : new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        return new String[] {Integer.toString(status), response};
+    }
+
+    @Test
+    public void testGetPoem() throws IOException {
+        String input = URLEncoder.encode("Test the system.", StandardCharsets.UTF_8);
+        String[] response = request("GET", "/poem?input=" + input, null);
+        assertEquals("200", response[0]);
+        assertEquals("Test of the system.", response[1]);
+    }
+
+    @Test
+    public void testGetPoemMissingInput() throws IOException {
+        assertEquals("400", request("GET", "/poem", null)[0]);
+    }
+
+    @Test
+    public void testPostPoem() throws IOException {
+        String[] response = request("POST", "/poem", "Test the system.\n");
+        assertEquals("200", response[0]);
+        assertEquals("Test of the system.", response[1]);
+    }
+
+    @Test
+    public void testBatch() throws IOException {
+        String[] response = request("POST", "/poems", "Test the system.\nthis a test\n");
+        assertEquals("200", response[0]);
+        assertEquals("Test of the system.\nthis is a test", response[1]);
+    }
+
+    @Test
+    public void testParallelBatch() throws IOException {
+        StringBuilder body = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            body.append("this a test ").append(i).append('\n');
+            expected.append(i == 0 ? "" : "\n").append("this is a test ").append(i);
+        }
+        String[] response = request("POST", "/poems", body.toString());
+        assertEquals("200", response[0]);
+        assertEquals(expected.toString(), response[1]);
+    }
+
+    @Test
+    public void testBatchTooLarge() throws IOException {
+        String body = "a\n".repeat(PoemServer.MAX_BATCH_SIZE + 1);
+        assertEquals("413", request("POST", "/poems", body)[0]);
+    }
+
+    @Test
+    public void testBatchWrongMethod() throws IOException {
+        assertEquals("405", request("GET", "/poems", null)[0]);
+    }
+
+    @Test
+    public void testStats() throws IOException {
+        request("GET", "/poem?input=a", null);
+        request("GET", "/poem", null);
+        String[] response = request("GET", "/stats", null);
+        assertEquals("200", response[0]);
+        assertTrue(response[1].startsWith("{\"served\":1,\"shed\":0,\"failed\":1,\"available\":4,"));
+        assertTrue(response[1].contains("\"latency\":{\"count\":1,"));
+    }
+
+    @Test
+    public void testShedWhenSaturated() throws IOException, InterruptedException {
+        List<Socket> stalled = new ArrayList<>();
+        try {
+            for (int i = 0; i < 4; i++) {
+                stalled.add(stall());
+            }
+            awaitAvailable(0);
+            assertEquals("503", request("GET", "/poem?input=a", null)[0]);
+            assertEquals("503", request("POST", "/poems", "a\nb\n")[0]);
+            assertTrue(request("GET", "/stats", null)[1].contains("\"shed\":2,"));
+        } finally {
+            for (Socket socket : stalled) {
+                socket.close();
+            }
+        }
+        awaitAvailable(4);
+        assertEquals("200", request("GET", "/poem?input=a", null)[0]);
+    }
+
+    @Test
+    public void testBatchWeighsItsSize() throws IOException, InterruptedException {
+        String batch = "this a test\n".repeat(200);
+        try (Socket stalled = stall()) {
+            assertTrue(stalled.isConnected());
+            awaitAvailable(3);
+            // 200 inputs weigh 1 + 200 / 64 = 4 permits, more than the 3 left
+            assertEquals("503", request("POST", "/poems", batch)[0]);
+            assertEquals("200", request("POST", "/poems", "this a test\n".repeat(100))[0]);
+            assertEquals("200", request("GET", "/poem?input=a", null)[0]);
+        }
+        awaitAvailable(4);
+        assertEquals("200", request("POST", "/poems", batch)[0]);
+    }
+
+    @Test
+    public void testCoalesceSameInput() throws Exception {
+        PoemServer coalescing = new PoemServer(poet, new InetSocketAddress("localhost", 0), 16, 200_000);
+        coalescing.start();
+        ExecutorService clients = Executors.newFixedThreadPool(8);
+        try {
+            String url = "http://localhost:" + coalescing.port() + "/poem?input=this+a+test";
+            CountDownLatch ready = new CountDownLatch(8);
+            List<Future<String>> poems = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                poems.add(clients.submit(() -> {
+                    ready.countDown();
+                    ready.await();
+                    HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+                    try (InputStream in = connection.getInputStream()) {
+                        return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                    }
+                }));
+            }
+            for (Future<String> poem : poems) {
+                assertEquals("this is a test", poem.get());
+            }
+            HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:"
+                    + coalescing.port() + "/stats").openConnection();
+            String stats;
+            try (InputStream in = connection.getInputStream()) {
+                stats = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            assertTrue(stats, stats.contains("\"served\":8,"));
+            assertFalse(stats, stats.contains("\"coalesced\":0,"));
+        } finally {
+            clients.shutdown();
+            coalescing.stop(0);
+        }
+    }
+
+    @Test
+    public void testCoalescingDisabled() throws IOException {
+        server.stop(0);
+        server = new PoemServer(poet, new InetSocketAddress("localhost", 0), 4, 0);
+        server.start();
+        assertEquals("Test of the system.", request("GET", "/poem?input=Test+the+system.", null)[1]);
+        assertTrue(request("GET", "/stats", null)[1].contains("\"coalesced\":0,"));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testNegativeCoalescingWindow() throws IOException {
+        new PoemServer(poet, new InetSocketAddress("localhost", 0), 4, -1);
+    }
+
+    @Test
+    public void testRequestExecutor() throws Exception {
+        ExecutorService executor = PoemServer.newRequestExecutor(4);
+        try {
+            if (Runtime.version().feature() >= 21) {
+                Object virtual = executor.submit(() -> Thread.class.getMethod("isVirtual")
+                        .invoke(Thread.currentThread())).get();
+                assertEquals(Boolean.TRUE, virtual);
+            } else {
+                ThreadPoolExecutor pool = (ThreadPoolExecutor) executor;
+                assertEquals(0, pool.getCorePoolSize());
+                assertEquals(4 + 16, pool.getMaximumPoolSize());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    // Open a connection that sends a poem request without the end of its body, so that the
+    // server holds one permit for it until the connection is closed
+    private Socket stall() throws IOException {
+        Socket socket = new Socket("localhost", server.port());
+        OutputStream out = socket.getOutputStream();
+        out.write(("POST /poem HTTP/1.1\r\nHost: localhost\r\nContent-Length: 100\r\n\r\nthis a")
+                .getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+        return socket;
+    }
+
+    // Wait until the server reports a number of available permits
+    private void awaitAvailable(int available) throws IOException, InterruptedException {
+        String expected = "\"available\":" + available + ",";
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (!request("GET", "/stats", null)[1].contains(expected)) {
+            assertTrue("expected " + available + " permits to become available", System.nanoTime() < deadline);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package poet;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of GraphPoet construction time, poem() latency with and
+ * without bridge paths, and random walk throughput, on synthetic corpora
+ * with Zipf-distributed word frequencies.
+ *
+ * <p>Run with, for example,
+ * {@code java -jar benchmarks/target/benchmarks.jar PoetBenchmark -p size=100000}.
+ * poem() is measured in sample mode, so JMH reports its latency percentiles.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PoetBenchmark {
+
+    private static final int POEMS = 1 << 12;
+    private static final int WORDS_PER_INPUT = 8;
+    private static final int WALK_WORDS = 10_000;
+    private static final int PATH_WORDS = 3;
+    private static final int PATH_EXPANSIONS = 10_000;
+
+    /** Number of words in the corpus. */
+    @Param({"100000", "1000000"})
+    public long size;
+
+    /** Number of distinct words in the corpus; fewer words make a denser graph. */
+    @Param({"20000"})
+    public int density;
+
+    /** Zipf exponent of the word frequencies. */
+    @Param({"1.0"})
+    public double exponent;
+
+    private Path corpus;
+    private GraphPoet poet;
+    private GraphPoet pathPoet;
+    private String[] inputs;
+    private String first;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        corpus = Files.createTempFile("zipf", ".txt");
+        new ZipfCorpus(density, exponent, size).write(corpus, size);
+        poet = new GraphPoet(corpus);
+        pathPoet = new GraphPoet(corpus);
+        pathPoet.enableBridgePaths(PATH_WORDS, PATH_EXPANSIONS);
+        ZipfCorpus words = new ZipfCorpus(density, exponent, ~size);
+        inputs = new String[POEMS];
+        for (int i = 0; i < POEMS; i++) {
+            inputs[i] = words.text(WORDS_PER_INPUT).trim();
+        }
+        first = ZipfCorpus.word(1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.delete(corpus);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public GraphPoet constructStream() throws IOException {
+        return new GraphPoet(corpus);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public GraphPoet constructMapped() throws IOException {
+        return GraphPoet.fromMappedFile(corpus);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public GraphPoet constructParallel() throws IOException {
+        return new GraphPoet(corpus.toFile(), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param input the next of a fixed cycle of inputs
+     * @return the poem of the input, with one-word bridges
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public String poem(Input input) {
+        return poet.poem(inputs[input.next()]);
+    }
+
+    /**
+     * @param input the next of a fixed cycle of inputs
+     * @return the poem of the input, with bridge paths of up to PATH_WORDS words
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public String poemPaths(Input input) {
+        return pathPoet.poem(inputs[input.next()]);
+    }
+
+    /**
+     * @param input source of the seed of the walk
+     * @return a random walk of WALK_WORDS words from the most frequent word;
+     *         the score is in words per second, which overstates the
+     *         throughput of walks that stop early at a word without targets
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(WALK_WORDS)
+    public String walk(Input input) {
+        return poet.walk(first, WALK_WORDS, input.next());
+    }
+
+    /** A per-thread position in the cycle of inputs, also used as a walk seed. */
+    @State(Scope.Thread)
+    public static class Input {
+        private int next;
+
+        int next() {
+            next = (next + 1) & (POEMS - 1);
+            return next;
+        }
+    }
+}
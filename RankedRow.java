@@ -0,0 +1,111 @@
+package poet;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import graph.Validation;
+
+/**
+ * The edges of one adjacency row of a word affinity graph, sorted by
+ * decreasing weight and then by word, so that searches can visit the
+ * heaviest edges first and stop once no lighter edge can matter. A row may
+ * keep only its heaviest edges, for searches that can never follow more.
+ * Immutable.
+ */
+class RankedRow {
+
+    /** Orders edges by decreasing weight, then increasing word. */
+    static final Comparator<Map.Entry<String, Integer>> ORDER =
+            Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey());
+
+    private final String[] words;
+    private final int[] weights;
+
+    // Abstraction function:
+    //   Represents the edges to words[i] with weight weights[i], in that order: the whole row,
+    //   or its heaviest edges if it was limited.
+    // Representation invariant:
+    //   - words and weights have the same length, and are sorted by ORDER.
+    // Safety from rep exposure:
+    //   - All fields are private and final, and the arrays are never returned.
+
+    /**
+     * Sort a row of edges.
+     *
+     * @param row map from each word to its positive edge weight
+     */
+    RankedRow(Map<String, Integer> row) {
+        this(row, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Sort the heaviest edges of a row. Selecting them takes time linear in
+     * the size of the row and logarithmic in the limit, so a row much larger
+     * than the limit is never sorted whole.
+     *
+     * @param row map from each word to its positive edge weight
+     * @param limit positive maximum number of edges to keep
+     */
+    RankedRow(Map<String, Integer> row, int limit) {
+        if (limit <= 0) throw new IllegalArgumentException("Row limit must be positive");
+        List<Map.Entry<String, Integer>> edges;
+        if (row.size() <= limit) {
+            edges = new ArrayList<>(row.entrySet());
+        } else {
+            // Keep the limit heaviest edges seen so far, lightest at the head
+            PriorityQueue<Map.Entry<String, Integer>> heaviest = new PriorityQueue<>(limit, ORDER.reversed());
+            for (Map.Entry<String, Integer> edge : row.entrySet()) {
+                if (heaviest.size() < limit) {
+                    heaviest.add(Map.entry(edge.getKey(), edge.getValue()));
+                } else if (ORDER.compare(edge, heaviest.peek()) < 0) {
+                    heaviest.poll();
+                    heaviest.add(Map.entry(edge.getKey(), edge.getValue()));
+                }
+            }
+            edges = new ArrayList<>(heaviest);
+        }
+        edges.sort(ORDER);
+        words = new String[edges.size()];
+        weights = new int[edges.size()];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = edges.get(i).getKey();
+            weights[i] = edges.get(i).getValue();
+        }
+        if (Validation.checkTouched()) {
+            checkRep(); // Every edge was just ranked
+        }
+    }
+
+    private void checkRep() {
+        assert words.length == weights.length;
+        for (int i = 1; i < words.length; i++) {
+            assert weights[i - 1] > weights[i] || (weights[i - 1] == weights[i] && words[i - 1].compareTo(words[i]) < 0);
+        }
+    }
+
+    /**
+     * @return the number of edges
+     */
+    int size() {
+        return words.length;
+    }
+
+    /**
+     * @param i index in [0, size())
+     * @return the word at the other end of the i-th heaviest edge
+     */
+    String word(int i) {
+        return words[i];
+    }
+
+    /**
+     * @param i index in [0, size())
+     * @return the weight of the i-th heaviest edge
+     */
+    int weight(int i) {
+        return weights[i];
+    }
+}
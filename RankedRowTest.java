@@ -0,0 +1,66 @@
+package poet;
+
+import static org.junit.Assert.*;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Tests for RankedRow.
+ */
+public class RankedRowTest {
+
+    // Testing strategy
+    //   row: empty, one edge, distinct weights, tied weights
+    //   limit: larger than the row, smaller than the row with ties at the cut, not positive
+
+    @Test
+    public void testEmptyRow() {
+        assertEquals(0, new RankedRow(Map.of()).size());
+    }
+
+    @Test
+    public void testSingleEdge() {
+        RankedRow row = new RankedRow(Map.of("a", 3));
+        assertEquals(1, row.size());
+        assertEquals("a", row.word(0));
+        assertEquals(3, row.weight(0));
+    }
+
+    @Test
+    public void testSortedByWeightThenWord() {
+        RankedRow row = new RankedRow(Map.of("d", 1, "c", 5, "b", 2, "a", 2));
+        assertEquals(4, row.size());
+        assertEquals("c", row.word(0));
+        assertEquals(5, row.weight(0));
+        assertEquals("a", row.word(1));
+        assertEquals("b", row.word(2));
+        assertEquals(2, row.weight(2));
+        assertEquals("d", row.word(3));
+        assertEquals(1, row.weight(3));
+    }
+
+    @Test
+    public void testLimitKeepsHeaviest() {
+        RankedRow row = new RankedRow(Map.of("d", 1, "c", 5, "b", 2, "a", 2, "e", 4), 3);
+        assertEquals(3, row.size());
+        assertEquals("c", row.word(0));
+        assertEquals("e", row.word(1));
+        assertEquals("a", row.word(2));
+        assertEquals(2, row.weight(2));
+    }
+
+    @Test
+    public void testLimitLargerThanRow() {
+        RankedRow row = new RankedRow(Map.of("b", 1, "a", 1), 5);
+        assertEquals(2, row.size());
+        assertEquals("a", row.word(0));
+        assertEquals("b", row.word(1));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testLimitNotPositive() {
+        new RankedRow(Map.of("a", 1), 0);
+    }
+}
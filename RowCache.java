@@ -0,0 +1,125 @@
+package poet;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * A thread-safe cache of values derived from the adjacency rows of words in
+ * immutable graph snapshots, such as alias tables or sorted rows. A cached
+ * value is only returned for the very row object it was derived from, so a
+ * value derived from an older snapshot is rebuilt rather than used, and rows
+ * that a new snapshot shares with the old one keep their values.
+ *
+ * <p>The cache keeps the values of rows of at most a fixed total number of
+ * edges, since a value's size grows with its row's: once a new value takes
+ * the total over that bound, values of arbitrary other rows are evicted, and
+ * the value of a row larger than the bound is derived on every call.
+ *
+ * @param <T> type of derived values, must be immutable
+ */
+class RowCache<T> {
+
+    private final Function<Map<String, Integer>, T> derive;
+    private final long maxEdges;
+    private final Map<String, Entry<T>> entries = new ConcurrentHashMap<>();
+    private final AtomicLong edges = new AtomicLong();
+
+    // Abstraction function:
+    //   Represents, for each word w in entries, the value entries[w].value derived from the row
+    //   entries[w].row.
+    // Representation invariant:
+    //   - entries[w].value equals derive(entries[w].row), and entries[w].row has at most
+    //     maxEdges edges.
+    //   - Outside of get() and invalidate(), edges is the total size of the rows in entries,
+    //     and at most maxEdges.
+    // Safety from rep exposure:
+    //   - All fields are private, and rows and values are immutable.
+    // Thread safety argument:
+    //   - entries is a concurrent map of immutable entries; racing callers may each derive a
+    //     value for the same row, and either may be kept, since they are equal.
+    //   - edges only changes by the size difference of an atomic put() or remove() on entries,
+    //     after it returns, so it settles on the total once racing calls return.
+
+    /**
+     * Create an empty cache.
+     *
+     * @param derive function from an immutable row to its derived value
+     * @param maxEdges positive maximum total number of edges of the rows whose
+     *        values are kept
+     */
+    RowCache(Function<Map<String, Integer>, T> derive, long maxEdges) {
+        if (maxEdges <= 0) throw new IllegalArgumentException("Cache size must be positive");
+        this.derive = derive;
+        this.maxEdges = maxEdges;
+    }
+
+    /**
+     * @param word a word
+     * @param row the immutable adjacency row of word in the snapshot being read
+     * @return the value derived from row, derived now if it is not cached
+     */
+    T get(String word, Map<String, Integer> row) {
+        Entry<T> entry = entries.get(word);
+        if (entry != null && entry.row == row) {
+            return entry.value;
+        }
+        T value = derive.apply(row);
+        if (row.size() > maxEdges) {
+            if (entry != null && entries.remove(word, entry)) {
+                edges.addAndGet(-entry.row.size());
+            }
+            return value;
+        }
+        Entry<T> old = entries.put(word, new Entry<>(row, value));
+        if (edges.addAndGet(row.size() - (old == null ? 0 : old.row.size())) > maxEdges) {
+            evict(word);
+        }
+        return value;
+    }
+
+    // Evict the values of rows other than word's until the cached rows fit the bound again
+    private void evict(String word) {
+        Iterator<Map.Entry<String, Entry<T>>> it = entries.entrySet().iterator();
+        while (edges.get() > maxEdges && it.hasNext()) {
+            Map.Entry<String, Entry<T>> victim = it.next();
+            if (!victim.getKey().equals(word) && entries.remove(victim.getKey(), victim.getValue())) {
+                edges.addAndGet(-victim.getValue().row.size());
+            }
+        }
+    }
+
+    /**
+     * Drop the values of words whose rows changed, to free their memory early.
+     *
+     * @param words words whose rows changed
+     */
+    void invalidate(Collection<String> words) {
+        for (String word : words) {
+            Entry<T> entry = entries.remove(word);
+            if (entry != null) {
+                edges.addAndGet(-entry.row.size());
+            }
+        }
+    }
+
+    /**
+     * @return the total number of edges of the rows whose values are cached
+     */
+    long edges() {
+        return edges.get();
+    }
+
+    private static class Entry<T> {
+        private final Map<String, Integer> row;
+        private final T value;
+
+        Entry(Map<String, Integer> row, T value) {
+            this.row = row;
+            this.value = value;
+        }
+    }
+}
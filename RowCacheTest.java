@@ -0,0 +1,85 @@
+package poet;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Tests for RowCache.
+ */
+public class RowCacheTest {
+
+    // Testing strategy
+    //   get(): same row, new row for a cached word, row larger than the bound
+    //   bound: total under it, new row taking the total over it
+    //   invalidate(): cached word, unknown word
+
+    private final AtomicInteger derived = new AtomicInteger();
+
+    private RowCache<Integer> cache(long maxEdges) {
+        return new RowCache<>(row -> {
+            derived.incrementAndGet();
+            return row.size();
+        }, maxEdges);
+    }
+
+    @Test
+    public void testSameRowDerivedOnce() {
+        RowCache<Integer> cache = cache(10);
+        Map<String, Integer> row = Map.of("b", 1, "c", 2);
+        assertEquals(2, (int) cache.get("a", row));
+        assertEquals(2, (int) cache.get("a", row));
+        assertEquals(1, derived.get());
+
+        Map<String, Integer> newRow = Map.of("b", 1);
+        assertEquals(1, (int) cache.get("a", newRow));
+        assertEquals(2, derived.get());
+        assertEquals(1, cache.edges());
+    }
+
+    @Test
+    public void testEvictsOverBound() {
+        RowCache<Integer> cache = cache(4);
+        Map<String, Integer> row1 = Map.of("x", 1, "y", 1);
+        Map<String, Integer> row2 = Map.of("x", 1, "z", 1);
+        Map<String, Integer> row3 = Map.of("y", 1, "z", 1);
+        cache.get("a", row1);
+        cache.get("b", row2);
+        assertEquals(4, cache.edges());
+
+        cache.get("c", row3);
+        assertEquals(4, cache.edges());
+        cache.get("c", row3);
+        assertEquals(3, derived.get()); // The newest row is never the one evicted
+    }
+
+    @Test
+    public void testRowLargerThanBound() {
+        RowCache<Integer> cache = cache(1);
+        Map<String, Integer> row = Map.of("b", 1, "c", 1);
+        cache.get("a", row);
+        cache.get("a", row);
+        assertEquals(2, derived.get());
+        assertEquals(0, cache.edges());
+    }
+
+    @Test
+    public void testInvalidate() {
+        RowCache<Integer> cache = cache(10);
+        Map<String, Integer> row = Map.of("b", 1, "c", 1);
+        cache.get("a", row);
+        cache.invalidate(List.of("a", "unknown"));
+        assertEquals(0, cache.edges());
+        cache.get("a", row);
+        assertEquals(2, derived.get());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testBoundNotPositive() {
+        cache(0);
+    }
+}
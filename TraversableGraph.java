@@ -0,0 +1,74 @@
+package graph;
+
+/**
+ * A Graph that can also be traversed without building maps or boxing
+ * weights: edges are passed one at a time to a visitor, and degrees and
+ * weights are returned as {@code int}.
+ *
+ * <p>Graph itself must not gain methods, so implementations that support
+ * these operations implement this interface alongside it, and callers check
+ * for it with {@code instanceof} and fall back to sources() and targets().
+ *
+ * @param <L> type of vertex labels in this graph, must be immutable
+ */
+public interface TraversableGraph<L> extends Graph<L> {
+
+    /**
+     * Receives the edges of a traversal, one at a time.
+     *
+     * @param <L> type of vertex labels
+     */
+    @FunctionalInterface
+    public interface EdgeVisitor<L> {
+
+        /**
+         * Visit one edge.
+         *
+         * @param vertex label of the vertex at the other end of the edge
+         * @param weight (positive) weight of the edge
+         */
+        public void visit(L vertex, int weight);
+    }
+
+    /**
+     * Visit each edge from a source vertex, in no particular order. The
+     * visitor must not modify this graph.
+     *
+     * @param source a label
+     * @param visitor called once with the target and weight of each edge
+     *        from source; not called if source is not in this graph
+     */
+    public void forEachTarget(L source, EdgeVisitor<? super L> visitor);
+
+    /**
+     * Visit each edge to a target vertex, in no particular order. The visitor
+     * must not modify this graph.
+     *
+     * @param target a label
+     * @param visitor called once with the source and weight of each edge to
+     *        target; not called if target is not in this graph
+     */
+    public void forEachSource(L target, EdgeVisitor<? super L> visitor);
+
+    /**
+     * @param source a label
+     * @return the number of edges from source, or 0 if source is not in this
+     *         graph; equal to targets(source).size()
+     */
+    public int outDegree(L source);
+
+    /**
+     * @param target a label
+     * @return the number of edges to target, or 0 if target is not in this
+     *         graph; equal to sources(target).size()
+     */
+    public int inDegree(L target);
+
+    /**
+     * @param source a label
+     * @param target a label
+     * @return the weight of the edge from source to target, or 0 if there is
+     *         no such edge
+     */
+    public int weight(L source, L target);
+}
@@ -0,0 +1,122 @@
+package graph;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * How much of its representation invariant a mutable ADT checks after each
+ * mutation, from nothing to the whole representation.
+ *
+ * <p>The level is global. It starts as the value of the system property
+ * {@code graph.validation} ({@code off}, {@code sampled}, {@code incremental}
+ * or {@code full}) if set, and otherwise as FULL when assertions are enabled
+ * and OFF when they are not, so that production code pays nothing for
+ * invariants while tests run every check. An unknown property value is
+ * logged and ignored. SAMPLED checks one mutation in
+ * {@code graph.validation.sampleRate} (default 1024).
+ *
+ * <p>Invariant checks are assert statements, so no level has any effect
+ * unless assertions are enabled; {@link #checkAll()} and
+ * {@link #checkTouched()} then return false at every level, so that callers
+ * skip the loops around those statements too.
+ */
+public enum Validation {
+
+    /** Check nothing. */
+    OFF,
+    /** Check the whole representation after a random sample of mutations. */
+    SAMPLED,
+    /** Check only the vertices and edges that each mutation touched. */
+    INCREMENTAL,
+    /** Check the whole representation after every mutation. */
+    FULL;
+
+    private static final int SAMPLE_RATE = Integer.getInteger("graph.validation.sampleRate", 1024);
+
+    private static final boolean ASSERTIONS = assertionsEnabled();
+
+    private static volatile Validation level = initialLevel(System.getProperty("graph.validation"), ASSERTIONS);
+
+    private static boolean assertionsEnabled() {
+        boolean assertions = false;
+        assert assertions = true; // Deliberate side effect, only run with assertions enabled
+        return assertions;
+    }
+
+    /**
+     * @param property value of the graph.validation property, or null if it
+     *        is not set
+     * @param assertions whether assertions are enabled
+     * @return the level named by property, or if property is null or names no
+     *         level, FULL when assertions are enabled and OFF when they are not
+     */
+    static Validation initialLevel(String property, boolean assertions) {
+        if (property != null) {
+            try {
+                return parse(property);
+            } catch (IllegalArgumentException e) {
+                System.getLogger(Validation.class.getName()).log(System.Logger.Level.WARNING,
+                        "Ignoring graph.validation=" + property + ": " + e.getMessage());
+            }
+        }
+        return assertions ? FULL : OFF;
+    }
+
+    /**
+     * @param name name of a level, in any case
+     * @return the level with that name
+     * @throws IllegalArgumentException if there is no level with that name
+     */
+    public static Validation parse(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown validation level: " + name, e);
+        }
+    }
+
+    /**
+     * @return the current validation level
+     */
+    public static Validation level() {
+        return level;
+    }
+
+    /**
+     * Set the validation level of mutations made from now on.
+     *
+     * @param newLevel validation level
+     */
+    public static void setLevel(Validation newLevel) {
+        if (newLevel == null) throw new IllegalArgumentException("Validation level cannot be null");
+        level = newLevel;
+    }
+
+    /**
+     * @return true if the mutation just made should be followed by a check of
+     *         the whole representation: always at level FULL, for a random
+     *         sample of mutations at level SAMPLED, and never otherwise or
+     *         when assertions are disabled
+     */
+    public static boolean checkAll() {
+        if (!ASSERTIONS) {
+            return false;
+        }
+        Validation current = level;
+        return current == FULL
+                || (current == SAMPLED && ThreadLocalRandom.current().nextInt(SAMPLE_RATE) == 0);
+    }
+
+    /**
+     * @return true if the mutation just made should be followed by a check of
+     *         the parts of the representation it touched, at levels
+     *         INCREMENTAL and FULL, unless assertions are disabled
+     */
+    public static boolean checkTouched() {
+        if (!ASSERTIONS) {
+            return false;
+        }
+        Validation current = level;
+        return current == INCREMENTAL || current == FULL;
+    }
+}
@@ -0,0 +1,134 @@
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests for Validation.
+ */
+public class ValidationTest {
+
+    // Testing strategy
+    //   initial level: with assertions enabled, no property set; property valid, unknown or
+    //     unset, with and without assertions
+    //   parse: each level, mixed case, unknown name
+    //   checkAll, checkTouched: at each level
+    //   graphs: random mutations at each level agree with a map of edges
+
+    private static final Validation INITIAL = Validation.level();
+
+    @After
+    public void tearDown() {
+        Validation.setLevel(INITIAL);
+    }
+
+    @Test
+    public void testInitialLevelWithAssertions() {
+        if (System.getProperty("graph.validation") == null) {
+            assertEquals(Validation.FULL, INITIAL);
+        }
+    }
+
+    @Test
+    public void testInitialLevelFromProperty() {
+        assertEquals(Validation.SAMPLED, Validation.initialLevel("sampled", true));
+        assertEquals(Validation.INCREMENTAL, Validation.initialLevel("Incremental", false));
+        assertEquals(Validation.FULL, Validation.initialLevel(null, true));
+        assertEquals(Validation.OFF, Validation.initialLevel(null, false));
+    }
+
+    // Test that an unknown property value falls back to the default instead of failing
+    @Test
+    public void testInitialLevelUnknownProperty() {
+        assertEquals(Validation.FULL, Validation.initialLevel("sometimes", true));
+        assertEquals(Validation.OFF, Validation.initialLevel("sometimes", false));
+    }
+
+    @Test
+    public void testParse() {
+        assertEquals(Validation.OFF, Validation.parse("off"));
+        assertEquals(Validation.SAMPLED, Validation.parse("Sampled"));
+        assertEquals(Validation.INCREMENTAL, Validation.parse(" INCREMENTAL "));
+        assertEquals(Validation.FULL, Validation.parse("full"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseUnknown() {
+        Validation.parse("sometimes");
+    }
+
+    @Test
+    public void testChecksByLevel() {
+        Validation.setLevel(Validation.OFF);
+        assertFalse(Validation.checkAll());
+        assertFalse(Validation.checkTouched());
+
+        Validation.setLevel(Validation.INCREMENTAL);
+        assertFalse(Validation.checkAll());
+        assertTrue(Validation.checkTouched());
+
+        Validation.setLevel(Validation.FULL);
+        assertTrue(Validation.checkAll());
+        assertTrue(Validation.checkTouched());
+    }
+
+    // Test that level SAMPLED checks a small fraction of mutations in full
+    @Test
+    public void testSampled() {
+        Validation.setLevel(Validation.SAMPLED);
+        assertFalse(Validation.checkTouched());
+        int checks = 0;
+        for (int i = 0; i < 1_000_000; i++) {
+            if (Validation.checkAll()) {
+                checks++;
+            }
+        }
+        assertTrue(checks > 0 && checks < 10_000);
+    }
+
+    // Test every String graph under every level against a map of edges
+    @Test
+    public void testGraphsAtEachLevel() {
+        List<Supplier<Graph<String>>> factories = List.of(
+                ConcreteEdgesGraph::new, ConcreteVerticesGraph::new, CompactGraph::new, ConcurrentGraph::new, OffHeapGraph::new,
+                () -> new AdaptiveGraph<>(new AdaptiveGraph.Thresholds(2, 4, 16, 1.0)));
+        for (Validation level : Validation.values()) {
+            Validation.setLevel(level);
+            for (Supplier<Graph<String>> factory : factories) {
+                Graph<String> graph = factory.get();
+                Map<String, Map<String, Integer>> expected = new HashMap<>();
+                Random random = new Random(level.ordinal());
+                for (int i = 0; i < 2000; i++) {
+                    String source = "v" + random.nextInt(20);
+                    String target = "v" + random.nextInt(20);
+                    if (random.nextInt(10) == 0) {
+                        graph.remove(source);
+                        expected.remove(source);
+                        expected.values().forEach(row -> row.remove(source));
+                    } else {
+                        int weight = random.nextInt(3);
+                        graph.set(source, target, weight);
+                        if (weight > 0) {
+                            expected.computeIfAbsent(source, v -> new HashMap<>()).put(target, weight);
+                            expected.computeIfAbsent(target, v -> new HashMap<>());
+                        } else if (expected.containsKey(source)) {
+                            expected.get(source).remove(target);
+                        }
+                    }
+                }
+                for (String vertex : graph.vertices()) {
+                    assertEquals(level + " " + graph.getClass().getSimpleName(),
+                            expected.getOrDefault(vertex, Map.of()), graph.targets(vertex));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package graph;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tests for Vertex class
+ */
+public class VertexTest {
+
+    private Vertex vertex;
+
+    @Before
+    public void setUp() {
+        vertex = new Vertex("A");
+    }
+
+    // Test for Vertex constructor and getters
+    @Test
+    public void testVertexConstructor() {
+        assertEquals("A", vertex.getName());
+    }
+
+    // Test for adding and updating edges
+    @Test
+    public void testSetEdgeWeight() {
+        vertex.setEdge("B", 5);
+        assertEquals(5, vertex.getEdgeWeight("B"));
+        
+        vertex.setEdge("B", 10); // Update weight
+        assertEquals(10, vertex.getEdgeWeight("B"));
+        
+        vertex.setEdge("B", 0); // Remove edge by setting weight to 0
+        assertEquals(0, vertex.getEdgeWeight("B"));
+    }
+
+    // Test for retrieving adjacent vertices
+    @Test
+    public void testGetAdjacentVertices() {
+        vertex.setEdge("B", 5);
+        vertex.setEdge("C", 10);
+        
+        Map<String, Integer> adjVertices = vertex.getAdjacentVertices();
+        assertEquals(2, adjVertices.size());
+        assertEquals((Integer) 5, adjVertices.get("B"));
+        assertEquals((Integer) 10, adjVertices.get("C"));
+    }
+
+    // Test for incoming edges
+    @Test
+    public void testSetIncomingEdge() {
+        vertex.setIncomingEdge("B", 5);
+        assertEquals(5, vertex.getIncomingWeight("B"));
+        assertEquals(Map.of("B", 5), vertex.getIncomingVertices());
+        
+        vertex.setIncomingEdge("B", 0); // Remove edge by setting weight to 0
+        assertEquals(0, vertex.getIncomingWeight("B"));
+        assertTrue(vertex.getIncomingVertices().isEmpty());
+    }
+
+    // Test for Vertex toString()
+    @Test
+    public void testVertexToString() {
+        vertex.setEdge("B", 5);
+        assertTrue(vertex.toString().contains("A"));
+        assertTrue(vertex.toString().contains("B"));
+        assertTrue(vertex.toString().contains("5"));
+    }
+}
@@ -0,0 +1,115 @@
+package poet;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads the lowercase words of a character stream one at a time, holding only
+ * a fixed-size buffer and the current word in memory.
+ *
+ * <p>The words are the same as those of
+ * {@code text.toLowerCase().split("\\s+")} for the whole text, including the
+ * empty first word that split() yields when the text starts with whitespace
+ * and contains a word.
+ */
+class WordReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position = 0;
+    private int limit = 0;
+    private boolean started = false;
+    private String pending = null;
+
+    // Abstraction function:
+    //   Represents the words not yet returned: pending if not null, followed by the words of
+    //   buffer[position..limit) and then of the rest of in.
+    // Representation invariant:
+    //   - 0 <= position <= limit <= buffer.length.
+    //   - pending is not null only right after the empty first word was returned.
+    // Safety from rep exposure:
+    //   - All fields are private, and only immutable strings are returned.
+
+    /**
+     * @param in character stream to read words from; closed by {@link #close()}
+     */
+    WordReader(Reader in) {
+        this.in = in;
+    }
+
+    private void checkRep() {
+        assert 0 <= position && position <= limit && limit <= buffer.length;
+    }
+
+    /**
+     * Read the next word.
+     *
+     * @return the next lowercase word, or null at the end of the stream
+     * @throws IOException if the stream cannot be read
+     */
+    String next() throws IOException {
+        if (pending != null) {
+            String word = pending;
+            pending = null;
+            return word;
+        }
+        boolean skipped = false;
+        while (fill() && BigramCounter.isSpace(buffer[position])) {
+            position++;
+            skipped = true;
+        }
+        String word = readWord();
+        if (!started) {
+            started = true;
+            if (skipped && word != null) {
+                pending = word;
+                return "";
+            }
+        }
+        checkRep();
+        return word;
+    }
+
+    // Read the word starting at position, or return null at the end of the stream
+    private String readWord() throws IOException {
+        StringBuilder word = null;
+        while (fill()) {
+            int start = position;
+            while (position < limit && !BigramCounter.isSpace(buffer[position])) {
+                position++;
+            }
+            if (word == null) {
+                if (position < limit) {
+                    return new String(buffer, start, position - start).toLowerCase();
+                }
+                word = new StringBuilder();
+            }
+            word.append(buffer, start, position - start);
+            if (position < limit) {
+                break;
+            }
+        }
+        return word == null || word.length() == 0 ? null : word.toString().toLowerCase();
+    }
+
+    // Make sure buffer has an unread character, returning false at the end of the stream
+    private boolean fill() throws IOException {
+        while (position == limit) {
+            int read = in.read(buffer);
+            if (read < 0) {
+                return false;
+            }
+            position = 0;
+            limit = read;
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
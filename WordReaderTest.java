@@ -0,0 +1,63 @@
+package poet;
+
+import static org.junit.Assert.*;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests for WordReader.
+ */
+public class WordReaderTest {
+
+    // Testing strategy
+    //   text: empty, whitespace only, leading/trailing whitespace, mixed case
+    //   words: shorter than a read, spanning reads, longer than the buffer
+
+    // Test that words match split() on the lowercase text
+    @Test
+    public void testMatchesSplit() throws IOException {
+        String longWord = "x".repeat(20000);
+        for (String text : new String[] {"", "  \n", "One", "  leading and trailing \t",
+                "Hello world. Hello AGAIN,\r\nworld.", "a " + longWord + " b"}) {
+            assertEquals("expected split() words for \"" + text + "\"",
+                    expectedWords(text), readAll(new StringReader(text)));
+            assertEquals("expected split() words in small reads for \"" + text + "\"",
+                    expectedWords(text), readAll(smallReads(text)));
+        }
+    }
+
+    private static List<String> expectedWords(String text) {
+        List<String> words = new ArrayList<>(Arrays.asList(text.toLowerCase().split("\\s+")));
+        if (text.isEmpty()) {
+            words.clear(); // split() yields one empty word for the empty string, but no bigrams
+        }
+        return words;
+    }
+
+    private static List<String> readAll(Reader in) throws IOException {
+        List<String> words = new ArrayList<>();
+        WordReader reader = new WordReader(in);
+        for (String word = reader.next(); word != null; word = reader.next()) {
+            words.add(word);
+        }
+        return words;
+    }
+
+    // A reader that returns at most three characters per read
+    private static Reader smallReads(String text) {
+        return new FilterReader(new StringReader(text)) {
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                return super.read(buffer, offset, Math.min(length, 3));
+            }
+        };
+    }
+}
@@ -0,0 +1,113 @@
+package poet;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * A generator of synthetic corpus text whose word frequencies follow a Zipf
+ * distribution: the word of rank r in [1, n] occurs with probability
+ * proportional to 1 / r^s.
+ */
+class ZipfCorpus {
+
+    private static final int WORDS_PER_LINE = 12;
+
+    private final String[] words;
+    private final double[] cumulative;
+    private final Random random;
+
+    // Abstraction function:
+    //   Represents a seeded source of words in which words[r-1] has rank r and probability
+    //   cumulative[r-1] - cumulative[r-2] (taking cumulative[-1] as 0).
+    // Representation invariant:
+    //   - words and cumulative have the same positive length, words are distinct, and
+    //     cumulative is strictly increasing with last element 1.
+    // Safety from rep exposure:
+    //   - All fields are private, and only immutable strings are returned.
+
+    /**
+     * Create a generator.
+     *
+     * @param vocabularySize positive number of distinct words
+     * @param exponent non-negative Zipf exponent s; 0 gives uniform
+     *        frequencies, and natural language is close to 1
+     * @param seed seed of the random word sequence
+     */
+    ZipfCorpus(int vocabularySize, double exponent, long seed) {
+        if (vocabularySize <= 0) throw new IllegalArgumentException("Vocabulary size must be positive");
+        if (exponent < 0) throw new IllegalArgumentException("Exponent cannot be negative");
+        words = new String[vocabularySize];
+        cumulative = new double[vocabularySize];
+        double total = 0;
+        for (int r = 1; r <= vocabularySize; r++) {
+            words[r - 1] = word(r);
+            total += 1 / Math.pow(r, exponent);
+            cumulative[r - 1] = total;
+        }
+        for (int i = 0; i < vocabularySize; i++) {
+            cumulative[i] /= total;
+        }
+        cumulative[vocabularySize - 1] = 1;
+        random = new Random(seed);
+        checkRep();
+    }
+
+    private void checkRep() {
+        assert words.length == cumulative.length && words.length > 0;
+        assert cumulative[cumulative.length - 1] == 1;
+    }
+
+    /**
+     * @param rank positive rank of a word
+     * @return the lowercase letters word of that rank: a, b, ..., z, aa, ab, ...
+     */
+    static String word(int rank) {
+        if (rank <= 0) throw new IllegalArgumentException("Rank must be positive");
+        StringBuilder word = new StringBuilder();
+        for (int r = rank; r > 0; r = (r - 1) / 26) {
+            word.append((char) ('a' + (r - 1) % 26));
+        }
+        return word.reverse().toString();
+    }
+
+    /**
+     * @return the next random word
+     */
+    String nextWord() {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        return words[index >= 0 ? index : -index - 1];
+    }
+
+    /**
+     * @param wordCount non-negative number of words
+     * @return the next wordCount random words, separated by spaces and line
+     *         breaks
+     */
+    String text(int wordCount) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < wordCount; i++) {
+            text.append(nextWord()).append((i + 1) % WORDS_PER_LINE == 0 ? '\n' : ' ');
+        }
+        return text.toString();
+    }
+
+    /**
+     * Write the next wordCount random words to a file, as text() returns them.
+     *
+     * @param file file to write, replaced if it exists
+     * @param wordCount non-negative number of words
+     * @throws IOException if the file cannot be written
+     */
+    void write(Path file, long wordCount) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file)) {
+            for (long i = 0; i < wordCount; i++) {
+                out.write(nextWord());
+                out.write((i + 1) % WORDS_PER_LINE == 0 ? '\n' : ' ');
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package poet;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Tests for ZipfCorpus.
+ */
+public class ZipfCorpusTest {
+
+    // Testing strategy
+    //   word: single letter, carry into two letters, three letters
+    //   vocabulary: one word, many words
+    //   exponent: 0 (uniform), 1 (skewed)
+    //   text, write: same seed gives same words
+
+    @Test
+    public void testWordNames() {
+        assertEquals("a", ZipfCorpus.word(1));
+        assertEquals("z", ZipfCorpus.word(26));
+        assertEquals("aa", ZipfCorpus.word(27));
+        assertEquals("az", ZipfCorpus.word(52));
+        assertEquals("ba", ZipfCorpus.word(53));
+        assertEquals("aaa", ZipfCorpus.word(26 * 27 + 1));
+    }
+
+    @Test
+    public void testSingleWordVocabulary() {
+        assertEquals("a a a ", new ZipfCorpus(1, 1, 0).text(3));
+    }
+
+    // Test that frequencies decrease with rank roughly as 1/r
+    @Test
+    public void testSkewedFrequencies() {
+        ZipfCorpus corpus = new ZipfCorpus(1000, 1, 42);
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            counts.merge(corpus.nextWord(), 1, Integer::sum);
+        }
+        int first = counts.get("a");
+        int second = counts.get("b");
+        int tenth = counts.get("j");
+        assertTrue(first > second && second > tenth);
+        assertEquals(2.0, (double) first / second, 0.2);
+        assertEquals(10.0, (double) first / tenth, 1.5);
+    }
+
+    @Test
+    public void testUniformFrequencies() {
+        ZipfCorpus corpus = new ZipfCorpus(4, 0, 7);
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 40_000; i++) {
+            counts.merge(corpus.nextWord(), 1, Integer::sum);
+        }
+        assertEquals(4, counts.size());
+        for (int count : counts.values()) {
+            assertEquals(10_000, count, 500);
+        }
+    }
+
+    @Test
+    public void testSameSeedSameText() throws IOException {
+        String text = new ZipfCorpus(100, 1, 3).text(50);
+        assertEquals(50, text.trim().split("\\s+").length);
+        Path file = Files.createTempFile("zipf", ".txt");
+        try {
+            new ZipfCorpus(100, 1, 3).write(file, 50);
+            assertEquals(text, Files.readString(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}